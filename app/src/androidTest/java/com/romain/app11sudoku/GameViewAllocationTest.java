@@ -0,0 +1,70 @@
+package com.romain.app11sudoku;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check that drawing a frame of the GameView does not allocate any object, once the view
+ * has been laid out.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GameViewAllocationTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void steadyStateFrame_allocatesNothing() {
+        final int [] allocations = new int[ 1 ];
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+                GameView view = new GameView(context);
+                // The view is not attached: the board is not taken from the pool
+                view.setGameBoard(GameBoard.getGameBoard(GameLevel.MEDIUM));
+                view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                view.layout(0, 0, WIDTH, HEIGHT);
+
+                // A frame with a selection, values, conflicts and marks
+                GameBoard board = view.getGameBoard();
+                for (int y = 0; y < 9; y++) {
+                    for (int x = 0; x < 9; x++) {
+                        board.currentCellX = x;
+                        board.currentCellY = y;
+                        board.bigNumber = (x + y) % 3 != 0;
+                        board.pushValue(1 + (x * 2 + y) % 9);
+                    }
+                }
+                board.currentCellX = 4;
+                board.currentCellY = 4;
+
+                Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+                // Warm up: the first frames may initialize some caches of the framework
+                for (int i = 0; i < 3; i++) view.onDraw(canvas);
+
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+                for (int i = 0; i < 10; i++) view.onDraw(canvas);
+                Debug.stopAllocCounting();
+                allocations[0] = Debug.getThreadAllocCount();
+            }
+        });
+
+        assertEquals(0, allocations[0]);
+    }
+}
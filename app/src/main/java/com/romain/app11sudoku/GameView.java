@@ -2,15 +2,17 @@ package com.romain.app11sudoku;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.graphics.RectF;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
+import android.widget.Toast;
 import androidx.annotation.Nullable;
 
 
@@ -18,20 +20,85 @@ public class GameView extends View implements GestureDetector.OnGestureListener
 
     // Ajout de l'attribut de type Paint : un stylo qui va dessiner la grille
     private Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    // Paints dedicated to the texts, configured once in onSizeChanged
+    private Paint valuePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private Paint markPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private Paint buttonTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
     private GestureDetector gestureDetector;
 
-    private GameBoard gameBoard = GameBoard.getGameBoard( GameLevel.MEDIUM );
+    // The level of the grid of a new game
+    static final GameLevel NEW_GAME_LEVEL = GameLevel.MEDIUM;
 
+    // Taken from the pool when the view is attached, so that a restored board does not
+    // consume a new grid; null until then
+    private GameBoard gameBoard;
+    private boolean waitingForBoard;
+    // The colors and glyphs of the cells, updated when the board or the selection changes
+    private RenderModel renderModel;
+
+    // The number of cells of a row and of a block side of the board: 9 and 3 for a classic grid
+    private int size = GameBoard.SIZE;
+    private int blockSize = GameBoard.BLOCK_SIZE;
+
+    // The place of the cells and of the buttons, computed in onSizeChanged
+    private BoardLayout layout;
     private float gridWidth;
     private float gridSeparatorSize;
     private float cellWidth;
     private float buttonWidth;
     private float buttonRadius;
-    private float buttonMargin;
 
+    // One number button per value, then the eraser, pencil and undo buttons: the rectangles
+    // are only used to draw them, the touches are found by the layout
+    private int eraserButton;
+    private int pencilButton;
+    private int undoButton;
+    private RectF [] buttonRects = new RectF[ 0 ];
+    private static final char [] UNDO_GLYPH = { '\u21B6' };
+
+    // The last value of the keypad, put into the cells crossed by a drag (0 if none yet)
+    private int keypadValue;
+    // The cells crossed by the current drag, applied to the board when the finger is raised
+    private boolean dragging;
+    private int [] dragCells = new int[ GameBoard.CELL_COUNT ];
+    private boolean [] dragged = new boolean[ GameBoard.CELL_COUNT ];
+    private int dragCount;
+    private float lastDragX;
+    private float lastDragY;
+
+    // The glyph of a value, drawn without building any String
+    private final char [] glyph = new char[ 1 ];
+
+    // The parts of the view which never change (grid lines and keypad), rebuilt in onSizeChanged
+    private Bitmap staticLayer;
+    private final Rect clipBounds = new Rect();
+
+    // Timings of the frames, only in the builds where BuildConfig.FRAME_STATS is set
+    private final FrameStats frameStats = BuildConfig.FRAME_STATS ? new FrameStats() : null;
+    // The time of the tap being handled, until it invalidates the view (0 if none)
+    private long tapTime;
+
+    // The icons of the keypad, null until the IconCache has decoded them at their size
     private Bitmap eraserBitmap;
     private Bitmap pencilBitmap;
     private Bitmap littlePencilBitmap;
+    private int iconSize;
+    private int littleIconSize;
+    private final RectF placeholderRect = new RectF();
+
+    // Run on the UI thread when an icon has been decoded: the placeholder is replaced. The
+    // icons are only read from the cache, as loadIcons() has already asked for all of them
+    private final Runnable onIconLoaded = new Runnable() {
+        @Override
+        public void run() {
+            boolean hadEraser = eraserBitmap != null;
+            if ( ! takeLoadedIcons() ) return;
+            // The eraser is part of the static layer
+            if ( eraserBitmap != null && ! hadEraser && staticLayer != null ) drawEraser( new Canvas( staticLayer ) );
+            countInvalidation();
+            invalidate();
+        }
+    };
 
     public GameView(Context context) {
         super(context);
@@ -47,6 +114,74 @@ public class GameView extends View implements GestureDetector.OnGestureListener
         // Activation du gestureDetector
         gestureDetector = new GestureDetector( getContext(), this );
 
+        valuePaint.setTextAlign( Paint.Align.CENTER );
+        valuePaint.setColor( 0xFF000000 );
+        markPaint.setTextAlign( Paint.Align.CENTER );
+        buttonTextPaint.setTextAlign( Paint.Align.CENTER );
+        buttonTextPaint.setColor( 0xFF000000 );
+
+    }
+
+    /**
+     * Return the board displayed by this view, or null while the first board is taken from
+     * the pool.
+     */
+    @Nullable
+    public GameBoard getGameBoard() {
+        return gameBoard;
+    }
+
+    /**
+     * Display another board, for instance a board restored from a saved state.
+     */
+    public void setGameBoard( GameBoard gameBoard ) {
+        this.gameBoard = gameBoard;
+        renderModel = new RenderModel( gameBoard );
+        renderModel.clearDirty();
+        // A grid of another size needs other cells and buttons
+        if ( gameBoard.getSize() != size && getWidth() > 0 ) computeLayout( getWidth(), getHeight() );
+        countInvalidation();
+        invalidate();
+    }
+
+    /**
+     * Return the timings of the frames drawn by this view, or null if they are not recorded
+     * by this build.
+     */
+    @Nullable
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    private void countInvalidation() {
+        if ( BuildConfig.FRAME_STATS ) {
+            frameStats.recordInvalidation();
+            // The next frame shows the result of the tap: a tap which changes nothing is ignored
+            if ( tapTime != 0 ) frameStats.recordInput( tapTime );
+            tapTime = 0;
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // A new game, unless a board has been restored: the grid is never generated on the UI
+        // thread, an empty grid is shown until it is ready
+        if ( gameBoard == null && ! waitingForBoard ) {
+            waitingForBoard = true;
+            PuzzlePool.getInstance().take( NEW_GAME_LEVEL, new PuzzlePool.Listener() {
+                @Override
+                public void onTaken( final GameBoard board ) {
+                    post( new Runnable() {
+                        @Override
+                        public void run() {
+                            waitingForBoard = false;
+                            if ( gameBoard == null ) setGameBoard( board );
+                        }
+                    } );
+                }
+            } );
+        }
     }
 
     // --- Events handlers ---
@@ -54,12 +189,21 @@ public class GameView extends View implements GestureDetector.OnGestureListener
     // Override from View
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        return gestureDetector.onTouchEvent(event);
+        // Nothing to play until the first board is ready
+        if ( gameBoard == null ) return true;
+        boolean handled = gestureDetector.onTouchEvent(event);
+        // The GestureDetector does not tell when a scroll ends
+        int action = event.getActionMasked();
+        if ( dragging && ( action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL ) ) {
+            endDrag( action == MotionEvent.ACTION_UP );
+        }
+        return handled;
     }
 
     // Override from OnGestureDectector
     @Override
     public boolean onDown(MotionEvent e) {
+        if ( BuildConfig.FRAME_STATS ) tapTime = 0;
         return true;
     }
 
@@ -70,70 +214,180 @@ public class GameView extends View implements GestureDetector.OnGestureListener
 
     @Override
     public boolean onSingleTapUp(MotionEvent e) { // e (param) est l'objet d'événement
-        RectF rectF;
+        // The latency is measured from the time of the event, queued before reaching the view
+        if ( BuildConfig.FRAME_STATS ) {
+            tapTime = System.nanoTime() - ( SystemClock.uptimeMillis() - e.getEventTime() ) * 1_000_000L;
+        }
 
         // --- Check grid cell click ---
-        if ( e.getY() < gridWidth ) {
-            int cellX = (int)( e.getX() / cellWidth );
-            int cellY = (int)( e.getY() / cellWidth );
-
-            gameBoard.currentCellX = cellX;
-            gameBoard.currentCellY = cellY;
-            postInvalidate();
+        int cell = layout.cellAt( e.getX(), e.getY() );
+        if ( cell != -1 ) {
+            gameBoard.currentCellX = cell % size;
+            gameBoard.currentCellY = cell / size;
+            invalidateBoardChange();
             return true;
         }
 
-        float buttonLeft = buttonMargin;
-        float buttonTop = 9 * cellWidth + gridSeparatorSize / 2;
+        // e renvoit la position en x et la position en y de l'endroit où on a tapé
+        int button = layout.buttonAt( e.getX(), e.getY() );
+        if ( button == -1 ) return true;
+        // The value is kept for the next drag, even without selected cell
+        if ( button < size ) keypadValue = button + 1;
 
         if ( gameBoard.currentCellX != -1 && gameBoard.currentCellY != -1 ) {
 
             // --- Check number buttons ---
-            for (int i = 1; i <= 9; i++) {
-                rectF = new RectF(buttonLeft, buttonTop, buttonLeft + buttonWidth, buttonTop + buttonWidth);
-                if (rectF.contains(e.getX(), e.getY())) { // e renvoit la position en x et la position en y de l'endroit où on a tapé
-                    gameBoard.pushValue(i);
-                    postInvalidate(); // Force une réactualisation graphique
-                    return true;
-                }
-
-                if (i != 6) {
-                    buttonLeft += buttonWidth + buttonMargin;
-                } else {
-                    buttonLeft = buttonMargin;
-                    buttonTop += buttonWidth + buttonMargin;
-                }
+            if ( button < size ) {
+                gameBoard.pushValue( keypadValue );
+                invalidateBoardChange(); // Force une réactualisation graphique
+                return true;
             }
 
             // --- eraser button ---
-            rectF = new RectF(buttonLeft, buttonTop, buttonLeft + buttonWidth, buttonTop + buttonWidth);
-            if (rectF.contains(e.getX(), e.getY())) {
+            if ( button == eraserButton ) {
                 gameBoard.clearCell();
-                postInvalidate();
+                invalidateBoardChange();
                 return true;
             }
-            buttonLeft += buttonWidth + buttonMargin;
+        }
+
+        // --- undo button ---
+        if ( button == undoButton ) {
+            int position = gameBoard.getJournal().getPosition();
+            if ( gameBoard.undo() ) invalidateMoves( position );
+            return true;
         }
 
         // --- pencil button ---
-        rectF = new RectF( buttonLeft, buttonTop, buttonLeft+buttonWidth, buttonTop+buttonWidth );
-        if ( rectF.contains( e.getX(), e.getY() ) ) {
+        if ( button == pencilButton ) {
             gameBoard.bigNumber = ! gameBoard.bigNumber;
-            postInvalidate();
+            RectF rectF = buttonRects[pencilButton];
+            countInvalidation();
+            postInvalidate( (int) rectF.left, (int) rectF.top,
+                    (int) Math.ceil( rectF.right ), (int) Math.ceil( rectF.bottom ) );
             return true;
         }
 
         return true;
     }
 
+    /**
+     * Invalidate the cells changed by an undo or a redo: a group of moves (the candidates
+     * filled at once) can change any cell of the grid.
+     */
+    private void invalidateMoves( int oldPosition ) {
+        if ( Math.abs( gameBoard.getJournal().getPosition() - oldPosition ) > 1 ) {
+            invalidateAll();
+        } else {
+            invalidateBoardChange();
+        }
+    }
+
+    /**
+     * Update the render model after a selection or a change of the selected cell, and
+     * invalidate the smallest rectangle which contains the cells whose rendering has changed.
+     */
+    private void invalidateBoardChange() {
+        renderModel.update();
+        if ( ! renderModel.isDirty() ) return;
+
+        // The border of the selected cell goes beyond the cell
+        int border = (int) Math.ceil( gridSeparatorSize );
+        countInvalidation();
+        postInvalidate( (int) ( renderModel.getDirtyLeft() * cellWidth ) - border,
+                (int) ( renderModel.getDirtyTop() * cellWidth ) - border,
+                (int) Math.ceil( ( renderModel.getDirtyRight() + 1 ) * cellWidth ) + border,
+                (int) Math.ceil( ( renderModel.getDirtyBottom() + 1 ) * cellWidth ) + border );
+        renderModel.clearDirty();
+    }
+
+    /**
+     * Update all the cells of the render model and redraw the whole view, after a change
+     * which can touch any cell.
+     */
+    private void invalidateAll() {
+        renderModel.refresh();
+        renderModel.clearDirty();
+        countInvalidation();
+        invalidate();
+    }
+
+    /**
+     * A drag which starts on the grid puts the last value of the keypad (or its mark, in the
+     * pencil mode) into all the cells crossed by the finger. The cells are only collected here:
+     * they are changed at once, as one move, when the finger is raised.
+     */
     @Override
     public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
-        return false;
+        if ( ! dragging ) {
+            if ( keypadValue == 0 || keypadValue > size || e1 == null
+                    || layout.cellAt( e1.getX(), e1.getY() ) == -1 ) return false;
+            dragging = true;
+            dragCount = 0;
+            lastDragX = e1.getX();
+            lastDragY = e1.getY();
+            addDragCell( lastDragX, lastDragY );
+        }
+
+        // The points between two events, half a cell apart, so that a fast move skips no cell
+        float x = e2.getX();
+        float y = e2.getY();
+        int steps = (int) Math.ceil( Math.max( Math.abs( x - lastDragX ), Math.abs( y - lastDragY ) ) / ( cellWidth / 2 ) );
+        for ( int step = 1; step <= steps; step++ ) {
+            addDragCell( lastDragX + ( x - lastDragX ) * step / steps, lastDragY + ( y - lastDragY ) * step / steps );
+        }
+        lastDragX = x;
+        lastDragY = y;
+        return true;
+    }
+
+    private void addDragCell( float x, float y ) {
+        int cell = layout.cellAt( x, y );
+        if ( cell == -1 || dragged[cell] ) return;
+        dragged[cell] = true;
+        dragCells[ dragCount++ ] = cell;
+    }
+
+    /**
+     * Put the value into the cells of the drag, unless it has been cancelled, and redraw the
+     * view once.
+     */
+    private void endDrag( boolean apply ) {
+        dragging = false;
+        for ( int i = 0; i < dragCount; i++ ) dragged[ dragCells[i] ] = false;
+        // Any cell of the grid can show a new conflict or lose a mark
+        if ( apply && gameBoard.fillCells( dragCells, dragCount, keypadValue ) ) invalidateAll();
+        dragCount = 0;
     }
 
     @Override
     public void onLongPress(MotionEvent e) {
+        // A long press on the grid selects the cell of the next hint and shows it (the solving
+        // techniques only handle the 9x9 grids)
+        if ( layout.cellAt( e.getX(), e.getY() ) != -1 ) {
+            if ( gameBoard.getShape() != BoardShape.STANDARD ) return;
+            Hint hint = gameBoard.nextHint();
+            if ( hint == null ) return;
+            gameBoard.currentCellX = hint.getX();
+            gameBoard.currentCellY = hint.getY();
+            invalidateBoardChange();
+            Toast.makeText( getContext(), hint.toString(), Toast.LENGTH_SHORT ).show();
+            return;
+        }
+
+        int button = layout.buttonAt( e.getX(), e.getY() );
+
+        // A long press on the pencil button marks all the candidates, redrawn at once
+        if ( button == pencilButton ) {
+            if ( gameBoard.fillCandidates() ) invalidateAll();
+            return;
+        }
 
+        // A long press on the undo button redo the last move undone
+        if ( button == undoButton ) {
+            int position = gameBoard.getJournal().getPosition();
+            if ( gameBoard.redo() ) invalidateMoves( position );
+        }
     }
 
     @Override
@@ -145,102 +399,199 @@ public class GameView extends View implements GestureDetector.OnGestureListener
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged( w, h, oldw, oldh );
+        computeLayout( w, h );
+    }
+
+    /**
+     * Compute the size of the cells and the place of the buttons for the size of the view and
+     * the size of the grid, then draw the static layer again.
+     */
+    private void computeLayout( int w, int h ) {
+        // Without board yet, the layout of an empty 9x9 grid
+        BoardShape shape = gameBoard == null ? BoardShape.STANDARD : gameBoard.getShape();
+        size = shape.getSize();
+        blockSize = shape.getBlockSize();
 
         // Les tailles sont en pourcentage, la taille des séparations de cellule et des cellules sont
         // exprimées en pourcentage pour s'adapter aux différentes tailles d'écran
-        gridSeparatorSize = (w / 9f) / 20f;
+        layout = new BoardLayout( w, size );
+        gridSeparatorSize = layout.getGridSeparatorSize();
+        gridWidth = layout.getGridWidth();              // Size of the grid (it's a square)
+        cellWidth = layout.getCellWidth();              // Size of a cell (it's a square too)
+        buttonWidth = layout.getButtonWidth();          // Size of a button
+        buttonRadius = layout.getButtonRadius();        // Size of the rounded corner for a button
+
+        // The buttons: two rows under the grid, six buttons per row for a 9x9 grid
+        eraserButton = layout.getEraserButton();
+        pencilButton = layout.getPencilButton();
+        undoButton = layout.getUndoButton();
+        if ( buttonRects.length != layout.getButtonCount() ) {
+            buttonRects = new RectF[ layout.getButtonCount() ];
+            for ( int i = 0; i < buttonRects.length; i++ ) buttonRects[i] = new RectF();
+        }
+        for ( int i = 0; i < buttonRects.length; i++ ) {
+            float left = layout.getButtonLeft( i );
+            float top = layout.getButtonTop( i );
+            buttonRects[i].set( left, top, left + buttonWidth, top + buttonWidth );
+        }
+        if ( dragCells.length != size * size ) {
+            dragCells = new int[ size * size ];
+            dragged = new boolean[ size * size ];
+        }
+
+        valuePaint.setTextSize( cellWidth*0.7f );       // Taille de police adaptée à la résolution du mobile
+        markPaint.setTextSize( cellWidth * markStep() * 1.1f );
+        buttonTextPaint.setTextSize( buttonWidth*0.7f ); // La taille du chiffre dans le bouton est proportionnelle
 
-        gridWidth = w;                                  // Size of the grid (it's a square)
-        cellWidth = gridWidth / 9f;                     // Size of a cell (it's a square too)
-        buttonWidth = w / 7f;                           // Size of a button
-        buttonRadius = buttonWidth / 10f;               // Size of the rounded corner for a button
-        buttonMargin = (w - 6*buttonWidth) / 7f;        // Margin between two buttons
 
+        // The icons at the size of the buttons for this screen
+        iconSize = (int) (buttonWidth*0.8f);
+        littleIconSize = (int) (buttonWidth/3);
+        loadIcons();
 
-        // We resize for this screen the two images
-        eraserBitmap = BitmapFactory.decodeResource(getResources(), R.drawable.eraser);
-        eraserBitmap = Bitmap.createScaledBitmap(eraserBitmap,
-                (int) (buttonWidth*0.8f), (int) (buttonWidth*0.8f), false);
-        Bitmap bitmap = BitmapFactory.decodeResource(getResources(), R.drawable.pencil);
-        pencilBitmap = Bitmap.createScaledBitmap(bitmap,
-                (int) (buttonWidth*0.8f), (int) (buttonWidth*0.8), false);
-        littlePencilBitmap = Bitmap.createScaledBitmap(bitmap,
-                (int) (buttonWidth/3), (int) (buttonWidth/3), false);
+        buildStaticLayer( w, h );
 
 
     }
 
-    // Méthode qui sera invoquée à chaque fois que l'on devra dessiner
-    @Override
-    protected void onDraw(Canvas canvas) {
-        paint.setTextAlign( Paint.Align.CENTER );
-        // paint.setTextSize( cellWidth * 0.7f ); // Taille de police adaptée à la résolution du mobile
-
-        for( int y = 0; y < 9; y++ ) {
-            for( int x = 0; x < 9; x++ ) {
-                int backgroundColor = Color.WHITE;
-
-                // Highlight the current row, current column and the current block
-                // A value can be appeared only one time into all highlighted cells.
-                if ( gameBoard.currentCellX != -1 && gameBoard.currentCellY != -1 ) {
-                    if ( (x / 3 == gameBoard.currentCellX / 3 && y / 3 == gameBoard.currentCellY / 3) ||
-                            (x == gameBoard.currentCellX && y != gameBoard.currentCellY) ||
-                            (x != gameBoard.currentCellX && y == gameBoard.currentCellY)  ) {
-                        backgroundColor = 0xFF_FF_F0_F0;
-                    }
-                }
+    /**
+     * Take the icons of the keypad from the cache. The missing ones are decoded in background,
+     * and onIconLoaded is called when they are ready.
+     */
+    private void loadIcons() {
+        IconCache iconCache = IconCache.getInstance();
+        eraserBitmap = iconCache.get( getResources(), R.drawable.eraser, iconSize, onIconLoaded );
+        pencilBitmap = iconCache.get( getResources(), R.drawable.pencil, iconSize, onIconLoaded );
+        littlePencilBitmap = iconCache.get( getResources(), R.drawable.pencil, littleIconSize, onIconLoaded );
+    }
 
-                // Check if cell is initially proposed: in this case, the background is grey
-                if ( gameBoard.cells[y][x].isInitial ) {
-                    if ( backgroundColor == 0xFF_FF_F0_F0 ) {
-                        backgroundColor = 0xFF_F4_F0_F0;
-                    } else {
-                        backgroundColor = 0xFF_F0_F0_F0;
-                    }
-                }
+    /**
+     * Take the icons which are still missing and are now in the cache.
+     * @return  true if an icon has been found.
+     */
+    private boolean takeLoadedIcons() {
+        IconCache iconCache = IconCache.getInstance();
+        boolean found = false;
+        if ( eraserBitmap == null ) {
+            eraserBitmap = iconCache.peek( R.drawable.eraser, iconSize );
+            found |= eraserBitmap != null;
+        }
+        if ( pencilBitmap == null ) {
+            pencilBitmap = iconCache.peek( R.drawable.pencil, iconSize );
+            found |= pencilBitmap != null;
+        }
+        if ( littlePencilBitmap == null ) {
+            littlePencilBitmap = iconCache.peek( R.drawable.pencil, littleIconSize );
+            found |= littlePencilBitmap != null;
+        }
+        return found;
+    }
 
-                // Change the color for the currently selected value
-                if ( gameBoard.getSelectedValue() > 0 &&
-                        gameBoard.cells[y][x].assumedValue == gameBoard.getSelectedValue() ) {
-                    backgroundColor = 0xFF_C7_DA_F8;
-                }
+    /**
+     * Draw an icon into a button, or a grey square of the same size if it is not decoded yet.
+     */
+    private void drawIcon( Canvas canvas, @Nullable Bitmap bitmap, int bitmapSize, RectF rectF ) {
+        int imageMargin = (int) (buttonWidth * 0.1f);
+        if ( bitmap != null ) {
+            canvas.drawBitmap( bitmap, rectF.left + imageMargin, rectF.top + imageMargin, paint );
+        } else {
+            paint.setColor( 0xFF_E0_E0_E0 );
+            placeholderRect.set( rectF.left + imageMargin, rectF.top + imageMargin,
+                    rectF.left + imageMargin + bitmapSize, rectF.top + imageMargin + bitmapSize );
+            canvas.drawRoundRect( placeholderRect, buttonRadius, buttonRadius, paint );
+        }
+    }
 
-                // Display errors (conflicts) in red color: an error appear if a value is present
-                // at least two times in the same line, column or block.
-                if ( gameBoard.cells[y][x].assumedValue > 0 ) {
-                    for( int tx=0; tx<9; tx++ ) {
-                        if ( tx != x &&
-                                gameBoard.cells[y][tx].assumedValue == gameBoard.cells[y][x].assumedValue ) {
-                            backgroundColor = 0xFF_FF_00_00;
-                            break;
-                        }
-                    }
-                    if ( backgroundColor != 0xFF_FF_00_00 ) {
-                        for (int ty = 0; ty < 9; ty++) {
-                            if ( ty != y &&
-                                    gameBoard.cells[ty][x].assumedValue == gameBoard.cells[y][x].assumedValue ) {
-                                backgroundColor = 0xFF_FF_00_00;
-                                break;
-                            }
-                        }
-                    }
-                    if ( backgroundColor != 0xFF_FF_00_00 ) {
-                        int bx = x / 3;
-                        int by = y / 3;
-                        for (int dy = 0; dy < 3; dy++) {
-                            for (int dx = 0; dx < 3; dx++) {
-                                int tx = bx * 3 + dx;
-                                int ty = by * 3 + dy;
-                                if ( tx != x && ty != y &&
-                                        gameBoard.cells[ty][tx].assumedValue == gameBoard.cells[y][x].assumedValue ) {
-                                    backgroundColor = 0xFF_FF_00_00;
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
+    private void drawEraser( Canvas canvas ) {
+        RectF rectF = buttonRects[eraserButton];
+        paint.setColor( 0xFFFFFFFF );
+        canvas.drawRoundRect( rectF, buttonRadius, buttonRadius, paint );
+        drawIcon( canvas, eraserBitmap, iconSize, rectF );
+    }
+
+    /**
+     * Return the distance between two marks of a cell, as a part of the cell: the marks are
+     * drawn as a small grid of blockSize rows of blockSize marks.
+     */
+    private float markStep() {
+        return 0.9f / blockSize;
+    }
+
+    /**
+     * Draw, once for all, the parts of the view which do not depend on the board: the grid
+     * lines (on a transparent background, to be drawn over the cells) and the keypad, except
+     * the pencil icon which depends on the input mode.
+     */
+    private void buildStaticLayer( int w, int h ) {
+        if ( staticLayer != null ) staticLayer.recycle();
+        staticLayer = Bitmap.createBitmap( w, h, Bitmap.Config.ARGB_8888 );
+        Canvas canvas = new Canvas( staticLayer );
+
+        // --- Draw the grid lines ---
+        paint.setColor( Color.GRAY);
+        paint.setStrokeWidth( gridSeparatorSize/2 );
+        for( int i = 0; i <= size; i++ ) {
+            canvas.drawLine( i*cellWidth, 0, i*cellWidth, cellWidth*size, paint );
+            canvas.drawLine( 0,i*cellWidth, cellWidth*size, i*cellWidth, paint );
+        }
+        paint.setColor( Color.BLACK );
+        paint.setStrokeWidth( gridSeparatorSize );
+        for( int i = 0; i <= blockSize; i++ ) {
+            canvas.drawLine( i*(cellWidth*blockSize), 0, i*(cellWidth*blockSize), cellWidth*size, paint );
+            canvas.drawLine( 0,i*(cellWidth*blockSize), cellWidth*size, i*(cellWidth*blockSize), paint );
+        }
+        paint.setStrokeWidth( 1 );
+
+        // --- Buttons bar ---
+
+        float buttonsTop = size*cellWidth + gridSeparatorSize/2;
+
+        paint.setColor(0xFFC7DAF8);
+        canvas.drawRect(0, buttonsTop, gridWidth, h, paint);
+
+        paint.setColor( 0xFFFFFFFF ); // Du blanc
+        for (int i = 1; i <= size; i++) {
+            RectF rectF = buttonRects[i-1];
+            canvas.drawRoundRect(rectF, buttonRadius, buttonRadius, paint); // Rectangle avec bords ronds
+            glyph[0] = BoardShape.glyphOf( i );
+            canvas.drawText(glyph, 0, 1, rectF.centerX(), rectF.top + rectF.height() * 0.75f, buttonTextPaint);
+        }
 
+        // --- eraser ---
+        drawEraser( canvas );
+
+        // --- pencil (the icon is drawn at each frame) ---
+        paint.setColor( 0xFFFFFFFF );
+        canvas.drawRoundRect( buttonRects[pencilButton], buttonRadius, buttonRadius, paint );
+
+        // --- undo (a long press redo) ---
+        RectF rectF = buttonRects[undoButton];
+        canvas.drawRoundRect( rectF, buttonRadius, buttonRadius, paint );
+        canvas.drawText( UNDO_GLYPH, 0, 1, rectF.centerX(), rectF.top + rectF.height() * 0.75f, buttonTextPaint );
+    }
+
+    // Méthode qui sera invoquée à chaque fois que l'on devra dessiner
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if ( renderModel == null ) {
+            // Waiting for the first board: the empty grid and the keypad
+            canvas.drawColor( 0xFFFFFFFF );
+            canvas.drawBitmap( staticLayer, 0, 0, null );
+            return;
+        }
+        long startTime = BuildConfig.FRAME_STATS ? System.nanoTime() : 0;
+        // Only the cells in the invalidated area are drawn
+        canvas.getClipBounds( clipBounds );
+        int firstX = Math.max( 0, (int) ( clipBounds.left / cellWidth ) );
+        int firstY = Math.max( 0, (int) ( clipBounds.top / cellWidth ) );
+        int lastX = Math.min( size - 1, (int) ( clipBounds.right / cellWidth ) );
+        int lastY = Math.min( size - 1, (int) ( clipBounds.bottom / cellWidth ) );
+
+        for( int y = firstY; y <= lastY; y++ ) {
+            for( int x = firstX; x <= lastX; x++ ) {
+                // The colors come from the render model: selected row, column and block,
+                // initial cells, selected value and conflicts
+                int backgroundColor = renderModel.getBackground( x, y );
 
                 // Draw the background for the current cell
                 paint.setColor( backgroundColor );
@@ -250,91 +601,34 @@ public class GameView extends View implements GestureDetector.OnGestureListener
                         (y+1) * cellWidth,
                         paint);
 
-                if (gameBoard.cells[y][x].assumedValue != 0) {
+                int value = renderModel.getValue( x, y );
+                if (value != 0) {
 
                     // Draw the assumed value for the cell.
-                    paint.setColor(0xFF000000);
-                    paint.setTextSize( cellWidth*0.7f );
-                    canvas.drawText("" + gameBoard.cells[y][x].assumedValue,
+                    glyph[0] = BoardShape.glyphOf( value );
+                    canvas.drawText(glyph, 0, 1,
                             x * cellWidth + cellWidth / 2,
-                            y * cellWidth + cellWidth * 0.75f, paint);
+                            y * cellWidth + cellWidth * 0.75f, valuePaint);
 
                 } else {
 
-                    // Draw each mark if exists
-                    paint.setTextSize( cellWidth*0.33f );
-                    paint.setColor( 0xFFA0A0A0 );
-                    if ( gameBoard.cells[y][x].marks[0] ) {
-                        paint.setColor(gameBoard.getSelectedValue()==1 ? 0xFF4084EF : 0xFFA0A0A0);
-                        canvas.drawText("1",
-                                x * cellWidth + cellWidth * 0.2f,
-                                y * cellWidth + cellWidth * 0.3f, paint);
-                    }
-                    if ( gameBoard.cells[y][x].marks[1] ) {
-                        paint.setColor(gameBoard.getSelectedValue()==2 ? 0xFF4084EF : 0xFFA0A0A0);
-                        canvas.drawText("2",
-                                x * cellWidth + cellWidth * 0.5f,
-                                y * cellWidth + cellWidth * 0.3f, paint);
-                    }
-                    if ( gameBoard.cells[y][x].marks[2] ) {
-                        paint.setColor(gameBoard.getSelectedValue()==3 ? 0xFF4084EF : 0xFFA0A0A0);
-                        canvas.drawText("3",
-                                x * cellWidth + cellWidth * 0.8f,
-                                y * cellWidth + cellWidth * 0.3f, paint);
-                    }
-                    if ( gameBoard.cells[y][x].marks[3] ) {
-                        paint.setColor(gameBoard.getSelectedValue()==4 ? 0xFF4084EF : 0xFFA0A0A0);
-                        canvas.drawText("4",
-                                x * cellWidth + cellWidth * 0.2f,
-                                y * cellWidth + cellWidth * 0.6f, paint);
-                    }
-                    if ( gameBoard.cells[y][x].marks[4] ) {
-                        paint.setColor(gameBoard.getSelectedValue()==5 ? 0xFF4084EF : 0xFFA0A0A0);
-                        canvas.drawText("5",
-                                x * cellWidth + cellWidth * 0.5f,
-                                y * cellWidth + cellWidth * 0.6f, paint);
-                    }
-                    if ( gameBoard.cells[y][x].marks[5] ) {
-                        paint.setColor(gameBoard.getSelectedValue()==6 ? 0xFF4084EF : 0xFFA0A0A0);
-                        canvas.drawText("6",
-                                x * cellWidth + cellWidth * 0.8f,
-                                y * cellWidth + cellWidth * 0.6f, paint);
-                    }
-                    if ( gameBoard.cells[y][x].marks[6] ) {
-                        paint.setColor(gameBoard.getSelectedValue()==7 ? 0xFF4084EF : 0xFFA0A0A0);
-                        canvas.drawText("7",
-                                x * cellWidth + cellWidth * 0.2f,
-                                y * cellWidth + cellWidth * 0.9f, paint);
-                    }
-                    if ( gameBoard.cells[y][x].marks[7] ) {
-                        paint.setColor(gameBoard.getSelectedValue()==8 ? 0xFF4084EF : 0xFFA0A0A0);
-                        canvas.drawText("8",
-                                x * cellWidth + cellWidth * 0.5f,
-                                y * cellWidth + cellWidth * 0.9f, paint);
-                    }
-                    if ( gameBoard.cells[y][x].marks[8] ) {
-                        paint.setColor(gameBoard.getSelectedValue()==9 ? 0xFF4084EF : 0xFFA0A0A0);
-                        canvas.drawText("9",
-                                x * cellWidth + cellWidth * 0.8f,
-                                y * cellWidth + cellWidth * 0.9f, paint);
+                    // Draw each mark if exists: three rows of three marks for a 9x9 grid
+                    int marks = renderModel.getMarks( x, y );
+                    float step = markStep();
+                    for ( int mark = 1; mark <= size; mark++ ) {
+                        if ( ( marks & ( 1 << ( mark - 1 ) ) ) == 0 ) continue;
+                        markPaint.setColor( renderModel.getMarkColor( mark ) );
+                        glyph[0] = BoardShape.glyphOf( mark );
+                        canvas.drawText(glyph, 0, 1,
+                                x * cellWidth + cellWidth * ( 0.05f + step * ( 0.5f + ( mark - 1 ) % blockSize ) ),
+                                y * cellWidth + cellWidth * step * ( 1 + ( mark - 1 ) / blockSize ), markPaint);
                     }
                 }
             }
         }
 
-        // --- Draw the grid lines ---
-        paint.setColor( Color.GRAY);
-        paint.setStrokeWidth( gridSeparatorSize/2 );
-        for( int i = 0; i <= 9; i++ ) {
-            canvas.drawLine( i*cellWidth, 0, i*cellWidth, cellWidth*9, paint );
-            canvas.drawLine( 0,i*cellWidth, cellWidth*9, i*cellWidth, paint );
-        }
-        paint.setColor( Color.BLACK );
-        paint.setStrokeWidth( gridSeparatorSize );
-        for( int i = 0; i <= 3; i++ ) {
-            canvas.drawLine( i*(cellWidth*3), 0, i*(cellWidth*3), cellWidth*9, paint );
-            canvas.drawLine( 0,i*(cellWidth*3), cellWidth*9, i*(cellWidth*3), paint );
-        }
+        // --- Grid lines and keypad ---
+        canvas.drawBitmap( staticLayer, 0, 0, null );
 
         // --- Draw border for the current selected cell ---
         if ( gameBoard.currentCellX != -1 && gameBoard.currentCellY != -1 ) {
@@ -350,60 +644,17 @@ public class GameView extends View implements GestureDetector.OnGestureListener
             paint.setStrokeWidth( 1 );
         }
 
-        // --- Buttons bar ---
-
-        float buttonsTop = 9*cellWidth + gridSeparatorSize/2;
-
-        paint.setColor(0xFFC7DAF8);
-        canvas.drawRect(0, buttonsTop, gridWidth, getHeight(), paint);
-
-        float buttonLeft = buttonMargin;
-        float buttonTop = buttonsTop + buttonMargin;
-
-        paint.setTextAlign(Paint.Align.CENTER);
-        paint.setTextSize(buttonWidth * 0.7f); // La taille du chiffre dans le bouton est proportionnel
-        // à la taille de la cellule (70%)
-
-        for (int i = 1; i <= 9; i++) {
-            paint.setColor( 0xFFFFFFFF ); // Du blanc
-            // Attention aux new !!! Mais ici, on n'est pas trop gourmand
-            // Il existe une autre version de drawRoundRect, mais elle necessite
-            // que vous modifiez la version minimale supportee pour Android :-(
-            RectF rectF = new RectF(buttonLeft, buttonTop,
-                    buttonLeft + buttonWidth, buttonTop + buttonWidth);
-            canvas.drawRoundRect(rectF, buttonRadius, buttonRadius, paint); // Rectangle avec bords ronds
-
-            paint.setColor( 0xFF000000 );
-            canvas.drawText("" + i, rectF.centerX(), rectF.top + rectF.height() * 0.75f, paint);
-
-            if (i != 6) {
-                buttonLeft += buttonWidth + buttonMargin;
-            } else {
-                buttonLeft = buttonMargin;
-                buttonTop += buttonWidth + buttonMargin;
-            }
+        // --- pencil icon ---
+        if ( gameBoard.bigNumber ) {
+            drawIcon( canvas, pencilBitmap, iconSize, buttonRects[pencilButton] );
+        } else {
+            drawIcon( canvas, littlePencilBitmap, littleIconSize, buttonRects[pencilButton] );
         }
 
-        int imageWidth = (int) (buttonWidth * 0.8f);
-        int imageMargin = (int) (buttonWidth * 0.1f);
-
-        // --- eraser ---
-        paint.setColor(0xFFFFFFFF);
-        RectF rectF = new RectF( buttonLeft, buttonTop,
-                buttonLeft + buttonWidth, buttonTop + buttonWidth );
-        canvas.drawRoundRect( rectF, buttonRadius, buttonRadius, paint );
-        canvas.drawBitmap( eraserBitmap,
-                buttonLeft + imageMargin, buttonTop + imageMargin, paint );
-        buttonLeft += buttonWidth + buttonMargin;
-
-        // --- pencil ---
-        paint.setColor(0xFFFFFFFF);
-        rectF = new RectF( buttonLeft, buttonTop, buttonLeft + buttonWidth, buttonTop + buttonWidth );
-        canvas.drawRoundRect( rectF, buttonRadius, buttonRadius, paint );
-        Bitmap bitmap = gameBoard.bigNumber ? pencilBitmap : littlePencilBitmap;
-        canvas.drawBitmap( bitmap, buttonLeft + imageMargin, buttonTop + imageMargin, paint );
-
-
+        if ( BuildConfig.FRAME_STATS ) {
+            int cells = Math.max( 0, lastX - firstX + 1 ) * Math.max( 0, lastY - firstY + 1 );
+            frameStats.recordDraw( startTime, System.nanoTime(), cells );
+        }
     }
 
 
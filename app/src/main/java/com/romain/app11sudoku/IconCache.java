@@ -0,0 +1,171 @@
+package com.romain.app11sudoku;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A cache of the icons of the keypad, decoded at the size they are drawn. An icon missing from
+ * the cache is decoded by a background thread, directly close to its size (inSampleSize), so
+ * the UI thread never decodes anything and the full resolution image is never in memory.
+ * The cache is shared by the whole application: the views of a recreated activity find their
+ * icons ready. The cached bitmaps are never recycled, as a view may still draw them.
+ */
+public class IconCache {
+
+    private static IconCache instance;
+
+    private final LruCache<String, Bitmap> cache;
+    // The decodes in progress, with the callbacks to run when they end
+    private final HashMap<String, List<Runnable>> pending = new HashMap<>();
+    private final Handler mainHandler = new Handler( Looper.getMainLooper() );
+    private final ExecutorService executor;
+
+    /**
+     * Return the cache shared by the whole application.
+     */
+    public static synchronized IconCache getInstance() {
+        if ( instance == null ) {
+            // A few sets of icons: about 200 KB for each size of the keypad
+            instance = new IconCache( (int) Math.min( Runtime.getRuntime().maxMemory() / 64, 2 * 1024 * 1024 ) );
+        }
+        return instance;
+    }
+
+    /**
+     * The class constructor
+     * @param maxBytes  The maximum size of the cached bitmaps, in bytes.
+     */
+    public IconCache( int maxBytes ) {
+        cache = new LruCache<String, Bitmap>( maxBytes ) {
+            @Override
+            protected int sizeOf( String key, Bitmap bitmap ) {
+                return bitmap.getByteCount();
+            }
+        };
+        executor = Executors.newSingleThreadExecutor( new ThreadFactory() {
+            @Override
+            public Thread newThread( Runnable runnable ) {
+                Thread thread = new Thread( runnable, "IconCache" );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+    }
+
+    /**
+     * Return an icon at a given size, if it is ready. Otherwise, start its decoding in
+     * background and return null: the caller draws a placeholder until onLoaded is called.
+     * @param resources The resources of the application.
+     * @param resId     The drawable of the icon.
+     * @param size      The width and height of the icon, in pixels.
+     * @param onLoaded  Run on the UI thread once the icon is in the cache. It is not run if
+     *                  the icon cannot be decoded.
+     * @return          The icon, or null if it is not decoded yet.
+     */
+    public Bitmap get( final Resources resources, final int resId, final int size, Runnable onLoaded ) {
+        if ( size <= 0 ) return null;
+        final String key = key( resId, size );
+        Bitmap bitmap = cache.get( key );
+        if ( bitmap != null ) return bitmap;
+
+        synchronized ( pending ) {
+            List<Runnable> callbacks = pending.get( key );
+            if ( callbacks != null ) {
+                callbacks.add( onLoaded );
+                return null;
+            }
+            callbacks = new ArrayList<>();
+            callbacks.add( onLoaded );
+            pending.put( key, callbacks );
+        }
+        executor.execute( new Runnable() {
+            @Override
+            public void run() {
+                Bitmap bitmap = null;
+                final List<Runnable> callbacks;
+                try {
+                    bitmap = decode( resources, resId, size );
+                    if ( bitmap != null ) cache.put( key, bitmap );
+                } finally {
+                    // Even if the decoding has failed, so that a later get() tries again
+                    synchronized ( pending ) {
+                        callbacks = pending.remove( key );
+                    }
+                }
+                if ( bitmap == null ) return;
+                mainHandler.post( new Runnable() {
+                    @Override
+                    public void run() {
+                        for ( Runnable callback : callbacks ) callback.run();
+                    }
+                } );
+            }
+        } );
+        return null;
+    }
+
+    /**
+     * Return an icon at a given size if it is ready, without decoding it otherwise.
+     */
+    public Bitmap peek( int resId, int size ) {
+        return size <= 0 ? null : cache.get( key( resId, size ) );
+    }
+
+    /**
+     * Drop all the icons, for instance when the system is low on memory.
+     */
+    public void evictAll() {
+        cache.evictAll();
+    }
+
+    private static String key( int resId, int size ) {
+        return resId + ":" + size;
+    }
+
+    /**
+     * Decode a drawable at a given size. The image is read at its own resolution (no scaling
+     * for the density of the screen) and subsampled to the smallest power of two reduction
+     * which stays at least as large as the icon, then scaled to the exact size.
+     * @return  The icon, or null if the drawable cannot be decoded.
+     */
+    private static Bitmap decode( Resources resources, int resId, int size ) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inScaled = false;
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource( resources, resId, options );
+
+        options.inSampleSize = computeSampleSize( options.outWidth, options.outHeight, size );
+        options.inJustDecodeBounds = false;
+        Bitmap decoded = BitmapFactory.decodeResource( resources, resId, options );
+        if ( decoded == null ) return null;
+        if ( decoded.getWidth() == size && decoded.getHeight() == size ) return decoded;
+
+        Bitmap scaled = Bitmap.createScaledBitmap( decoded, size, size, true );
+        if ( scaled != decoded ) decoded.recycle();
+        return scaled;
+    }
+
+    /**
+     * Return the largest power of two by which an image can be subsampled and still be at
+     * least size pixels wide and high.
+     */
+    static int computeSampleSize( int width, int height, int size ) {
+        int sampleSize = 1;
+        while ( width / ( sampleSize * 2 ) >= size && height / ( sampleSize * 2 ) >= size ) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+}
@@ -3,12 +3,104 @@ package com.romain.app11sudoku;
 import androidx.appcompat.app.AppCompatActivity;
 
 import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 
 public class  MainActivity extends AppCompatActivity {
 
+    private static final String STATE_BOARD = "board";
+
+    private GameView gameView;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        // Start to generate the grid of the new game in background as soon as possible, before
+        // any other level
+        PuzzlePool.getInstance().prefetch( GameView.NEW_GAME_LEVEL );
+
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        gameView = findViewById( R.id.view );
+
+        byte [] savedBoard = savedInstanceState == null ? null : savedInstanceState.getByteArray( STATE_BOARD );
+        if ( savedBoard != null ) {
+            try {
+                gameView.setGameBoard( GameBoardCodec.fromBytes( savedBoard ) );
+            } catch ( IllegalArgumentException exception ) {
+                // A state saved by an older version: start a new game
+            }
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        // About 200 bytes, far below the limit of the transactions of the Binder. The format
+        // only handles the 9x9 grids
+        GameBoard gameBoard = gameView.getGameBoard();
+        if ( gameBoard != null && gameBoard.getShape() == BoardShape.STANDARD ) {
+            outState.putByteArray( STATE_BOARD, GameBoardCodec.toBytes( gameBoard ) );
+        }
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate( R.menu.main, menu );
+        return true;
+    }
+
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        GameBoard gameBoard = gameView.getGameBoard();
+        MenuItem autoEliminate = menu.findItem( R.id.auto_eliminate );
+        autoEliminate.setEnabled( gameBoard != null );
+        autoEliminate.setChecked( gameBoard != null && gameBoard.autoEliminate );
+        return super.onPrepareOptionsMenu(menu);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if ( item.getItemId() == R.id.auto_eliminate ) {
+            // A placed value is removed from the marks of its row, column and block
+            GameBoard gameBoard = gameView.getGameBoard();
+            if ( gameBoard == null ) return true;
+            gameBoard.autoEliminate = ! gameBoard.autoEliminate;
+            item.setChecked( gameBoard.autoEliminate );
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    /**
+     * Print the frame timings of the game view, in the debug builds:
+     * adb shell dumpsys activity com.romain.app11sudoku [reset]
+     */
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        FrameStats frameStats = gameView == null ? null : gameView.getFrameStats();
+        if ( frameStats == null ) return;
+        writer.print( prefix );
+        writer.println( "Frame stats:" );
+        for ( String line : frameStats.snapshot().split( "\n" ) ) {
+            writer.print( prefix );
+            writer.print( "  " );
+            writer.println( line );
+        }
+        if ( args != null && args.length > 0 && "reset".equals( args[ args.length - 1 ] ) ) frameStats.reset();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if ( level >= TRIM_MEMORY_BACKGROUND ) {
+            // The ready-made grids are generated again on the next demand
+            PuzzlePool.getInstance().evictAll();
+            // The icons are decoded again by the next view
+            IconCache.getInstance().evictAll();
+        }
     }
 }
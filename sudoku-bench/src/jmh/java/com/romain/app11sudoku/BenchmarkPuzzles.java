@@ -0,0 +1,44 @@
+package com.romain.app11sudoku;
+
+/**
+ * The fixed puzzles of the benchmarks, so that the results of two commits are comparable.
+ * Each set holds puzzles with a unique solution.
+ */
+final class BenchmarkPuzzles {
+
+    static final String [] EASY = {
+            "530070000600195000098000060800060003400803001700020006060000280000419005000080079",
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+            "200080300060070084030500209000105408000000000402706000301007040720040060004010003",
+    };
+
+    // Famous hard puzzles, beyond the techniques of the grader
+    static final String [] HARD = {
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400",
+            "000000039000001005003050800008090006070002000100400000009080050020000600400700000",
+            "100000002090400050006000700050903000000070000000850040700000600030009080002000001",
+    };
+
+    // 17-clue puzzles, the minimum for a unique solution: the worst cases of a backtracking solver
+    static final String [] PATHOLOGICAL = {
+            "000000000000003085001020000000507000004000100090000000500000073002010000000040009",
+            "000000010400000000020000000000050407008000300001090000300400200050100000000806000",
+            "000000012000035000000600070700000300000400800100000000000120000080000040050000600",
+    };
+
+    private BenchmarkPuzzles() {
+    }
+
+    /**
+     * Return the givens of the puzzles of a set: EASY, HARD or PATHOLOGICAL.
+     */
+    static int [][] load( String set ) {
+        String [] puzzles = set.equals( "EASY" ) ? EASY : set.equals( "HARD" ) ? HARD : PATHOLOGICAL;
+        int [][] grids = new int[ puzzles.length ][ GameBoard.CELL_COUNT ];
+        for ( int p = 0; p < puzzles.length; p++ ) {
+            for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) grids[p][i] = puzzles[p].charAt( i ) - '0';
+        }
+        return grids;
+    }
+
+}
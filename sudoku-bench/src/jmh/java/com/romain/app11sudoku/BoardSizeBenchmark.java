@@ -0,0 +1,99 @@
+package com.romain.app11sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the cost grows with the size of the grid, from 4x4 to 25x25. The puzzles are generated
+ * with the same proportion of clues for each size (the one of the EASY level: below it, the
+ * generation of a 25x25 grid by backtracking takes minutes). Each invocation goes over the
+ * PUZZLE_COUNT puzzles of the size.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+public class BoardSizeBenchmark {
+
+    private static final int PUZZLE_COUNT = 3;
+
+    @Param( { "2", "3", "4", "5" } )
+    public int blockSize;
+
+    private BoardShape shape;
+    private int [][] grids;
+    private int [] scratch;
+    private SudokuSolver solver;
+    private GameBoard [] boards;
+    private int move;
+
+    @Setup
+    public void setUp() {
+        shape = BoardShape.of( blockSize );
+        solver = new SudokuSolver( shape );
+        scratch = new int[ shape.getCellCount() ];
+        grids = new int[ PUZZLE_COUNT ][];
+        boards = new GameBoard[ PUZZLE_COUNT ];
+        PuzzleGenerator generator = new PuzzleGenerator( shape, 2020 );
+        for ( int i = 0; i < PUZZLE_COUNT; i++ ) {
+            boards[i] = generator.generate( GameLevel.EASY );
+            grids[i] = boards[i].getGivens();
+        }
+    }
+
+    @Setup( Level.Iteration )
+    public void resetBoards() {
+        for ( int i = 0; i < PUZZLE_COUNT; i++ ) boards[i] = boards[i].getInitialBoard();
+        move = 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( PUZZLE_COUNT )
+    public int solve() {
+        int sum = 0;
+        for ( int [] grid : grids ) {
+            System.arraycopy( grid, 0, scratch, 0, scratch.length );
+            solver.solve( scratch );
+            sum += scratch[ scratch.length - 1 ];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( PUZZLE_COUNT )
+    public int checkUniqueness() {
+        int sum = 0;
+        for ( int [] grid : grids ) sum += solver.countSolutions( grid, 2 );
+        return sum;
+    }
+
+    /**
+     * A value pushed on each board, then the conflict checks done to draw a frame: the cost of
+     * a move should not depend on the size of the grid.
+     */
+    @Benchmark
+    @OperationsPerInvocation( PUZZLE_COUNT )
+    public int pushValueAndCheckConflicts() {
+        int size = shape.getSize();
+        int sum = 0;
+        move++;
+        for ( GameBoard board : boards ) {
+            board.currentCellX = move % size;
+            board.currentCellY = ( move / size ) % size;
+            board.pushValue( 1 + move % size );
+            if ( board.isConflicting( board.currentCellX, board.currentCellY ) ) sum++;
+            if ( board.hasConflicts() ) sum++;
+        }
+        return sum;
+    }
+
+}
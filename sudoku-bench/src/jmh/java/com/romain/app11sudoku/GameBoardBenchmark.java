@@ -0,0 +1,112 @@
+package com.romain.app11sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The operations of a board done on each touch and each frame: editing a cell, checking the
+ * conflicts of the whole grid as GameView.onDraw does, and copying the board.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+public class GameBoardBenchmark {
+
+    private GameBoard board;
+    private int [] empties;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        board = GameBoard.fromPuzzle( GameLevel.EASY, BenchmarkPuzzles.EASY[0] );
+        int count = 0;
+        int [] cells = new int[ GameBoard.CELL_COUNT ];
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) {
+            if ( ! board.isInitial( i % 9, i / 9 ) ) cells[ count++ ] = i;
+        }
+        empties = new int[ count ];
+        System.arraycopy( cells, 0, empties, 0, count );
+
+        // A game in progress, with a few mistakes
+        for ( int k = 0; k < count; k += 3 ) {
+            select( empties[k] );
+            board.bigNumber = true;
+            board.pushValue( 1 + k % 9 );
+        }
+    }
+
+    private void select( int cell ) {
+        board.currentCellX = cell % 9;
+        board.currentCellY = cell / 9;
+    }
+
+    @Benchmark
+    public int pushValueAndClearCell() {
+        int cell = empties[ next++ % empties.length ];
+        select( cell );
+        int old = board.getAssumedValue( cell % 9, cell / 9 );
+        board.bigNumber = true;
+        board.pushValue( 1 + next % 9 );
+        board.clearCell();
+        if ( old != 0 ) board.pushValue( old );
+        return board.getAssumedValue( cell % 9, cell / 9 );
+    }
+
+    @Benchmark
+    public int toggleMark() {
+        select( empties[ next++ % empties.length ] );
+        board.bigNumber = false;
+        board.pushValue( 1 + next % 9 );
+        return board.getSelectedValue();
+    }
+
+    /**
+     * The conflict checks of a frame, as done by GameView.onDraw.
+     */
+    @Benchmark
+    public int conflictScan() {
+        int conflicts = 0;
+        int selectedValue = board.getSelectedValue();
+        for ( int y = 0; y < 9; y++ ) {
+            for ( int x = 0; x < 9; x++ ) {
+                if ( board.isConflicting( x, y ) ) conflicts++;
+                if ( selectedValue != 0 && board.getAssumedValue( x, y ) == selectedValue ) conflicts += 100;
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * The same checks, scanning the peers of each cell: the reference of conflictScan.
+     */
+    @Benchmark
+    public int conflictScanBruteForce() {
+        int conflicts = 0;
+        for ( int y = 0; y < 9; y++ ) {
+            for ( int x = 0; x < 9; x++ ) {
+                int value = board.getAssumedValue( x, y );
+                if ( value == 0 ) continue;
+                for ( int peer : GameBoard.PEERS[ y * 9 + x ] ) {
+                    if ( board.getAssumedValue( peer % 9, peer / 9 ) == value ) {
+                        conflicts++;
+                        break;
+                    }
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    @Benchmark
+    public GameBoard copy() {
+        return board.copy();
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.romain.app11sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generate grids of a level. The seeds follow the same sequence on each run, so that the
+ * results of two commits are comparable.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+public class GeneratorBenchmark {
+
+    @Param( { "EASY", "MEDIUM", "EVIL" } )
+    public GameLevel level;
+
+    private final PuzzleGenerator generator = new PuzzleGenerator( 0 );
+    private long seed;
+
+    @Setup( Level.Iteration )
+    public void resetSeed() {
+        seed = 0;
+    }
+
+    @Benchmark
+    public GameBoard generate() {
+        generator.setSeed( seed++ );
+        return generator.generate( level );
+    }
+
+}
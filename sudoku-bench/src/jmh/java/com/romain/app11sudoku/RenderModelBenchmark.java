@@ -0,0 +1,123 @@
+package com.romain.app11sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of keeping the render model up to date, apart from any drawing: the update after a
+ * touch, the full refresh, and the reads of a frame. colorsFromBoard works out the colors of
+ * every cell from the board, as GameView.onDraw did before the render model.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+public class RenderModelBenchmark {
+
+    private GameBoard board;
+    private RenderModel model;
+    private int [] empties;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        board = GameBoard.fromPuzzle( GameLevel.EASY, BenchmarkPuzzles.EASY[0] );
+        int count = 0;
+        int [] cells = new int[ GameBoard.CELL_COUNT ];
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) {
+            if ( ! board.isInitial( i % 9, i / 9 ) ) cells[ count++ ] = i;
+        }
+        empties = new int[ count ];
+        System.arraycopy( cells, 0, empties, 0, count );
+
+        // A game in progress, with marks and a few mistakes
+        board.fillCandidates();
+        for ( int k = 0; k < count; k += 3 ) {
+            select( empties[k] );
+            board.pushValue( 1 + k % 9 );
+        }
+        model = new RenderModel( board );
+    }
+
+    private void select( int cell ) {
+        board.currentCellX = cell % 9;
+        board.currentCellY = cell / 9;
+    }
+
+    /**
+     * A tap on a cell: the selection moves.
+     */
+    @Benchmark
+    public int selectAndUpdate() {
+        select( ( next++ * 7 ) % GameBoard.CELL_COUNT );
+        model.update();
+        model.clearDirty();
+        return model.getSelectedValue();
+    }
+
+    /**
+     * A value put into the selected cell, then removed.
+     */
+    @Benchmark
+    public int pushValueAndUpdate() {
+        select( empties[ next++ % empties.length ] );
+        board.pushValue( 1 + next % 9 );
+        model.update();
+        board.clearCell();
+        model.update();
+        model.clearDirty();
+        return model.getSelectedValue();
+    }
+
+    @Benchmark
+    public int refresh() {
+        model.refresh();
+        model.clearDirty();
+        return model.getSelectedValue();
+    }
+
+    /**
+     * What a frame of the whole grid reads from the model.
+     */
+    @Benchmark
+    public int frameReads() {
+        int sum = 0;
+        for ( int y = 0; y < 9; y++ ) {
+            for ( int x = 0; x < 9; x++ ) {
+                sum += model.getBackground( x, y ) + model.getValue( x, y ) + model.getMarks( x, y );
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * The reference of frameReads: the colors worked out from the board at each frame.
+     */
+    @Benchmark
+    public int colorsFromBoard() {
+        int sum = 0;
+        int selectedValue = board.getSelectedValue();
+        for ( int y = 0; y < 9; y++ ) {
+            for ( int x = 0; x < 9; x++ ) {
+                int background = RenderModel.WHITE;
+                if ( board.isInSelectedUnits( x, y ) ) background = RenderModel.SELECTED_UNITS;
+                if ( board.isInitial( x, y ) ) {
+                    background = background == RenderModel.SELECTED_UNITS
+                            ? RenderModel.INITIAL_IN_SELECTED_UNITS : RenderModel.INITIAL;
+                }
+                int value = board.getAssumedValue( x, y );
+                if ( selectedValue > 0 && value == selectedValue ) background = RenderModel.SAME_VALUE;
+                if ( board.isConflicting( x, y ) ) background = RenderModel.CONFLICT;
+                sum += background + value + board.getMarks( x, y );
+            }
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.romain.app11sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solve, check and grade the fixed puzzles. Each invocation goes over the 3 puzzles of a set.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+public class SolverBenchmark {
+
+    @Param( { "EASY", "HARD", "PATHOLOGICAL" } )
+    public String set;
+
+    private int [][] grids;
+    private final int [] scratch = new int[ GameBoard.CELL_COUNT ];
+    private final SudokuSolver solver = new SudokuSolver();
+    private final DifficultyGrader grader = new DifficultyGrader();
+
+    @Setup
+    public void setUp() {
+        grids = BenchmarkPuzzles.load( set );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( 3 )
+    public int solve() {
+        int sum = 0;
+        for ( int [] grid : grids ) {
+            System.arraycopy( grid, 0, scratch, 0, GameBoard.CELL_COUNT );
+            solver.solve( scratch );
+            sum += scratch[ GameBoard.CELL_COUNT - 1 ];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( 3 )
+    public int checkUniqueness() {
+        int sum = 0;
+        for ( int [] grid : grids ) sum += solver.countSolutions( grid, 2 );
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( 3 )
+    public int grade() {
+        int sum = 0;
+        for ( int [] grid : grids ) sum += grader.grade( grid ).ordinal();
+        return sum;
+    }
+
+}
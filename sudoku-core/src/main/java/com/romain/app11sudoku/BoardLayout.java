@@ -0,0 +1,129 @@
+package com.romain.app11sudoku;
+
+/**
+ * The geometry of the game screen: a square grid on top of the view, then the keypad in two
+ * rows of buttons (one button per value, then the eraser, the pencil and the undo buttons).
+ * It is computed once for a view size and a grid size, and finds the cell or the button under
+ * a point with a few divisions, whatever the number of buttons.
+ */
+public class BoardLayout {
+
+    private final int size;
+    private final int buttonCount;
+    private final int buttonsPerRow;
+
+    private final float gridWidth;
+    private final float gridSeparatorSize;
+    private final float cellWidth;
+    private final float buttonWidth;
+    private final float buttonRadius;
+    private final float buttonMargin;
+    private final float buttonsTop;
+
+    /**
+     * The class constructor
+     * @param width     The width of the view, in pixels.
+     * @param size      The number of cells of a row of the grid.
+     */
+    public BoardLayout( int width, int size ) {
+        this.size = size;
+        this.buttonCount = size + 3;
+        // Six buttons per row for a 9x9 grid
+        this.buttonsPerRow = ( size + 4 ) / 2;
+
+        // The sizes are proportional to the width of the view, to fit any screen
+        gridSeparatorSize = ( width / (float) size ) / 20f;
+        gridWidth = width;
+        cellWidth = gridWidth / size;
+        buttonWidth = width / ( buttonsPerRow + 1f );
+        buttonRadius = buttonWidth / 10f;
+        buttonMargin = ( width - buttonsPerRow * buttonWidth ) / ( buttonsPerRow + 1 );
+        buttonsTop = size * cellWidth + gridSeparatorSize / 2 + buttonMargin;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public float getGridWidth() {
+        return gridWidth;
+    }
+
+    public float getGridSeparatorSize() {
+        return gridSeparatorSize;
+    }
+
+    public float getCellWidth() {
+        return cellWidth;
+    }
+
+    public float getButtonWidth() {
+        return buttonWidth;
+    }
+
+    public float getButtonRadius() {
+        return buttonRadius;
+    }
+
+    public float getButtonMargin() {
+        return buttonMargin;
+    }
+
+    /**
+     * Return the number of buttons: the value buttons, then the eraser, pencil and undo buttons.
+     */
+    public int getButtonCount() {
+        return buttonCount;
+    }
+
+    public int getEraserButton() {
+        return size;
+    }
+
+    public int getPencilButton() {
+        return size + 1;
+    }
+
+    public int getUndoButton() {
+        return size + 2;
+    }
+
+    public float getButtonLeft( int button ) {
+        return buttonMargin + ( button % buttonsPerRow ) * ( buttonWidth + buttonMargin );
+    }
+
+    public float getButtonTop( int button ) {
+        return buttonsTop + ( button / buttonsPerRow ) * ( buttonWidth + buttonMargin );
+    }
+
+    /**
+     * Return the cell under a point.
+     * @return  The index of the cell (y * size + x), or -1 if the point is outside the grid.
+     */
+    public int cellAt( float x, float y ) {
+        if ( x < 0 || y < 0 || x >= gridWidth || y >= gridWidth ) return -1;
+        int cellX = Math.min( size - 1, (int) ( x / cellWidth ) );
+        int cellY = Math.min( size - 1, (int) ( y / cellWidth ) );
+        return cellY * size + cellX;
+    }
+
+    /**
+     * Return the button under a point.
+     * @return  The index of the button, or -1 if the point is outside the buttons (in the
+     *          margins between them for instance).
+     */
+    public int buttonAt( float x, float y ) {
+        float step = buttonWidth + buttonMargin;
+        float left = x - buttonMargin;
+        float top = y - buttonsTop;
+        if ( left < 0 || top < 0 ) return -1;
+        int column = (int) ( left / step );
+        int row = (int) ( top / step );
+        if ( column >= buttonsPerRow ) return -1;
+        // In the margin at the right or under the button
+        if ( left - column * step > buttonWidth || top - row * step > buttonWidth ) return -1;
+        int button = row * buttonsPerRow + column;
+        return button < buttonCount ? button : -1;
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.romain.app11sudoku;
+
+/**
+ * The geometry of a grid, given by the size of its blocks: 2 for a 4x4 grid, 3 for the classic
+ * 9x9 grid, 4 for a 16x16 grid and 5 for a 25x25 grid. A shape holds the tables shared by all
+ * the grids of its size: the row, column and block of each cell, the cells of each unit and the
+ * peers of each cell. Cells are indexed by y * size + x, the values go from 1 to size, and a set
+ * of values is an int mask (bit v-1 for the value v).
+ * Shapes are immutable, and there is only one instance per size: they can be compared with ==.
+ */
+public final class BoardShape {
+
+    public static final int MIN_BLOCK_SIZE = 2;
+    public static final int MAX_BLOCK_SIZE = 5;
+
+    // The glyph of each value: the digits, then the letters above 9
+    private static final String GLYPHS = "0123456789ABCDEFGHIJKLMNOP";
+
+    private static final BoardShape [] SHAPES = new BoardShape[ MAX_BLOCK_SIZE + 1 ];
+
+    static {
+        for ( int blockSize = MIN_BLOCK_SIZE; blockSize <= MAX_BLOCK_SIZE; blockSize++ ) {
+            SHAPES[blockSize] = new BoardShape( blockSize );
+        }
+    }
+
+    /**
+     * The classic 9x9 grid.
+     */
+    public static final BoardShape STANDARD = SHAPES[3];
+
+    private final int blockSize;
+    private final int size;
+    private final int cellCount;
+    private final int allDigits;
+
+    // Row, column and block of each cell index
+    final int [] rowOf;
+    final int [] columnOf;
+    final int [] blockOf;
+
+    // The cells of each row, then of each column, then of each block
+    final int [][] units;
+    // The cells which share a row, a column or a block with each cell
+    final int [][] peers;
+
+    private BoardShape( int blockSize ) {
+        this.blockSize = blockSize;
+        this.size = blockSize * blockSize;
+        this.cellCount = size * size;
+        this.allDigits = ( 1 << size ) - 1;
+
+        rowOf = new int[ cellCount ];
+        columnOf = new int[ cellCount ];
+        blockOf = new int[ cellCount ];
+        for ( int i = 0; i < cellCount; i++ ) {
+            rowOf[i] = i / size;
+            columnOf[i] = i % size;
+            blockOf[i] = ( rowOf[i] / blockSize ) * blockSize + columnOf[i] / blockSize;
+        }
+
+        units = new int[ 3 * size ][ size ];
+        for ( int unit = 0; unit < size; unit++ ) {
+            for ( int i = 0; i < size; i++ ) {
+                units[unit][i] = unit * size + i;
+                units[ size + unit ][i] = i * size + unit;
+                units[ 2 * size + unit ][i] = blockCell( unit, i );
+            }
+        }
+
+        peers = new int[ cellCount ][ 3 * ( size - 1 ) - 2 * ( blockSize - 1 ) ];
+        for ( int i = 0; i < cellCount; i++ ) {
+            int count = 0;
+            for ( int j = 0; j < cellCount; j++ ) {
+                if ( i != j && sees( i, j ) ) peers[i][ count++ ] = j;
+            }
+        }
+    }
+
+    /**
+     * Return the shape of the grids whose blocks have this size.
+     * @throws IllegalArgumentException if the size is not between MIN_BLOCK_SIZE and
+     *                                  MAX_BLOCK_SIZE.
+     */
+    public static BoardShape of( int blockSize ) {
+        if ( blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE ) {
+            throw new IllegalArgumentException( "Unsupported block size " + blockSize );
+        }
+        return SHAPES[blockSize];
+    }
+
+    /**
+     * Return the size of the blocks: 3 for a 9x9 grid.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Return the number of cells of a row, which is also the number of values: 9 for a 9x9 grid.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Return the mask of all the values.
+     */
+    public int getAllDigits() {
+        return allDigits;
+    }
+
+    /**
+     * Return the index of the cell (x, y) into the flat arrays.
+     */
+    public int indexOf( int x, int y ) {
+        return y * size + x;
+    }
+
+    /**
+     * Check if two cells share a row, a column or a block.
+     */
+    public boolean sees( int cell1, int cell2 ) {
+        return rowOf[cell1] == rowOf[cell2] || columnOf[cell1] == columnOf[cell2]
+                || blockOf[cell1] == blockOf[cell2];
+    }
+
+    /**
+     * Return the index of the i-th cell of a block.
+     */
+    public int blockCell( int block, int i ) {
+        return ( ( block / blockSize ) * blockSize + i / blockSize ) * size
+                + ( block % blockSize ) * blockSize + i % blockSize;
+    }
+
+    /**
+     * Return the character which shows a value: '1' to '9', then 'A' for 10, 'B' for 11...
+     */
+    public static char glyphOf( int value ) {
+        return GLYPHS.charAt( value );
+    }
+
+    /**
+     * Return the value shown by a character, 0 for an empty cell ('.' or '0'), or -1 if the
+     * character is not a value of this shape.
+     */
+    public int valueOf( char c ) {
+        if ( c == '.' ) return 0;
+        int value = GLYPHS.indexOf( Character.toUpperCase( c ) );
+        return value <= size ? value : -1;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size;
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.romain.app11sudoku;
+
+/**
+ * The state of a grid during a logical resolution: the value of each solved cell and the
+ * 9-bit mask of the candidates of each unsolved cell (0 for a solved cell).
+ * Placing a value removes it from the candidates of the 20 peers of the cell.
+ */
+public class CandidateGrid {
+
+    private static final int CELL_COUNT = GameBoard.CELL_COUNT;
+    private static final int [][] PEERS = GameBoard.PEERS;
+
+    final int [] values = new int[ CELL_COUNT ];
+    final int [] candidates = new int[ CELL_COUNT ];
+    private int unsolved;
+
+    /**
+     * Reset the grid with the given values.
+     * @param grid  The 81 values of the grid, 0 for an empty cell.
+     * @return      false if two values are in conflict.
+     */
+    public boolean load( int [] grid ) {
+        for ( int i = 0; i < CELL_COUNT; i++ ) {
+            values[i] = 0;
+            candidates[i] = GameBoard.ALL_DIGITS;
+        }
+        unsolved = CELL_COUNT;
+        for ( int i = 0; i < CELL_COUNT; i++ ) {
+            int value = grid[i];
+            if ( value == 0 ) continue;
+            if ( ( candidates[i] & ( 1 << ( value - 1 ) ) ) == 0 ) return false;
+            place( i, value );
+        }
+        return true;
+    }
+
+    /**
+     * Reset the grid with values and candidates already known, for instance maintained by a
+     * GameBoard: the values are not propagated again.
+     * @param grid          The 81 values of the grid, 0 for an empty cell.
+     * @param masks         The candidates of each empty cell.
+     */
+    public void load( int [] grid, int [] masks ) {
+        unsolved = 0;
+        for ( int i = 0; i < CELL_COUNT; i++ ) {
+            values[i] = grid[i];
+            candidates[i] = grid[i] == 0 ? masks[i] : 0;
+            if ( grid[i] == 0 ) unsolved++;
+        }
+    }
+
+    /**
+     * Solve a cell and remove its value from the candidates of its peers.
+     */
+    public void place( int cell, int value ) {
+        int bit = 1 << ( value - 1 );
+        values[cell] = value;
+        candidates[cell] = 0;
+        unsolved--;
+        for ( int peer : PEERS[cell] ) candidates[peer] &= ~bit;
+    }
+
+    /**
+     * Remove some candidates of a cell.
+     * @return  true if at least one candidate has been removed.
+     */
+    public boolean eliminate( int cell, int mask ) {
+        int remaining = candidates[cell] & ~mask;
+        if ( remaining == candidates[cell] ) return false;
+        candidates[cell] = remaining;
+        return true;
+    }
+
+    public int getValue( int cell ) {
+        return values[cell];
+    }
+
+    public int getCandidates( int cell ) {
+        return candidates[cell];
+    }
+
+    public int getUnsolvedCount() {
+        return unsolved;
+    }
+
+    public boolean isSolved() {
+        return unsolved == 0;
+    }
+
+    /**
+     * Check if an unsolved cell has no candidate left.
+     */
+    public boolean hasContradiction() {
+        for ( int i = 0; i < CELL_COUNT; i++ ) {
+            if ( values[i] == 0 && candidates[i] == 0 ) return true;
+        }
+        return false;
+    }
+
+}
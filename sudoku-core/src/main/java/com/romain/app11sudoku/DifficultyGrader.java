@@ -0,0 +1,140 @@
+package com.romain.app11sudoku;
+
+import java.util.Locale;
+
+/**
+ * Grade a grid by the hardest human technique required to solve it. The techniques are
+ * tried from the easiest to the hardest and the pipeline restarts from the easiest one after
+ * each deduction. A grid which cannot be solved by the known techniques is graded EVIL.
+ * The grader counts how many times each technique fired and the time spent in each of them.
+ * A grader is not thread safe: use one instance per thread.
+ */
+public class DifficultyGrader {
+
+    private final SolvingTechnique [] techniques;
+    private final long [] fireCounts;
+    private final long [] nanos;
+    private final CandidateGrid grid = new CandidateGrid();
+
+    private SolvingTechnique hardestTechnique;
+    private long gradedCount;
+
+    /**
+     * The class constructor: use the standard techniques.
+     */
+    public DifficultyGrader() {
+        this( SolvingTechniques.standard() );
+    }
+
+    /**
+     * The class constructor
+     * @param techniques    The pipeline, from the easiest to the hardest technique.
+     */
+    public DifficultyGrader( SolvingTechnique [] techniques ) {
+        this.techniques = techniques.clone();
+        this.fireCounts = new long[ techniques.length ];
+        this.nanos = new long[ techniques.length ];
+    }
+
+    /**
+     * Grade the grid proposed to the player (the initial cells of the board).
+     */
+    public GameLevel grade( GameBoard board ) {
+        return grade( board.getGivens() );
+    }
+
+    /**
+     * Grade a grid.
+     * @param givens    The 81 values of the grid, 0 for an empty cell.
+     * @return          The level matching the hardest technique used, or EVIL if the grid
+     *                  cannot be solved by the known techniques.
+     * @throws IllegalArgumentException if two givens are in conflict.
+     */
+    public GameLevel grade( int [] givens ) {
+        hardestTechnique = null;
+        if ( ! grid.load( givens ) ) throw new IllegalArgumentException( "Conflicting givens" );
+        gradedCount++;
+
+        int hardest = -1;
+        while ( ! grid.isSolved() ) {
+            int fired = -1;
+            for ( int i = 0; i < techniques.length; i++ ) {
+                long start = System.nanoTime();
+                boolean changed = techniques[i].apply( grid );
+                nanos[i] += System.nanoTime() - start;
+                if ( changed ) {
+                    fired = i;
+                    break;
+                }
+            }
+            if ( fired == -1 ) return GameLevel.EVIL;
+
+            fireCounts[fired]++;
+            if ( hardest == -1 || techniques[fired].getLevel().compareTo( techniques[hardest].getLevel() ) > 0 ) {
+                hardest = fired;
+            }
+        }
+
+        hardestTechnique = techniques[hardest == -1 ? 0 : hardest];
+        return hardest == -1 ? GameLevel.VERY_EASY : techniques[hardest].getLevel();
+    }
+
+    /**
+     * Return the hardest technique used by the last grading, or null if the grid could not be
+     * solved by the known techniques.
+     */
+    public SolvingTechnique getHardestTechnique() {
+        return hardestTechnique;
+    }
+
+    /**
+     * Return the grid as left by the last grading.
+     */
+    public CandidateGrid getGrid() {
+        return grid;
+    }
+
+    public SolvingTechnique [] getTechniques() {
+        return techniques.clone();
+    }
+
+    /**
+     * Return how many times the i-th technique made a deduction.
+     */
+    public long getFireCount( int i ) {
+        return fireCounts[i];
+    }
+
+    /**
+     * Return the total time spent in the i-th technique, in nanoseconds.
+     */
+    public long getNanos( int i ) {
+        return nanos[i];
+    }
+
+    public long getGradedCount() {
+        return gradedCount;
+    }
+
+    public void resetStatistics() {
+        for ( int i = 0; i < techniques.length; i++ ) {
+            fireCounts[i] = 0;
+            nanos[i] = 0;
+        }
+        gradedCount = 0;
+    }
+
+    /**
+     * Return a report of the statistics of each technique.
+     */
+    public String getStatistics() {
+        StringBuilder builder = new StringBuilder();
+        builder.append( String.format( Locale.ROOT, "%d grids graded%n", gradedCount ) );
+        for ( int i = 0; i < techniques.length; i++ ) {
+            builder.append( String.format( Locale.ROOT, "%-20s %10d fired %10.2f ms%n",
+                    techniques[i].getName(), fireCounts[i], nanos[i] / 1e6 ) );
+        }
+        return builder.toString();
+    }
+
+}
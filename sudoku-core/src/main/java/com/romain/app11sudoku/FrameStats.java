@@ -0,0 +1,189 @@
+package com.romain.app11sudoku;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Statistics on the rendering of a view: the duration of each frame, the latency from an input
+ * to the end of the next frame, the number of invalidations and of cells drawn per frame.
+ * <p>
+ * The last samples are kept in preallocated ring buffers, and each sample is also counted into
+ * a histogram of power of two buckets (in microseconds), so recording a frame never allocates
+ * and costs a few array writes. The percentiles and the report are only computed on demand,
+ * by snapshot(). An instance is meant to be used from a single thread (the UI thread).
+ */
+public class FrameStats {
+
+    public static final int DEFAULT_CAPACITY = 256;
+    // Bucket i counts the durations in [2^(i-1), 2^i) microseconds; the last one is unbounded
+    static final int BUCKET_COUNT = 20;
+
+    private final long [] drawDurations;
+    private final long [] inputLatencies;
+    private final int [] drawHistogram = new int[ BUCKET_COUNT ];
+    private final int [] latencyHistogram = new int[ BUCKET_COUNT ];
+    private int drawCount;
+    private int latencyCount;
+
+    private int invalidationCount;
+    private long cellsDrawn;
+    private int maxCellsDrawn;
+
+    // The time of the input not yet shown by a frame, 0 if none
+    private long pendingInput;
+
+    public FrameStats() {
+        this( DEFAULT_CAPACITY );
+    }
+
+    /**
+     * The class constructor
+     * @param capacity  The number of samples kept for the percentiles.
+     */
+    public FrameStats( int capacity ) {
+        if ( capacity < 1 ) throw new IllegalArgumentException( "Bad capacity: " + capacity );
+        drawDurations = new long[ capacity ];
+        inputLatencies = new long[ capacity ];
+    }
+
+    /**
+     * Note an input (a tap) whose result will be shown by the next frame. If several inputs
+     * come before the frame, the latency is measured from the first one.
+     * @param nanoTime  The time of the input, from System.nanoTime().
+     */
+    public void recordInput( long nanoTime ) {
+        if ( pendingInput == 0 ) pendingInput = nanoTime;
+    }
+
+    /**
+     * Note a request to redraw the view, or a part of it.
+     */
+    public void recordInvalidation() {
+        invalidationCount++;
+    }
+
+    /**
+     * Note a frame, and the latency of the pending input if any.
+     * @param startTime     The start of the frame, from System.nanoTime().
+     * @param endTime       The end of the frame, from System.nanoTime().
+     * @param cells         The number of cells drawn by the frame.
+     */
+    public void recordDraw( long startTime, long endTime, int cells ) {
+        long duration = endTime - startTime;
+        drawDurations[ drawCount % drawDurations.length ] = duration;
+        drawHistogram[ bucketOf( duration ) ]++;
+        drawCount++;
+
+        cellsDrawn += cells;
+        if ( cells > maxCellsDrawn ) maxCellsDrawn = cells;
+
+        if ( pendingInput != 0 ) {
+            long latency = endTime - pendingInput;
+            inputLatencies[ latencyCount % inputLatencies.length ] = latency;
+            latencyHistogram[ bucketOf( latency ) ]++;
+            latencyCount++;
+            pendingInput = 0;
+        }
+    }
+
+    public int getDrawCount() {
+        return drawCount;
+    }
+
+    public int getLatencyCount() {
+        return latencyCount;
+    }
+
+    public int getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * Return the number of frames whose duration falls into a bucket of the histogram.
+     */
+    public int getDrawHistogram( int bucket ) {
+        return drawHistogram[bucket];
+    }
+
+    public int getLatencyHistogram( int bucket ) {
+        return latencyHistogram[bucket];
+    }
+
+    /**
+     * Return a percentile of the frame durations, over the last samples.
+     * @param percent   The percentile, from 0 to 100.
+     * @return          The duration in nanoseconds, 0 if no frame has been recorded.
+     */
+    public long getDrawPercentile( double percent ) {
+        return percentile( drawDurations, drawCount, percent );
+    }
+
+    /**
+     * Return a percentile of the input latencies, over the last samples.
+     * @param percent   The percentile, from 0 to 100.
+     * @return          The latency in nanoseconds, 0 if no input has been recorded.
+     */
+    public long getLatencyPercentile( double percent ) {
+        return percentile( inputLatencies, latencyCount, percent );
+    }
+
+    /**
+     * Forget all the samples and counters.
+     */
+    public void reset() {
+        Arrays.fill( drawHistogram, 0 );
+        Arrays.fill( latencyHistogram, 0 );
+        drawCount = 0;
+        latencyCount = 0;
+        invalidationCount = 0;
+        cellsDrawn = 0;
+        maxCellsDrawn = 0;
+        pendingInput = 0;
+    }
+
+    /**
+     * Return a readable report of the statistics.
+     */
+    public String snapshot() {
+        StringBuilder builder = new StringBuilder();
+        builder.append( String.format( Locale.ROOT, "Frames: %d, invalidations: %d, cells per frame: %.1f (max %d)%n",
+                drawCount, invalidationCount, drawCount == 0 ? 0.0 : (double) cellsDrawn / drawCount, maxCellsDrawn ) );
+        appendMetric( builder, "Draw", drawDurations, drawCount, drawHistogram );
+        appendMetric( builder, "Tap to frame", inputLatencies, latencyCount, latencyHistogram );
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return snapshot();
+    }
+
+    private static void appendMetric( StringBuilder builder, String name, long [] samples, int count, int [] histogram ) {
+        builder.append( String.format( Locale.ROOT, "%s: %d samples, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                name, count, percentile( samples, count, 50 ) / 1e6, percentile( samples, count, 90 ) / 1e6,
+                percentile( samples, count, 99 ) / 1e6, percentile( samples, count, 100 ) / 1e6 ) );
+        for ( int bucket = 0; bucket < BUCKET_COUNT; bucket++ ) {
+            if ( histogram[bucket] == 0 ) continue;
+            builder.append( String.format( Locale.ROOT, "  < %s: %d%n",
+                    bucket == BUCKET_COUNT - 1 ? "inf" : ( 1L << bucket ) + " us", histogram[bucket] ) );
+        }
+    }
+
+    private static long percentile( long [] samples, int count, double percent ) {
+        int size = Math.min( count, samples.length );
+        if ( size == 0 ) return 0;
+        long [] sorted = Arrays.copyOf( samples, size );
+        Arrays.sort( sorted );
+        int rank = (int) Math.ceil( percent / 100 * size ) - 1;
+        return sorted[ Math.max( 0, Math.min( size - 1, rank ) ) ];
+    }
+
+    /**
+     * Return the bucket of a duration: the number of bits of its value in microseconds.
+     */
+    static int bucketOf( long nanos ) {
+        long micros = Math.max( 0, nanos / 1000 );
+        return Math.min( BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros( micros ) );
+    }
+
+}
@@ -0,0 +1,652 @@
+package com.romain.app11sudoku;
+
+/**
+ * This class represent the grid. The classic grid contains 81 cells; other sizes are described
+ * by a BoardShape. The cells are stored in flat primitive arrays indexed by y * size + x. The
+ * digits used by each row, column and block are kept as masks (bit v-1 for the digit v) and are
+ * updated each time a value is pushed or cleared, so conflict checks and candidate lookups are
+ * simple mask operations whatever the size of the grid.
+ */
+public class GameBoard {
+
+    // The tables of the classic 9x9 grid, for the code which only handles this size: the
+    // solving techniques, the binary formats and the canonical forms
+    public static final int SIZE = 9;
+    public static final int BLOCK_SIZE = 3;
+    public static final int CELL_COUNT = SIZE * SIZE;
+    public static final int ALL_DIGITS = ( 1 << SIZE ) - 1;
+
+    // Row, column and block of each cell index
+    static final int [] ROW_OF = BoardShape.STANDARD.rowOf;
+    static final int [] COLUMN_OF = BoardShape.STANDARD.columnOf;
+    static final int [] BLOCK_OF = BoardShape.STANDARD.blockOf;
+
+    // The 9 cells of each row, then of each column, then of each block
+    static final int [][] UNITS = BoardShape.STANDARD.units;
+    // The 20 cells which share a row, a column or a block with each cell
+    static final int [][] PEERS = BoardShape.STANDARD.peers;
+
+    /**
+     * This class is a read-only view on one cell and it's informations.
+     */
+    public static class GameCell {
+        private final GameBoard board;
+        private final int index;
+
+        GameCell( GameBoard board, int index ) {
+            this.board = board;
+            this.index = index;
+        }
+
+        public int getRealValue() {
+            return board.realValues[ index ];
+        }
+
+        public int getAssumedValue() {
+            return board.assumedValues[ index ];
+        }
+
+        public boolean isInitial() {
+            return board.initials[ index ];
+        }
+
+        public boolean hasMark( int value ) {
+            return ( board.marks[ index ] & ( 1 << ( value - 1 ) ) ) != 0;
+        }
+    }
+
+
+    public GameLevel level;
+    public boolean bigNumber = true;
+    // When a value is placed, remove it from the marks of the row, column and block
+    public boolean autoEliminate;
+
+    // Permet de savoir sur quelle cellule on a cliqué
+    public int currentCellX = -1;
+    public int currentCellY = -1;
+
+    // Tableaux qui contiennent les data de chacune des cellules
+    private final byte [] realValues;
+    private final byte [] assumedValues;
+    private final boolean [] initials;
+    private final int [] marks;
+
+    // For each unit (the rows, then the columns, then the blocks, as in the units of the
+    // shape): the number of cells which contain each value, and the mask of the values used
+    // at least once
+    private final byte [] unitCounts;
+    private final int [] unitMasks;
+    // The number of (unit, value) pairs for which the value appears more than once
+    private int duplicateCount;
+
+    // The geometry of the grid, and its tables
+    private final BoardShape shape;
+    private final int size;
+    private final int cellCount;
+    private final int [] rowOf;
+    private final int [] columnOf;
+    private final int [] blockOf;
+
+    // The moves of the player, for undo and redo
+    private final MoveJournal journal;
+
+    // The number of changes of the cells, and the last hint with the change it was found for
+    private int changeCount;
+    private HintFinder hintFinder;
+    private Hint hint;
+    private int hintChangeCount = -1;
+
+    /**
+     * The class constructor, for a classic 9x9 grid.
+     * @param level         The associated level.
+     * @param realValues    The solution of the grid, one value per cell.
+     * @param initials      The cells initially proposed to the player.
+     */
+    GameBoard( GameLevel level, int [] realValues, boolean [] initials ) {
+        this( BoardShape.STANDARD, level, realValues, initials );
+    }
+
+    /**
+     * The class constructor
+     * @param shape         The geometry of the grid.
+     * @param level         The associated level.
+     * @param realValues    The solution of the grid, one value per cell.
+     * @param initials      The cells initially proposed to the player.
+     */
+    GameBoard( BoardShape shape, GameLevel level, int [] realValues, boolean [] initials ) {
+        this.shape = shape;
+        this.level = level;
+        this.size = shape.getSize();
+        this.cellCount = shape.getCellCount();
+        this.rowOf = shape.rowOf;
+        this.columnOf = shape.columnOf;
+        this.blockOf = shape.blockOf;
+        this.realValues = new byte[ cellCount ];
+        this.assumedValues = new byte[ cellCount ];
+        this.initials = new boolean[ cellCount ];
+        this.marks = new int[ cellCount ];
+        this.unitCounts = new byte[ 3 * size * ( size + 1 ) ];
+        this.unitMasks = new int[ 3 * size ];
+        this.journal = new MoveJournal();
+        for ( int i = 0; i < cellCount; i++ ) {
+            this.realValues[i] = (byte) realValues[i];
+            this.initials[i] = initials[i];
+            if ( initials[i] ) setAssumedValue( i, realValues[i] );
+        }
+    }
+
+    /**
+     * The copy constructor: each array is duplicated with a single clone.
+     * @param other     The board to copy.
+     */
+    public GameBoard( GameBoard other ) {
+        this.shape = other.shape;
+        this.level = other.level;
+        this.size = other.size;
+        this.cellCount = other.cellCount;
+        this.rowOf = other.rowOf;
+        this.columnOf = other.columnOf;
+        this.blockOf = other.blockOf;
+        this.bigNumber = other.bigNumber;
+        this.autoEliminate = other.autoEliminate;
+        this.currentCellX = other.currentCellX;
+        this.currentCellY = other.currentCellY;
+        this.realValues = other.realValues.clone();
+        this.assumedValues = other.assumedValues.clone();
+        this.initials = other.initials.clone();
+        this.marks = other.marks.clone();
+        this.unitCounts = other.unitCounts.clone();
+        this.unitMasks = other.unitMasks.clone();
+        this.duplicateCount = other.duplicateCount;
+        this.journal = new MoveJournal( other.journal );
+    }
+
+    /**
+     * Return a deep copy of this board.
+     */
+    public GameBoard copy() {
+        return new GameBoard( this );
+    }
+
+    /**
+     * Return the geometry of the grid.
+     */
+    public BoardShape getShape() {
+        return shape;
+    }
+
+    /**
+     * Return the number of cells of a row, which is also the number of values: 9 for a
+     * classic grid.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Return the index of the cell (x, y) into the flat arrays.
+     */
+    public int indexOf( int x, int y ) {
+        return y * size + x;
+    }
+
+    /**
+     * Return a read-only view on the cell (x, y).
+     */
+    public GameCell getCell( int x, int y ) {
+        return new GameCell( this, indexOf( x, y ) );
+    }
+
+    public int getRealValue( int x, int y ) {
+        return realValues[ indexOf( x, y ) ];
+    }
+
+    public int getAssumedValue( int x, int y ) {
+        return assumedValues[ indexOf( x, y ) ];
+    }
+
+    public boolean isInitial( int x, int y ) {
+        return initials[ indexOf( x, y ) ];
+    }
+
+    /**
+     * Return the marks of the cell (x, y) as a mask (bit v-1 for the value v).
+     */
+    public int getMarks( int x, int y ) {
+        return marks[ indexOf( x, y ) ];
+    }
+
+    public boolean hasMark( int x, int y, int value ) {
+        return ( marks[ indexOf( x, y ) ] & ( 1 << ( value - 1 ) ) ) != 0;
+    }
+
+    /**
+     * Return the mask of the values which are not yet used in the row, the column and the block
+     * of the cell (x, y).
+     */
+    public int getCandidates( int x, int y ) {
+        return candidatesOf( indexOf( x, y ) );
+    }
+
+    private int candidatesOf( int index ) {
+        return ~( unitMasks[ rowOf[index] ] | unitMasks[ size + columnOf[index] ]
+                | unitMasks[ 2 * size + blockOf[index] ] ) & shape.getAllDigits();
+    }
+
+    /**
+     * Check if the value is already used by another cell of the row, the column or the block
+     * of the cell (x, y).
+     */
+    public boolean isUsedByPeers( int x, int y, int value ) {
+        int index = indexOf( x, y );
+        // The cell itself is counted if it already contains the value
+        int self = assumedValues[index] == value ? 1 : 0;
+        return unitCounts[ countIndex( rowOf[index], value ) ] > self
+                || unitCounts[ countIndex( size + columnOf[index], value ) ] > self
+                || unitCounts[ countIndex( 2 * size + blockOf[index], value ) ] > self;
+    }
+
+    /**
+     * Check if the cell (x, y) is the selected cell or shares its row, its column or its block:
+     * the cells where the selected value cannot appear again.
+     */
+    public boolean isInSelectedUnits( int x, int y ) {
+        return isInUnitsOf( x, y, currentCellX, currentCellY );
+    }
+
+    /**
+     * Check if the cell (x, y) is the cell (cellX, cellY) or shares its row, its column or its
+     * block. Always false if no cell is given (-1).
+     */
+    public boolean isInUnitsOf( int x, int y, int cellX, int cellY ) {
+        if ( cellX == -1 || cellY == -1 ) return false;
+        return shape.sees( indexOf( x, y ), indexOf( cellX, cellY ) );
+    }
+
+    /**
+     * Check if the value of the cell (x, y) appears in another cell of its row, its column or
+     * its block. An empty cell is never in conflict.
+     */
+    public boolean isConflicting( int x, int y ) {
+        int index = indexOf( x, y );
+        int value = assumedValues[index];
+        if ( value == 0 ) return false;
+        return unitCounts[ countIndex( rowOf[index], value ) ] > 1
+                || unitCounts[ countIndex( size + columnOf[index], value ) ] > 1
+                || unitCounts[ countIndex( 2 * size + blockOf[index], value ) ] > 1;
+    }
+
+    /**
+     * Check if at least one value of the grid is in conflict with another one.
+     */
+    public boolean hasConflicts() {
+        return duplicateCount > 0;
+    }
+
+    /**
+     * Return the currently selected value. A cell must be selected, otherwise 0 is returned.
+     */
+    public int getSelectedValue() {
+        // We need to know the current cell
+        if ( this.currentCellX == -1 ) return 0;
+        if ( this.currentCellY == -1 ) return 0;
+
+        return assumedValues[ indexOf( this.currentCellX, this.currentCellY ) ];
+    }
+
+    /**
+     * This method change the state of the selected cell for this grid.
+     * If no cell is selected, the method do nothing.
+     * We cannot change the state af an initial state.
+     * @param value     The value to insert in the selected cell
+     */
+    public void pushValue( int value ) {
+        // We need to know the current cell
+        if ( this.currentCellX == -1 ) return;
+        if ( this.currentCellY == -1 ) return;
+
+        int index = indexOf( this.currentCellX, this.currentCellY );
+        // We cannot update an initial cell
+        if ( initials[index] ) return;
+
+        if ( this.bigNumber ) {
+            // Change the assumed value
+            boolean changed = assumedValues[index] != value;
+            play( index, value, marks[index], false );
+            if ( changed && autoEliminate ) eliminateFromPeers( index, value );
+        } else {
+            // Change the mark states
+            play( index, assumedValues[index], marks[index] ^ 1 << ( value - 1 ), false );
+        }
+    }
+
+    /**
+     * Put a value into several cells at once, for instance the cells crossed by a drag: the
+     * value itself in the normal mode, or a mark in the pencil mode. The initial cells are left
+     * as they are. All the cells changed are undone as one move, and the last cell is selected.
+     * @param cells     The indexes of the cells.
+     * @param count     The number of cells to take from the array.
+     * @param value     The value to put.
+     * @return          false if no cell has changed.
+     */
+    public boolean fillCells( int [] cells, int count, int value ) {
+        int start = changeCount;
+        for ( int i = 0; i < count; i++ ) {
+            int index = cells[i];
+            if ( initials[index] ) continue;
+            boolean grouped = changeCount != start;
+            if ( this.bigNumber ) {
+                boolean changed = assumedValues[index] != value;
+                play( index, value, marks[index], grouped );
+                if ( changed && autoEliminate ) eliminateFromPeers( index, value );
+            } else {
+                play( index, assumedValues[index], marks[index] | 1 << ( value - 1 ), grouped );
+            }
+        }
+        if ( count > 0 ) select( cells[ count - 1 ] );
+        return changeCount != start;
+    }
+
+    /**
+     * Mark all the candidates of every empty cell, and only them: the marks of a cell become
+     * the values not used in its row, column and block. Each mask comes from the masks of the
+     * units, in a single pass over the cells. All the cells changed are undone as one move.
+     * @return  false if no mark has changed.
+     */
+    public boolean fillCandidates() {
+        boolean grouped = false;
+        for ( int index = 0; index < cellCount; index++ ) {
+            if ( assumedValues[index] != 0 ) continue;
+            int candidates = candidatesOf( index );
+            if ( marks[index] == candidates ) continue;
+            play( index, 0, candidates, grouped );
+            grouped = true;
+        }
+        return grouped;
+    }
+
+    /**
+     * Clear all informations (value and marks) for the selected cell.
+     * We cannot change the state af an initial state.
+     */
+    public void clearCell() {
+        // We need to know the current cell
+        if ( this.currentCellX == -1 ) return;
+        if ( this.currentCellY == -1 ) return;
+
+        int index = indexOf( this.currentCellX, this.currentCellY );
+
+        // We cannot update an initial cell
+        if ( initials[index] ) return;
+
+        play( index, 0, 0, false );
+    }
+
+    /**
+     * Revert the last move of the player, and select the cell it changed.
+     * @return  false if there is no move to undo.
+     */
+    public boolean undo() {
+        if ( ! journal.canUndo() ) return false;
+        long move;
+        int index;
+        do {
+            move = journal.undo();
+            index = MoveJournal.cellOf( move );
+            apply( index, MoveJournal.oldValueOf( move ), marks[index] ^ MoveJournal.markDeltaOf( move ) );
+        } while ( MoveJournal.isGrouped( move ) && journal.canUndo() );
+        select( index );
+        return true;
+    }
+
+    /**
+     * Apply again the last move undone, and select the cell it changed.
+     * @return  false if there is no move to redo.
+     */
+    public boolean redo() {
+        if ( ! journal.canRedo() ) return false;
+        long move = journal.redo();
+        int index = MoveJournal.cellOf( move );
+        apply( index, MoveJournal.newValueOf( move ), marks[index] ^ MoveJournal.markDeltaOf( move ) );
+        select( index );
+        // The rest of the group
+        while ( journal.canRedo() && MoveJournal.isGrouped( journal.get( journal.getPosition() ) ) ) {
+            move = journal.redo();
+            index = MoveJournal.cellOf( move );
+            apply( index, MoveJournal.newValueOf( move ), marks[index] ^ MoveJournal.markDeltaOf( move ) );
+        }
+        return true;
+    }
+
+    /**
+     * Return the next logical step: a wrong value to fix, else the next value which can be
+     * placed or the marks which can be removed, with the technique which justifies it.
+     * The hint is computed from the candidates maintained on each move, one deduction at a
+     * time, and kept until the next change of the board.
+     * The solving techniques only handle the classic 9x9 grid.
+     * @return  The hint, or null if the grid is solved.
+     * @throws UnsupportedOperationException if the grid is not a 9x9 grid.
+     */
+    public Hint nextHint() {
+        if ( shape != BoardShape.STANDARD ) {
+            throw new UnsupportedOperationException( "No hint for a " + shape + " grid" );
+        }
+        if ( hintChangeCount != changeCount ) {
+            if ( hintFinder == null ) hintFinder = new HintFinder();
+            hint = hintFinder.find( this );
+            hintChangeCount = changeCount;
+        }
+        return hint;
+    }
+
+    /**
+     * Return the history of the moves of this board.
+     */
+    public MoveJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Return a new board with the same grid, as it was at the start of the game: only the
+     * initial cells are filled, and the history is empty.
+     */
+    public GameBoard getInitialBoard() {
+        int [] solution = new int[ cellCount ];
+        for ( int i = 0; i < cellCount; i++ ) solution[i] = realValues[i];
+        return new GameBoard( shape, level, solution, initials.clone() );
+    }
+
+    /**
+     * Play again, on this board, all the moves done in a journal. This board must be in the
+     * state the journal started from, for instance the board returned by getInitialBoard().
+     * This allows to recreate a whole game session from its journal only.
+     * @throws IllegalStateException if the oldest moves of the journal have been dropped.
+     */
+    public void replay( MoveJournal moves ) {
+        if ( ! moves.isComplete() ) throw new IllegalStateException( "The journal has been truncated" );
+        for ( int i = 0; i < moves.getPosition(); i++ ) {
+            long move = moves.get( i );
+            int index = MoveJournal.cellOf( move );
+            play( index, MoveJournal.newValueOf( move ), marks[index] ^ MoveJournal.markDeltaOf( move ),
+                    MoveJournal.isGrouped( move ) );
+        }
+    }
+
+    /**
+     * Change the value and the marks of a cell, and record the move in the journal.
+     * @param grouped   true to undo and redo the move together with the previous one.
+     */
+    private void play( int index, int value, int cellMarks, boolean grouped ) {
+        int oldValue = assumedValues[index];
+        int markDelta = marks[index] ^ cellMarks;
+        if ( oldValue == value && markDelta == 0 ) return;
+        long move = MoveJournal.encode( index, oldValue, value, markDelta );
+        journal.record( grouped ? MoveJournal.grouped( move ) : move );
+        apply( index, value, cellMarks );
+    }
+
+    /**
+     * Remove a value just placed from the marks of the peers of its cell, in the same group
+     * as the placement.
+     */
+    private void eliminateFromPeers( int index, int value ) {
+        if ( value == 0 ) return;
+        int bit = 1 << ( value - 1 );
+        for ( int peer : shape.peers[index] ) {
+            if ( ( marks[peer] & bit ) != 0 ) play( peer, assumedValues[peer], marks[peer] & ~bit, true );
+        }
+    }
+
+    /**
+     * Set the state of a cell without recording a move, when a saved board is restored.
+     */
+    void restoreCell( int index, int value, int cellMarks ) {
+        apply( index, value, cellMarks );
+    }
+
+    private void apply( int index, int value, int cellMarks ) {
+        setAssumedValue( index, value );
+        marks[index] = cellMarks;
+        changeCount++;
+    }
+
+    private void select( int index ) {
+        currentCellX = columnOf[index];
+        currentCellY = rowOf[index];
+    }
+
+    /**
+     * Change the assumed value of a cell and keep the counts and masks of its row, column and
+     * block up to date.
+     */
+    private void setAssumedValue( int index, int value ) {
+        int oldValue = assumedValues[index];
+        if ( oldValue == value ) return;
+
+        assumedValues[index] = (byte) value;
+        int row = rowOf[index];
+        int column = size + columnOf[index];
+        int block = 2 * size + blockOf[index];
+        if ( oldValue != 0 ) {
+            removeFromUnit( row, oldValue );
+            removeFromUnit( column, oldValue );
+            removeFromUnit( block, oldValue );
+        }
+        if ( value != 0 ) {
+            addToUnit( row, value );
+            addToUnit( column, value );
+            addToUnit( block, value );
+        }
+    }
+
+    private void addToUnit( int unit, int value ) {
+        int count = ++unitCounts[ countIndex( unit, value ) ];
+        if ( count == 1 ) unitMasks[unit] |= 1 << ( value - 1 );
+        if ( count == 2 ) duplicateCount++;
+    }
+
+    private void removeFromUnit( int unit, int value ) {
+        int count = --unitCounts[ countIndex( unit, value ) ];
+        if ( count == 0 ) unitMasks[unit] &= ~( 1 << ( value - 1 ) );
+        if ( count == 1 ) duplicateCount--;
+    }
+
+    private int countIndex( int unit, int value ) {
+        return unit * ( size + 1 ) + value;
+    }
+
+    /**
+     * Check if two cells of a 9x9 grid share a row, a column or a block.
+     */
+    static boolean sees( int cell1, int cell2 ) {
+        return BoardShape.STANDARD.sees( cell1, cell2 );
+    }
+
+    /**
+     * Return the grid proposed to the player: the values of the initial cells, 0 elsewhere.
+     */
+    public int [] getGivens() {
+        int [] givens = new int[ cellCount ];
+        for ( int i = 0; i < cellCount; i++ ) {
+            if ( initials[i] ) givens[i] = realValues[i];
+        }
+        return givens;
+    }
+
+    /**
+     * A factory method that produce a new grid to solve. The grid is taken from the shared
+     * pool of ready-made grids, and only generated on demand if the pool is empty.
+     * @param level     The level of the grid.
+     * @return          A new grid to solve.
+     */
+    public static GameBoard getGameBoard( GameLevel level ) {
+        return PuzzlePool.getInstance().take( level );
+    }
+
+    /**
+     * A factory method that produce a grid to solve. The same seed always gives the same grid.
+     * @param level     The level of the grid.
+     * @param seed      The seed used by the generator.
+     * @return          A new grid to solve.
+     */
+    public static GameBoard getGameBoard( GameLevel level, long seed ) {
+        return new PuzzleGenerator( seed ).generate( level );
+    }
+
+    /**
+     * Build a board from a 81 characters string. The solution is computed by the solver.
+     * @param level     The associated level.
+     * @param puzzle    The givens, with '.' or '0' for the empty cells.
+     * @throws IllegalArgumentException if the grid has no solution.
+     */
+    static GameBoard fromPuzzle( GameLevel level, String puzzle ) {
+        return fromPuzzle( BoardShape.STANDARD, level, puzzle );
+    }
+
+    /**
+     * Build a board from a string of one character per cell. The solution is computed by the
+     * solver.
+     * @param shape     The geometry of the grid.
+     * @param level     The associated level.
+     * @param puzzle    The givens, with '.' or '0' for the empty cells, and letters for the
+     *                  values above 9.
+     * @throws IllegalArgumentException if the grid has no solution.
+     */
+    static GameBoard fromPuzzle( BoardShape shape, GameLevel level, String puzzle ) {
+        int [] givens = new int[ shape.getCellCount() ];
+        for ( int i = 0; i < givens.length; i++ ) {
+            givens[i] = Math.max( 0, shape.valueOf( puzzle.charAt( i ) ) );
+        }
+        return fromGivens( shape, level, givens );
+    }
+
+    /**
+     * Build a board from its givens. The solution is computed by the solver.
+     * @param level     The associated level.
+     * @param givens    The 81 values of the grid, 0 for an empty cell.
+     * @throws IllegalArgumentException if the grid has no solution.
+     */
+    static GameBoard fromGivens( GameLevel level, int [] givens ) {
+        return fromGivens( BoardShape.STANDARD, level, givens );
+    }
+
+    /**
+     * Build a board from its givens. The solution is computed by the solver.
+     * @param shape     The geometry of the grid.
+     * @param level     The associated level.
+     * @param givens    The values of the grid, 0 for an empty cell.
+     * @throws IllegalArgumentException if the grid has no solution.
+     */
+    static GameBoard fromGivens( BoardShape shape, GameLevel level, int [] givens ) {
+        int [] realValues = givens.clone();
+        if ( ! new SudokuSolver( shape ).solve( realValues ) ) {
+            throw new IllegalArgumentException( "This grid has no solution" );
+        }
+        boolean [] initials = new boolean[ givens.length ];
+        for ( int i = 0; i < givens.length; i++ ) {
+            initials[i] = givens[i] != 0;
+        }
+        return new GameBoard( shape, level, realValues, initials );
+    }
+
+}
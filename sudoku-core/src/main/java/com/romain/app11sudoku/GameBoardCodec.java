@@ -0,0 +1,159 @@
+package com.romain.app11sudoku;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A compact binary format for a GameBoard, used to save a game and to restore it after a
+ * configuration change or the death of the process.
+ * <p>
+ * The header holds a magic number, the version of the format, the level, the flags (the
+ * pencil and auto-eliminate modes) and the selected cell. Then each cell is packed into 18
+ * bits: the assumed value (4 bits), the initial flag (1 bit), the marks (9 bits) and the
+ * solution (4 bits), so that no resolution is needed on restore. The history of the moves is
+ * not saved.
+ */
+public final class GameBoardCodec {
+
+    private static final int MAGIC = 0x53444B55;       // "SDKU"
+    private static final byte VERSION = 1;
+
+    private static final int FLAG_BIG_NUMBER = 1;
+    private static final int FLAG_AUTO_ELIMINATE = 2;
+
+    private static final int VALUE_BITS = 4;
+    private static final int CELL_BITS = VALUE_BITS + 1 + GameBoard.SIZE + VALUE_BITS;
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 1 + 2;
+
+    /**
+     * The size of an encoded board, in bytes.
+     */
+    public static final int ENCODED_SIZE = HEADER_SIZE + ( GameBoard.CELL_COUNT * CELL_BITS + 7 ) / 8;
+
+    private GameBoardCodec() {
+    }
+
+    /**
+     * Return the encoded form of a board.
+     */
+    public static byte [] toBytes( GameBoard board ) {
+        byte [] bytes = new byte[ ENCODED_SIZE ];
+        write( board, ByteBuffer.wrap( bytes ) );
+        return bytes;
+    }
+
+    /**
+     * Decode a board.
+     * @throws IllegalArgumentException if the data are not a valid encoded board.
+     */
+    public static GameBoard fromBytes( byte [] bytes ) {
+        return read( ByteBuffer.wrap( bytes ) );
+    }
+
+    /**
+     * Write a board at the current position of the buffer.
+     * @throws java.nio.BufferOverflowException if there are less than ENCODED_SIZE bytes
+     *                                          remaining in the buffer.
+     * @throws IllegalArgumentException if the board is not a 9x9 grid.
+     */
+    public static void write( GameBoard board, ByteBuffer buffer ) {
+        if ( board.getShape() != BoardShape.STANDARD ) {
+            throw new IllegalArgumentException( "Only a 9x9 grid can be encoded" );
+        }
+        buffer.putInt( MAGIC );
+        buffer.put( VERSION );
+        buffer.put( (byte) board.level.ordinal() );
+        buffer.put( (byte) ( ( board.bigNumber ? FLAG_BIG_NUMBER : 0 )
+                | ( board.autoEliminate ? FLAG_AUTO_ELIMINATE : 0 ) ) );
+        buffer.put( (byte) board.currentCellX );
+        buffer.put( (byte) board.currentCellY );
+
+        // Cells are packed into a 64 bits accumulator, flushed byte by byte
+        long bits = 0;
+        int bitCount = 0;
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) {
+            int x = GameBoard.COLUMN_OF[i];
+            int y = GameBoard.ROW_OF[i];
+            long cell = board.getAssumedValue( x, y )
+                    | ( board.isInitial( x, y ) ? 1 : 0 ) << VALUE_BITS
+                    | board.getMarks( x, y ) << ( VALUE_BITS + 1 )
+                    | board.getRealValue( x, y ) << ( VALUE_BITS + 1 + GameBoard.SIZE );
+            bits |= cell << bitCount;
+            bitCount += CELL_BITS;
+            while ( bitCount >= 8 ) {
+                buffer.put( (byte) bits );
+                bits >>>= 8;
+                bitCount -= 8;
+            }
+        }
+        if ( bitCount > 0 ) buffer.put( (byte) bits );
+    }
+
+    /**
+     * Read a board from the current position of the buffer.
+     * @throws IllegalArgumentException if the data are not a valid encoded board.
+     */
+    public static GameBoard read( ByteBuffer buffer ) {
+        if ( buffer.remaining() < ENCODED_SIZE ) {
+            throw new IllegalArgumentException( "Truncated board: " + buffer.remaining() + " bytes" );
+        }
+        if ( buffer.getInt() != MAGIC ) throw new IllegalArgumentException( "Not a board" );
+        byte version = buffer.get();
+        if ( version != VERSION ) throw new IllegalArgumentException( "Unknown version " + version );
+
+        int levelIndex = buffer.get();
+        GameLevel [] levels = GameLevel.values();
+        if ( levelIndex < 0 || levelIndex >= levels.length ) {
+            throw new IllegalArgumentException( "Unknown level " + levelIndex );
+        }
+        int flags = buffer.get();
+        int currentCellX = buffer.get();
+        int currentCellY = buffer.get();
+        if ( currentCellX < -1 || currentCellX >= GameBoard.SIZE
+                || currentCellY < -1 || currentCellY >= GameBoard.SIZE ) {
+            throw new IllegalArgumentException( "Bad selection " + currentCellX + "," + currentCellY );
+        }
+
+        int [] values = new int[ GameBoard.CELL_COUNT ];
+        int [] marks = new int[ GameBoard.CELL_COUNT ];
+        int [] realValues = new int[ GameBoard.CELL_COUNT ];
+        boolean [] initials = new boolean[ GameBoard.CELL_COUNT ];
+
+        long bits = 0;
+        int bitCount = 0;
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) {
+            while ( bitCount < CELL_BITS ) {
+                bits |= ( buffer.get() & 0xFFL ) << bitCount;
+                bitCount += 8;
+            }
+            int cell = (int) ( bits & ( ( 1 << CELL_BITS ) - 1 ) );
+            bits >>>= CELL_BITS;
+            bitCount -= CELL_BITS;
+
+            values[i] = cell & 0xF;
+            initials[i] = ( cell >>> VALUE_BITS & 1 ) != 0;
+            marks[i] = cell >>> ( VALUE_BITS + 1 ) & GameBoard.ALL_DIGITS;
+            realValues[i] = cell >>> ( VALUE_BITS + 1 + GameBoard.SIZE );
+            if ( values[i] > GameBoard.SIZE || realValues[i] < 1 || realValues[i] > GameBoard.SIZE
+                    || ( initials[i] && values[i] != realValues[i] ) ) {
+                throw new IllegalArgumentException( "Bad cell " + i );
+            }
+        }
+
+        for ( int [] unit : GameBoard.UNITS ) {
+            int used = 0;
+            for ( int cell : unit ) used |= 1 << ( realValues[cell] - 1 );
+            if ( used != GameBoard.ALL_DIGITS ) throw new IllegalArgumentException( "Bad solution" );
+        }
+
+        GameBoard board = new GameBoard( levels[levelIndex], realValues, initials );
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) {
+            if ( ! initials[i] ) board.restoreCell( i, values[i], marks[i] );
+        }
+        board.bigNumber = ( flags & FLAG_BIG_NUMBER ) != 0;
+        board.autoEliminate = ( flags & FLAG_AUTO_ELIMINATE ) != 0;
+        board.currentCellX = currentCellX;
+        board.currentCellY = currentCellY;
+        return board;
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.romain.app11sudoku;
+
+import java.util.Locale;
+
+/**
+ * The next step suggested to the player: a wrong value to fix, a value to place, or candidates
+ * to remove, with the technique which justifies it.
+ */
+public class Hint {
+
+    public enum Type {
+        /** A value of the player does not match the solution. */
+        MISTAKE,
+        /** A value can be placed. */
+        PLACEMENT,
+        /** Some marks of the player can be removed. */
+        ELIMINATION
+    }
+
+    private final Type type;
+    private final SolvingTechnique technique;
+    private final int cell;
+    private final int value;
+    private final int [] cells;
+    private final int [] eliminated;
+
+    private Hint( Type type, SolvingTechnique technique, int cell, int value, int [] cells, int [] eliminated ) {
+        this.type = type;
+        this.technique = technique;
+        this.cell = cell;
+        this.value = value;
+        this.cells = cells;
+        this.eliminated = eliminated;
+    }
+
+    static Hint mistake( int cell, int value ) {
+        return new Hint( Type.MISTAKE, null, cell, value, new int[] { cell }, new int[ 1 ] );
+    }
+
+    static Hint placement( SolvingTechnique technique, int cell, int value ) {
+        return new Hint( Type.PLACEMENT, technique, cell, value, new int[] { cell }, new int[ 1 ] );
+    }
+
+    static Hint elimination( SolvingTechnique technique, int [] cells, int [] eliminated ) {
+        return new Hint( Type.ELIMINATION, technique, cells[0], 0, cells, eliminated );
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Return the technique which justifies the hint: for a placement, the hardest technique
+     * needed to reach it. Null for a mistake, and for a placement beyond the known techniques
+     * (the value is then taken from the solution).
+     */
+    public SolvingTechnique getTechnique() {
+        return technique;
+    }
+
+    /**
+     * Return the level of the hint: the level of its technique, EVIL beyond the known techniques.
+     */
+    public GameLevel getLevel() {
+        if ( technique != null ) return technique.getLevel();
+        return type == Type.MISTAKE ? GameLevel.VERY_EASY : GameLevel.EVIL;
+    }
+
+    /**
+     * Return the column of the cell of the hint (the first cell for an elimination).
+     */
+    public int getX() {
+        return GameBoard.COLUMN_OF[cell];
+    }
+
+    public int getY() {
+        return GameBoard.ROW_OF[cell];
+    }
+
+    /**
+     * Return the value to place, or the wrong value of a mistake. 0 for an elimination.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * Return the number of cells concerned by the hint: 1 but for an elimination.
+     */
+    public int getCellCount() {
+        return cells.length;
+    }
+
+    public int getCell( int i ) {
+        return cells[i];
+    }
+
+    /**
+     * Return the mask of the candidates to remove from the i-th cell of an elimination.
+     */
+    public int getEliminatedCandidates( int i ) {
+        return eliminated[i];
+    }
+
+    @Override
+    public String toString() {
+        switch ( type ) {
+            case MISTAKE:
+                return String.format( Locale.ROOT, "The %d in row %d, column %d is wrong",
+                        value, getY() + 1, getX() + 1 );
+            case PLACEMENT:
+                return String.format( Locale.ROOT, "%s: %d in row %d, column %d",
+                        technique == null ? "Solution" : technique.getName(), value, getY() + 1, getX() + 1 );
+            default:
+                StringBuilder builder = new StringBuilder( technique.getName() ).append( ": remove" );
+                for ( int i = 0; i < cells.length; i++ ) {
+                    builder.append( i == 0 ? " " : ", " );
+                    for ( int digit = 1; digit <= GameBoard.SIZE; digit++ ) {
+                        if ( ( eliminated[i] & 1 << ( digit - 1 ) ) != 0 ) builder.append( digit );
+                    }
+                    builder.append( String.format( Locale.ROOT, " from row %d, column %d",
+                            GameBoard.ROW_OF[ cells[i] ] + 1, GameBoard.COLUMN_OF[ cells[i] ] + 1 ) );
+                }
+                return builder.toString();
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.romain.app11sudoku;
+
+/**
+ * Find the next logical step of a game in progress. The candidates are taken from the masks
+ * that the board maintains on each move, then the techniques are applied one deduction at a
+ * time, from the easiest one, until a value can be placed: nothing is solved from scratch.
+ * The candidates eliminated are remembered from one hint to the next: an elimination made
+ * from correct values only removes values which are not in the solution, so it stays true
+ * whatever the player does next, and the deductions are never made twice.
+ * <p>
+ * The eliminations made on the way are only suggested when they remove a mark of the player;
+ * otherwise the placement they lead to is suggested, with the hardest technique needed.
+ * A finder is not thread safe: each board has its own one.
+ */
+class HintFinder {
+
+    private static final int CELL_COUNT = GameBoard.CELL_COUNT;
+
+    private final SolvingTechnique [] techniques = SolvingTechniques.standard();
+    private final CandidateGrid grid = new CandidateGrid();
+    private final int [] values = new int[ CELL_COUNT ];
+    private final int [] candidates = new int[ CELL_COUNT ];
+    private final int [] marks = new int[ CELL_COUNT ];
+    // The candidates eliminated by the previous deductions
+    private final int [] eliminations = new int[ CELL_COUNT ];
+
+    /**
+     * Return the next step for a board, or null if the grid is solved.
+     */
+    Hint find( GameBoard board ) {
+        // A wrong value first: no deduction can be made from it
+        for ( int i = 0; i < CELL_COUNT; i++ ) {
+            int x = GameBoard.COLUMN_OF[i];
+            int y = GameBoard.ROW_OF[i];
+            int value = board.getAssumedValue( x, y );
+            if ( value != 0 && value != board.getRealValue( x, y ) ) return Hint.mistake( i, value );
+            values[i] = value;
+            candidates[i] = board.getCandidates( x, y ) & ~eliminations[i];
+            marks[i] = board.getMarks( x, y );
+        }
+        grid.load( values, candidates );
+        if ( grid.isSolved() ) return null;
+
+        SolvingTechnique hardest = null;
+        while ( true ) {
+            System.arraycopy( grid.candidates, 0, candidates, 0, CELL_COUNT );
+            SolvingTechnique fired = null;
+            for ( SolvingTechnique technique : techniques ) {
+                if ( technique.apply( grid ) ) {
+                    fired = technique;
+                    break;
+                }
+            }
+            if ( fired == null ) return beyondTechniques( board );
+            if ( hardest == null || fired.getLevel().compareTo( hardest.getLevel() ) > 0 ) hardest = fired;
+            for ( int i = 0; i < CELL_COUNT; i++ ) {
+                if ( grid.values[i] == 0 ) eliminations[i] |= candidates[i] & ~grid.candidates[i];
+            }
+
+            for ( int i = 0; i < CELL_COUNT; i++ ) {
+                if ( grid.values[i] != values[i] ) return Hint.placement( hardest, i, grid.values[i] );
+            }
+
+            // Eliminations only: suggest them if the player has marked one of the candidates removed
+            int count = 0;
+            for ( int i = 0; i < CELL_COUNT; i++ ) {
+                if ( ( candidates[i] & ~grid.candidates[i] & marks[i] ) != 0 ) count++;
+            }
+            if ( count == 0 ) continue;
+            int [] cells = new int[ count ];
+            int [] eliminated = new int[ count ];
+            count = 0;
+            for ( int i = 0; i < CELL_COUNT; i++ ) {
+                int removed = candidates[i] & ~grid.candidates[i] & marks[i];
+                if ( removed == 0 ) continue;
+                cells[count] = i;
+                eliminated[count++] = removed;
+            }
+            return Hint.elimination( fired, cells, eliminated );
+        }
+    }
+
+    /**
+     * No known technique applies: give the value of the solution for the empty cell which has
+     * the fewest candidates left.
+     */
+    private Hint beyondTechniques( GameBoard board ) {
+        int best = -1;
+        for ( int i = 0; i < CELL_COUNT; i++ ) {
+            if ( grid.values[i] != 0 ) continue;
+            if ( best == -1 || Integer.bitCount( grid.candidates[i] ) < Integer.bitCount( grid.candidates[best] ) ) {
+                best = i;
+            }
+        }
+        return Hint.placement( null, best, board.getRealValue( GameBoard.COLUMN_OF[best], GameBoard.ROW_OF[best] ) );
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.romain.app11sudoku;
+
+import java.util.Arrays;
+
+/**
+ * A set of longs with open addressing and linear probing, without boxing: two to four longs
+ * per element. Used to drop the duplicated grids by their canonical hash.
+ * The value 0 marks an empty slot, so its presence is kept apart.
+ */
+public class LongHashSet {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long [] slots;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+
+    public LongHashSet() {
+        this( MIN_CAPACITY );
+    }
+
+    /**
+     * The class constructor
+     * @param expectedSize  The number of elements which can be added without growing.
+     */
+    public LongHashSet( int expectedSize ) {
+        if ( expectedSize < 0 ) throw new IllegalArgumentException( "Bad size: " + expectedSize );
+        int capacity = MIN_CAPACITY;
+        while ( capacity < expectedSize * 2L ) capacity <<= 1;
+        slots = new long[ capacity ];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Add a value to the set.
+     * @return  True if the value was not in the set.
+     */
+    public boolean add( long value ) {
+        if ( value == 0 ) {
+            if ( hasZero ) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int slot = slotOf( value );
+        while ( slots[slot] != 0 ) {
+            if ( slots[slot] == value ) return false;
+            slot = ( slot + 1 ) & mask;
+        }
+        slots[slot] = value;
+        size++;
+        // Keep the load factor under 1/2, so that the probes stay short
+        if ( size * 2 > slots.length ) grow();
+        return true;
+    }
+
+    public boolean contains( long value ) {
+        if ( value == 0 ) return hasZero;
+        int slot = slotOf( value );
+        while ( slots[slot] != 0 ) {
+            if ( slots[slot] == value ) return true;
+            slot = ( slot + 1 ) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill( slots, 0 );
+        size = 0;
+        hasZero = false;
+    }
+
+    private int slotOf( long value ) {
+        // Mix the bits: the values are not always well spread hashes
+        long z = value * 0x9E3779B97F4A7C15L;
+        return (int) ( z ^ ( z >>> 32 ) ) & mask;
+    }
+
+    private void grow() {
+        long [] old = slots;
+        if ( old.length == 1 << 30 ) throw new IllegalStateException( "Set too large" );
+        slots = new long[ old.length * 2 ];
+        mask = slots.length - 1;
+        for ( long value : old ) {
+            if ( value == 0 ) continue;
+            int slot = slotOf( value );
+            while ( slots[slot] != 0 ) slot = ( slot + 1 ) & mask;
+            slots[slot] = value;
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.romain.app11sudoku;
+
+/**
+ * The history of the moves of a game, for undo and redo. Each move is packed into a long:
+ * the index of the cell, its old and new values, and the marks which have been toggled.
+ * A move can be grouped with the move before it, so that an action which changes several
+ * cells at once is undone and redone as a whole.
+ * The moves are stored in a growable ring buffer: once the maximum capacity is reached, the
+ * oldest moves are dropped (and the journal cannot be replayed from the start anymore).
+ * Undo and redo are O(1) per move.
+ */
+public class MoveJournal {
+
+    public static final int DEFAULT_MAX_CAPACITY = 1 << 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Layout of a move
+    private static final int CELL_BITS = 10;
+    private static final int VALUE_BITS = 5;
+    private static final int MARK_BITS = 25;
+    private static final int OLD_VALUE_SHIFT = CELL_BITS;
+    private static final int NEW_VALUE_SHIFT = OLD_VALUE_SHIFT + VALUE_BITS;
+    private static final int MARK_SHIFT = NEW_VALUE_SHIFT + VALUE_BITS;
+    private static final long GROUP_FLAG = 1L << ( MARK_SHIFT + MARK_BITS );
+
+    private final int maxCapacity;
+    private long [] moves;
+    private int head;       // Index into moves of the oldest move
+    private int size;       // Number of moves recorded (done and undone)
+    private int position;   // Number of moves done: the moves after it can be redone
+    private boolean truncated;
+
+    public MoveJournal() {
+        this( DEFAULT_MAX_CAPACITY );
+    }
+
+    /**
+     * The class constructor
+     * @param maxCapacity   The maximum number of moves kept by the journal.
+     */
+    public MoveJournal( int maxCapacity ) {
+        if ( maxCapacity < 1 ) throw new IllegalArgumentException( "Bad capacity: " + maxCapacity );
+        this.maxCapacity = maxCapacity;
+        this.moves = new long[ Math.min( INITIAL_CAPACITY, maxCapacity ) ];
+    }
+
+    /**
+     * The copy constructor
+     */
+    public MoveJournal( MoveJournal other ) {
+        this.maxCapacity = other.maxCapacity;
+        this.moves = new long[ other.moves.length ];
+        System.arraycopy( other.moves, 0, this.moves, 0, moves.length );
+        this.head = other.head;
+        this.size = other.size;
+        this.position = other.position;
+        this.truncated = other.truncated;
+    }
+
+    /**
+     * Pack a move into a long.
+     * @param cell          The index of the cell.
+     * @param oldValue      The value of the cell before the move.
+     * @param newValue      The value of the cell after the move.
+     * @param markDelta     The mask of the marks toggled by the move.
+     */
+    public static long encode( int cell, int oldValue, int newValue, int markDelta ) {
+        return cell
+                | (long) oldValue << OLD_VALUE_SHIFT
+                | (long) newValue << NEW_VALUE_SHIFT
+                | (long) markDelta << MARK_SHIFT;
+    }
+
+    /**
+     * Return the move, grouped with the move recorded before it.
+     */
+    public static long grouped( long move ) {
+        return move | GROUP_FLAG;
+    }
+
+    /**
+     * Check if a move belongs to the same group as the move recorded before it.
+     */
+    public static boolean isGrouped( long move ) {
+        return ( move & GROUP_FLAG ) != 0;
+    }
+
+    public static int cellOf( long move ) {
+        return (int) ( move & ( ( 1 << CELL_BITS ) - 1 ) );
+    }
+
+    public static int oldValueOf( long move ) {
+        return (int) ( move >>> OLD_VALUE_SHIFT ) & ( ( 1 << VALUE_BITS ) - 1 );
+    }
+
+    public static int newValueOf( long move ) {
+        return (int) ( move >>> NEW_VALUE_SHIFT ) & ( ( 1 << VALUE_BITS ) - 1 );
+    }
+
+    public static int markDeltaOf( long move ) {
+        return (int) ( move >>> MARK_SHIFT ) & ( ( 1 << MARK_BITS ) - 1 );
+    }
+
+    /**
+     * Record a new move. The moves which have been undone cannot be redone anymore.
+     */
+    public void record( long move ) {
+        size = position;
+        if ( size == moves.length ) {
+            if ( moves.length < maxCapacity ) {
+                grow();
+            } else {
+                // Drop the oldest move
+                head = ( head + 1 ) % moves.length;
+                size--;
+                position--;
+                truncated = true;
+            }
+        }
+        moves[ ( head + size ) % moves.length ] = move;
+        size++;
+        position++;
+    }
+
+    public boolean canUndo() {
+        return position > 0;
+    }
+
+    public boolean canRedo() {
+        return position < size;
+    }
+
+    /**
+     * Step back one move.
+     * @return  The move to revert.
+     * @throws IllegalStateException if there is no move to undo.
+     */
+    public long undo() {
+        if ( ! canUndo() ) throw new IllegalStateException( "Nothing to undo" );
+        position--;
+        return get( position );
+    }
+
+    /**
+     * Step forward one move.
+     * @return  The move to apply again.
+     * @throws IllegalStateException if there is no move to redo.
+     */
+    public long redo() {
+        if ( ! canRedo() ) throw new IllegalStateException( "Nothing to redo" );
+        position++;
+        return get( position - 1 );
+    }
+
+    /**
+     * Return the i-th move, the oldest one being at index 0.
+     */
+    public long get( int i ) {
+        if ( i < 0 || i >= size ) throw new IndexOutOfBoundsException( "Move " + i + " of " + size );
+        return moves[ ( head + i ) % moves.length ];
+    }
+
+    /**
+     * Return the number of moves recorded, including the moves which have been undone.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of moves currently done.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Check if the journal still contains all the moves since the start of the game.
+     */
+    public boolean isComplete() {
+        return ! truncated;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        position = 0;
+        truncated = false;
+    }
+
+    private void grow() {
+        long [] grown = new long[ Math.min( maxCapacity, moves.length * 2 ) ];
+        for ( int i = 0; i < size; i++ ) grown[i] = moves[ ( head + i ) % moves.length ];
+        moves = grown;
+        head = 0;
+    }
+
+}
@@ -0,0 +1,203 @@
+package com.romain.app11sudoku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generate or solve a large number of grids, spreading the work over all the cores.
+ * The work is split into chunks of consecutive indexes. Each worker thread keeps its own
+ * generator and solver, so the hot loop does not allocate anything but the results.
+ * The grid at index i is always generated from a seed derived from (seed, i): the results
+ * only depend on the seed, whatever the number of threads.
+ */
+public class PuzzleBatch {
+
+    // Number of chunks per thread: more chunks balance better the uneven generation times
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    /**
+     * The results of a batch, with the time spent to produce them.
+     */
+    public static class Result<T> {
+        public final List<T> items;
+        public final long elapsedNanos;
+        public final int threads;
+
+        Result( List<T> items, long elapsedNanos, int threads ) {
+            this.items = items;
+            this.elapsedNanos = elapsedNanos;
+            this.threads = threads;
+        }
+
+        public double getPuzzlesPerSecond() {
+            return elapsedNanos == 0 ? 0 : items.size() * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format( Locale.ROOT, "%d puzzles in %.1f ms on %d threads (%.0f puzzles/s)",
+                    items.size(), elapsedNanos / 1e6, threads, getPuzzlesPerSecond() );
+        }
+    }
+
+    /**
+     * Work done for one index of a batch, with the scratch state of a worker thread.
+     */
+    private interface Worker<T> {
+        T process( int index );
+    }
+
+    private PuzzleBatch() {
+    }
+
+    /**
+     * Generate grids on all the cores.
+     * @param level     The level of the grids.
+     * @param count     The number of grids to generate.
+     * @param seed      The seed of the batch.
+     */
+    public static Result<GameBoard> generate( GameLevel level, int count, long seed ) {
+        return generate( level, count, seed, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Generate grids with the given number of threads.
+     */
+    public static Result<GameBoard> generate( final GameLevel level, int count, final long seed,
+                                              int threads ) {
+        final ThreadLocal<PuzzleGenerator> generators = new ThreadLocal<PuzzleGenerator>() {
+            @Override
+            protected PuzzleGenerator initialValue() {
+                return new PuzzleGenerator( seed );
+            }
+        };
+        return run( count, threads, new Worker<GameBoard>() {
+            @Override
+            public GameBoard process( int index ) {
+                PuzzleGenerator generator = generators.get();
+                generator.setSeed( seedOf( seed, index ) );
+                return generator.generate( level );
+            }
+        } );
+    }
+
+    /**
+     * Solve grids on all the cores.
+     * @param boards    The boards to solve (their initial cells).
+     * @return          The solutions, in the same order, null for a grid without solution.
+     */
+    public static Result<int[]> solveAll( List<GameBoard> boards ) {
+        return solveAll( boards, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Solve grids with the given number of threads.
+     */
+    public static Result<int[]> solveAll( final List<GameBoard> boards, int threads ) {
+        final ThreadLocal<SudokuSolver> solvers = new ThreadLocal<SudokuSolver>() {
+            @Override
+            protected SudokuSolver initialValue() {
+                return new SudokuSolver();
+            }
+        };
+        return run( boards.size(), threads, new Worker<int[]>() {
+            @Override
+            public int[] process( int index ) {
+                return solvers.get().solve( boards.get( index ) );
+            }
+        } );
+    }
+
+    /**
+     * Drop the boards equivalent to a previous board of the list, by the hash of the canonical
+     * form of their initial cells. The canonical forms are computed on all the cores.
+     * @return          The first board of each class, in the order of the list.
+     * @throws IllegalArgumentException if a board has fewer than PuzzleCanonicalizer.MIN_GIVENS
+     *                  givens.
+     */
+    public static Result<GameBoard> distinct( List<GameBoard> boards ) {
+        return distinct( boards, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Drop the equivalent boards with the given number of threads.
+     */
+    public static Result<GameBoard> distinct( final List<GameBoard> boards, int threads ) {
+        final ThreadLocal<PuzzleCanonicalizer> canonicalizers = new ThreadLocal<PuzzleCanonicalizer>() {
+            @Override
+            protected PuzzleCanonicalizer initialValue() {
+                return new PuzzleCanonicalizer();
+            }
+        };
+        Result<Long> hashes = run( boards.size(), threads, new Worker<Long>() {
+            @Override
+            public Long process( int index ) {
+                return canonicalizers.get().hash( boards.get( index ).getGivens() );
+            }
+        } );
+
+        LongHashSet seen = new LongHashSet( boards.size() );
+        List<GameBoard> distinct = new ArrayList<>();
+        for ( int i = 0; i < boards.size(); i++ ) {
+            if ( seen.add( hashes.items.get( i ) ) ) distinct.add( boards.get( i ) );
+        }
+        return new Result<>( Collections.unmodifiableList( distinct ), hashes.elapsedNanos, threads );
+    }
+
+    /**
+     * Return the seed of the grid at the given index of a batch (SplitMix64 finalizer).
+     */
+    static long seedOf( long seed, int index ) {
+        long z = seed + ( index + 1 ) * 0x9E3779B97F4A7C15L;
+        z = ( z ^ ( z >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+        z = ( z ^ ( z >>> 27 ) ) * 0x94D049BB133111EBL;
+        return z ^ ( z >>> 31 );
+    }
+
+    private static <T> Result<T> run( final int count, int threads, final Worker<T> worker ) {
+        if ( count < 0 ) throw new IllegalArgumentException( "Negative count: " + count );
+        if ( threads < 1 ) throw new IllegalArgumentException( "Bad thread count: " + threads );
+
+        final Object [] results = new Object[ count ];
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try {
+            int chunkSize = Math.max( 1, ( count + threads * CHUNKS_PER_THREAD - 1 )
+                    / ( threads * CHUNKS_PER_THREAD ) );
+            List<Future<Void>> futures = new ArrayList<>();
+            for ( int from = 0; from < count; from += chunkSize ) {
+                final int first = from;
+                final int last = Math.min( count, from + chunkSize );
+                futures.add( executor.submit( new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for ( int i = first; i < last; i++ ) results[i] = worker.process( i );
+                        return null;
+                    }
+                } ) );
+            }
+            for ( Future<Void> future : futures ) future.get();
+        } catch ( InterruptedException exception ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Batch interrupted", exception );
+        } catch ( ExecutionException exception ) {
+            throw new IllegalStateException( "Batch failed", exception.getCause() );
+        } finally {
+            executor.shutdownNow();
+        }
+
+        @SuppressWarnings( "unchecked" )
+        List<T> items = (List<T>) Collections.unmodifiableList( Arrays.asList( results ) );
+        return new Result<>( items, System.nanoTime() - start, threads );
+    }
+
+}
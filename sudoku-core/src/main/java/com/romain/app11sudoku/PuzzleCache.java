@@ -0,0 +1,134 @@
+package com.romain.app11sudoku;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of the solutions and the grades of the grids, keyed by the hash of their
+ * canonical form: a grid equivalent to a grid already seen (relabelled, transposed, with rows
+ * or columns swapped) is neither solved nor graded again. The least recently used entries are
+ * dropped once the capacity is reached.
+ * <p>
+ * The solution is stored in the canonical space and moved back to the space of the requested
+ * grid. The canonical givens are kept as well, so that a collision of the hashes is a miss.
+ * A grid with too few givens to be canonicalized quickly (and to have a unique solution) is
+ * solved or graded without being cached.
+ * The methods are synchronized: a cache can be shared by several threads, which then wait for
+ * each other.
+ */
+public class PuzzleCache {
+
+    private static class CachedGrid {
+        final byte [] givens;
+        final byte [] solution;     // null if the grid has no solution
+        GameLevel level;            // null until the grid is graded
+
+        CachedGrid( byte [] givens, byte [] solution ) {
+            this.givens = givens;
+            this.solution = solution;
+        }
+    }
+
+    private final LinkedHashMap<Long, CachedGrid> entries;
+    private final PuzzleCanonicalizer canonicalizer = new PuzzleCanonicalizer();
+    private final SudokuSolver solver = new SudokuSolver();
+    private DifficultyGrader grader;
+    private final int [] canonical = new int[ GameBoard.CELL_COUNT ];
+    private final int [] scratch = new int[ GameBoard.CELL_COUNT ];
+    private long hits;
+    private long misses;
+
+    /**
+     * The class constructor
+     * @param capacity  The maximum number of grids kept.
+     */
+    public PuzzleCache( final int capacity ) {
+        if ( capacity < 1 ) throw new IllegalArgumentException( "Bad capacity: " + capacity );
+        this.entries = new LinkedHashMap<Long, CachedGrid>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<Long, CachedGrid> eldest ) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Solve a grid.
+     * @param givens    The 81 values of the grid, 0 for an empty cell.
+     * @return          A new array with the solution, or null if the grid has no solution.
+     */
+    public synchronized int [] solve( int [] givens ) {
+        if ( PuzzleCanonicalizer.givenCount( givens ) < PuzzleCanonicalizer.MIN_GIVENS ) {
+            int [] solution = givens.clone();
+            return solver.solve( solution ) ? solution : null;
+        }
+        CachedGrid entry = lookup( givens );
+        if ( entry.solution == null ) return null;
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) scratch[i] = entry.solution[i];
+        return canonicalizer.fromCanonical( scratch, new int[ GameBoard.CELL_COUNT ] );
+    }
+
+    /**
+     * Grade a grid with a DifficultyGrader.
+     * @throws IllegalArgumentException if two givens are in conflict.
+     */
+    public synchronized GameLevel grade( int [] givens ) {
+        if ( grader == null ) grader = new DifficultyGrader();
+        if ( PuzzleCanonicalizer.givenCount( givens ) < PuzzleCanonicalizer.MIN_GIVENS ) return grader.grade( givens );
+        CachedGrid entry = lookup( givens );
+        if ( entry.level == null ) {
+            // Equivalent grids need the same techniques: grade the canonical grid
+            entry.level = grader.grade( canonical );
+        }
+        return entry.level;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    // Find or create the entry of a grid, and leave its canonical form in canonical
+    private CachedGrid lookup( int [] givens ) {
+        long hash = PuzzleCanonicalizer.hashOf( canonicalizer.canonicalize( givens, canonical ) );
+        CachedGrid entry = entries.get( hash );
+        if ( entry != null && sameGivens( entry.givens ) ) {
+            hits++;
+            return entry;
+        }
+
+        misses++;
+        byte [] canonicalGivens = new byte[ GameBoard.CELL_COUNT ];
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) {
+            canonicalGivens[i] = (byte) canonical[i];
+            scratch[i] = canonical[i];
+        }
+        byte [] solution = null;
+        if ( solver.solve( scratch ) ) {
+            solution = new byte[ GameBoard.CELL_COUNT ];
+            for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) solution[i] = (byte) scratch[i];
+        }
+        entry = new CachedGrid( canonicalGivens, solution );
+        entries.put( hash, entry );
+        return entry;
+    }
+
+    private boolean sameGivens( byte [] givens ) {
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) {
+            if ( givens[i] != canonical[i] ) return false;
+        }
+        return true;
+    }
+
+}
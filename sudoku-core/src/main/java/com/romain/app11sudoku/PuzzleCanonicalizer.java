@@ -0,0 +1,344 @@
+package com.romain.app11sudoku;
+
+/**
+ * Map a grid to a canonical form shared by all the grids equivalent under the symmetries of
+ * Sudoku: transposition, permutation of the bands and of the stacks, permutation of the rows
+ * within a band and of the columns within a stack, and relabelling of the digits.
+ * <p>
+ * The canonical form is the lexicographically smallest transformed grid (an empty cell being
+ * 0), the digits being relabelled in the order of their first appearance. It is found by a
+ * branch and bound over the rows, for each transposition and each of the 1296 permutations of
+ * the columns: a branch is dropped as soon as its first rows are greater than the best grid.
+ * On a sparse grid almost no branch can be dropped, so grids with fewer than MIN_GIVENS givens
+ * are rejected.
+ * <p>
+ * The transformation found for the last grid is kept, so that a grid (a solution, for instance)
+ * can be moved to and from the canonical space. A canonicalizer is not thread safe.
+ */
+public class PuzzleCanonicalizer {
+
+    private static final int SIZE = GameBoard.SIZE;
+    private static final int CELL_COUNT = GameBoard.CELL_COUNT;
+    private static final int WORST = SIZE + 1;
+
+    /**
+     * The smallest number of givens of a puzzle with a unique solution.
+     */
+    public static final int MIN_GIVENS = 17;
+
+    // The 6 orders of 3 items, and the 1296 permutations of the columns which keep the stacks:
+    // the permutation ((s * 6 + a) * 6 + b) * 6 + c takes the stacks in the order s, and the
+    // columns of the first, second and third stacks in the orders a, b and c
+    private static final int [][] ORDERS = { { 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 } };
+    private static final int PERMUTATION_COUNT = 6 * 6 * 6 * 6;
+    private static final byte [] COLUMN_PERMUTATIONS = new byte[ PERMUTATION_COUNT * SIZE ];
+    // The pattern of 3 bits obtained by reordering a pattern of 3 bits: [order][pattern]
+    private static final int [][] REORDERED = new int[ 6 ][ 8 ];
+    static {
+        int p = 0;
+        for ( int [] stacks : ORDERS ) {
+            for ( int [] first : ORDERS ) {
+                for ( int [] second : ORDERS ) {
+                    for ( int [] third : ORDERS ) {
+                        int [][] inner = { first, second, third };
+                        for ( int c = 0; c < SIZE; c++ ) {
+                            COLUMN_PERMUTATIONS[ p * SIZE + c ] = (byte) ( stacks[ c / 3 ] * 3 + inner[ c / 3 ][ c % 3 ] );
+                        }
+                        p++;
+                    }
+                }
+            }
+        }
+        for ( int order = 0; order < 6; order++ ) {
+            for ( int pattern = 0; pattern < 8; pattern++ ) {
+                for ( int k = 0; k < 3; k++ ) {
+                    int bit = pattern >> ( 2 - ORDERS[order][k] ) & 1;
+                    REORDERED[order][pattern] |= bit << ( 2 - k );
+                }
+            }
+        }
+    }
+
+    // The grid being canonicalized, and its transposition
+    private final int [][] sources = new int[ 2 ][ CELL_COUNT ];
+    private final int [] columns = new int[ SIZE ];
+
+    // The state of the search, per depth (canonical row)
+    private final int [] current = new int[ CELL_COUNT ];
+    private final int [] rows = new int[ SIZE ];
+    private final int [][] labels = new int[ SIZE + 1 ][ SIZE + 1 ];
+    private final int [] nextLabels = new int[ SIZE + 1 ];
+
+    // The best grid found so far, and its transformation
+    private final int [] best = new int[ CELL_COUNT ];
+    private boolean bestTransposed;
+    private final int [] bestRows = new int[ SIZE ];
+    private final int [] bestColumns = new int[ SIZE ];
+    private final int [] bestLabels = new int[ SIZE + 1 ];
+    private final int [] canonical = new int[ CELL_COUNT ];
+
+    private int source;
+    private int firstRow;
+    private final int [] patterns = new int[ 2 * SIZE ];
+    private int bestCount;      // Number of times the best grid has been replaced
+
+    /**
+     * Return the canonical form of the givens of a board.
+     * @throws IllegalArgumentException if the board has fewer than MIN_GIVENS givens.
+     */
+    public int [] canonicalize( GameBoard board ) {
+        return canonicalize( board.getGivens(), new int[ CELL_COUNT ] );
+    }
+
+    /**
+     * Compute the canonical form of a grid.
+     * @param grid      The 81 values of the grid, 0 for an empty cell.
+     * @param out       The array which receives the canonical grid.
+     * @return          The out array.
+     * @throws IllegalArgumentException if the grid has fewer than MIN_GIVENS givens.
+     */
+    public int [] canonicalize( int [] grid, int [] out ) {
+        int givenCount = givenCount( grid );
+        if ( givenCount < MIN_GIVENS ) throw new IllegalArgumentException( "Only " + givenCount + " givens" );
+        for ( int i = 0; i < CELL_COUNT; i++ ) {
+            sources[0][i] = grid[i];
+            sources[1][i] = grid[ GameBoard.COLUMN_OF[i] * SIZE + GameBoard.ROW_OF[i] ];
+        }
+        for ( int i = 0; i < CELL_COUNT; i++ ) best[i] = WORST;
+        bestCount = 0;
+
+        // The first row of the canonical grid only depends on where its empty cells are: keep
+        // the rows and the permutations of the columns which give the smallest pattern
+        int smallest = Integer.MAX_VALUE;
+        for ( int s = 0; s < 2; s++ ) {
+            for ( int row = 0; row < SIZE; row++ ) {
+                patterns[ s * SIZE + row ] = smallestPattern( sources[s], row );
+                smallest = Math.min( smallest, patterns[ s * SIZE + row ] );
+            }
+        }
+
+        nextLabels[0] = 1;
+        for ( source = 0; source < 2; source++ ) {
+            for ( firstRow = 0; firstRow < SIZE; firstRow++ ) {
+                if ( patterns[ source * SIZE + firstRow ] != smallest ) continue;
+                searchPermutations( smallest );
+            }
+        }
+
+        completeLabels();
+        System.arraycopy( best, 0, out, 0, CELL_COUNT );
+        return out;
+    }
+
+    /**
+     * Return the number of givens of a grid.
+     */
+    static int givenCount( int [] grid ) {
+        int count = 0;
+        for ( int i = 0; i < CELL_COUNT; i++ ) {
+            if ( grid[i] != 0 ) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Return the 64 bits hash of the canonical form of a grid.
+     * @throws IllegalArgumentException if the grid has fewer than MIN_GIVENS givens.
+     */
+    public long hash( int [] grid ) {
+        return hashOf( canonicalize( grid, canonical ) );
+    }
+
+    /**
+     * Return a 64 bits hash of a grid already in canonical form.
+     */
+    public static long hashOf( int [] canonical ) {
+        long hash = 0x9E3779B97F4A7C15L;
+        long packed = 0;
+        for ( int i = 0; i < CELL_COUNT; i++ ) {
+            packed = packed << 4 | canonical[i];
+            if ( i % 16 == 15 || i == CELL_COUNT - 1 ) {
+                hash = mix( hash ^ packed );
+                packed = 0;
+            }
+        }
+        return hash;
+    }
+
+    // The finalizer of SplitMix64
+    private static long mix( long z ) {
+        z = ( z ^ ( z >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+        z = ( z ^ ( z >>> 27 ) ) * 0x94D049BB133111EBL;
+        return z ^ ( z >>> 31 );
+    }
+
+    /**
+     * Apply the transformation of the last canonicalized grid to another grid, for instance to
+     * its solution.
+     */
+    public int [] toCanonical( int [] grid, int [] out ) {
+        for ( int r = 0; r < SIZE; r++ ) {
+            for ( int c = 0; c < SIZE; c++ ) {
+                out[ r * SIZE + c ] = bestLabels[ grid[ sourceIndex( r, c ) ] ];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Apply the inverse of the transformation of the last canonicalized grid: move a grid of the
+     * canonical space (the solution of the canonical grid, for instance) back to the original one.
+     */
+    public int [] fromCanonical( int [] canonical, int [] out ) {
+        int [] digits = new int[ SIZE + 1 ];
+        for ( int digit = 0; digit <= SIZE; digit++ ) digits[ bestLabels[digit] ] = digit;
+        for ( int r = 0; r < SIZE; r++ ) {
+            for ( int c = 0; c < SIZE; c++ ) {
+                out[ sourceIndex( r, c ) ] = digits[ canonical[ r * SIZE + c ] ];
+            }
+        }
+        return out;
+    }
+
+    // The index in the original grid of the cell (r, c) of the canonical grid
+    private int sourceIndex( int r, int c ) {
+        return bestTransposed ? bestColumns[c] * SIZE + bestRows[r] : bestRows[r] * SIZE + bestColumns[c];
+    }
+
+    /**
+     * Try every row allowed at the given depth.
+     * @param depth         The canonical row to fill.
+     * @param usedRows      The mask of the rows of the source already placed.
+     * @param usedBands     The mask of the bands of the source already placed.
+     * @param less          True if the rows already placed are smaller than the best grid.
+     */
+    private void search( int depth, int usedRows, int usedBands, boolean less ) {
+        if ( depth == SIZE ) {
+            // Only reached by a grid smaller than the best one, or equal to it: keep the first one
+            if ( ! less ) return;
+            System.arraycopy( current, 0, best, 0, CELL_COUNT );
+            bestTransposed = source == 1;
+            System.arraycopy( rows, 0, bestRows, 0, SIZE );
+            System.arraycopy( columns, 0, bestColumns, 0, SIZE );
+            System.arraycopy( labels[depth], 0, bestLabels, 0, SIZE + 1 );
+            bestCount++;
+            return;
+        }
+
+        int fromRow, toRow;
+        if ( depth == 0 ) {
+            fromRow = firstRow;
+            toRow = firstRow + 1;
+        } else if ( depth % 3 == 0 ) {
+            fromRow = 0;
+            toRow = SIZE;
+        } else {
+            // The other rows of the band chosen at the start of the band
+            fromRow = rows[ depth - depth % 3 ] / 3 * 3;
+            toRow = fromRow + 3;
+        }
+
+        int [] grid = sources[source];
+        int [] previousLabels = labels[depth];
+        int [] rowLabels = labels[ depth + 1 ];
+        for ( int row = fromRow; row < toRow; row++ ) {
+            if ( ( usedRows & 1 << row ) != 0 || ( depth % 3 == 0 && ( usedBands & 1 << row / 3 ) != 0 ) ) continue;
+
+            // Relabel the row and compare it to the row of the best grid
+            System.arraycopy( previousLabels, 0, rowLabels, 0, SIZE + 1 );
+            int nextLabel = nextLabels[depth];
+            boolean rowLess = less;
+            boolean greater = false;
+            int offset = depth * SIZE;
+            for ( int c = 0; c < SIZE; c++ ) {
+                int digit = grid[ row * SIZE + columns[c] ];
+                int value = 0;
+                if ( digit != 0 ) {
+                    value = rowLabels[digit];
+                    if ( value == 0 ) {
+                        value = nextLabel++;
+                        rowLabels[digit] = value;
+                    }
+                }
+                if ( ! rowLess ) {
+                    int bestValue = best[ offset + c ];
+                    if ( value > bestValue ) {
+                        greater = true;
+                        break;
+                    }
+                    if ( value < bestValue ) rowLess = true;
+                }
+                current[ offset + c ] = value;
+            }
+            if ( greater ) continue;
+
+            rows[depth] = row;
+            nextLabels[ depth + 1 ] = nextLabel;
+            int count = bestCount;
+            search( depth + 1, usedRows | 1 << row, usedBands | 1 << row / 3, rowLess );
+            // A new best grid shares the rows placed so far: the next rows compare to it again
+            if ( bestCount != count ) less = false;
+        }
+    }
+
+    /**
+     * Return the smallest pattern of the given cells of a row over the permutations of the
+     * columns, as a 9 bits number whose most significant bit is the first column. The digits
+     * of the first row being labelled 1, 2, 3... in order, the smallest first row is the one
+     * with the smallest pattern: its stacks sorted by number of givens, the empty cells first.
+     */
+    private static int smallestPattern( int [] grid, int row ) {
+        int first = 0, second = 0, third = 0;
+        for ( int c = 0; c < 3; c++ ) {
+            if ( grid[ row * SIZE + c ] != 0 ) first++;
+            if ( grid[ row * SIZE + c + 3 ] != 0 ) second++;
+            if ( grid[ row * SIZE + c + 6 ] != 0 ) third++;
+        }
+        int low = Math.min( first, Math.min( second, third ) );
+        int high = Math.max( first, Math.max( second, third ) );
+        int middle = first + second + third - low - high;
+        return ( 1 << low ) - 1 << 6 | ( 1 << middle ) - 1 << 3 | ( 1 << high ) - 1;
+    }
+
+    /**
+     * Search from each permutation of the columns which gives the pattern to the first row.
+     */
+    private void searchPermutations( int pattern ) {
+        int [] grid = sources[source];
+        int given = 0;
+        for ( int c = 0; c < SIZE; c++ ) {
+            if ( grid[ firstRow * SIZE + c ] != 0 ) given |= 1 << ( SIZE - 1 - c );
+        }
+        for ( int s = 0; s < 6; s++ ) {
+            int [] stacks = ORDERS[s];
+            for ( int a = 0; a < 6; a++ ) {
+                if ( REORDERED[a][ given >> 3 * ( 2 - stacks[0] ) & 7 ] != ( pattern >> 6 & 7 ) ) continue;
+                for ( int b = 0; b < 6; b++ ) {
+                    if ( REORDERED[b][ given >> 3 * ( 2 - stacks[1] ) & 7 ] != ( pattern >> 3 & 7 ) ) continue;
+                    for ( int c = 0; c < 6; c++ ) {
+                        if ( REORDERED[c][ given >> 3 * ( 2 - stacks[2] ) & 7 ] != ( pattern & 7 ) ) continue;
+                        int p = ( ( s * 6 + a ) * 6 + b ) * 6 + c;
+                        for ( int i = 0; i < SIZE; i++ ) columns[i] = COLUMN_PERMUTATIONS[ p * SIZE + i ];
+                        search( 0, 0, 0, false );
+                    }
+                }
+            }
+        }
+    }
+
+    // Give a label to the digits absent from the grid, so that the relabelling is a bijection
+    private void completeLabels() {
+        int used = 0;
+        for ( int digit = 1; digit <= SIZE; digit++ ) {
+            if ( bestLabels[digit] != 0 ) used |= 1 << bestLabels[digit];
+        }
+        int label = 1;
+        for ( int digit = 1; digit <= SIZE; digit++ ) {
+            if ( bestLabels[digit] != 0 ) continue;
+            while ( ( used & 1 << label ) != 0 ) label++;
+            bestLabels[digit] = label;
+            used |= 1 << label;
+        }
+    }
+
+}
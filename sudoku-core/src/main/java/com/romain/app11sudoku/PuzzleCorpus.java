@@ -0,0 +1,127 @@
+package com.romain.app11sudoku;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only library of puzzles, stored in a file of fixed-size records and memory-mapped,
+ * so that the puzzle N of a level is read in O(1) without loading the file onto the heap.
+ * <p>
+ * The file starts with a header: the magic number, the version of the format, the size of a
+ * record and the number of levels, then for each level the offset of its first record (8 bytes)
+ * and its number of records (4 bytes). The records of a level are contiguous. A record holds
+ * the 81 givens of a puzzle, two cells per byte (the even cell in the low nibble), 0 being an
+ * empty cell: 41 bytes per puzzle.
+ * <p>
+ * The file is built by PuzzleCorpusWriter. A corpus can be read by several threads at once.
+ * The mapping is limited to 2 GB, about 50 millions of puzzles.
+ */
+public class PuzzleCorpus implements Closeable {
+
+    static final int MAGIC = 0x53444B43;            // "SDKC"
+    static final byte VERSION = 1;
+    static final int RECORD_SIZE = ( GameBoard.CELL_COUNT + 1 ) / 2;
+    static final int INDEX_ENTRY_SIZE = 8 + 4;
+    static final int HEADER_SIZE = 4 + 1 + 1 + 1 + 1 + GameLevel.values().length * INDEX_ENTRY_SIZE;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int [] offsets = new int[ GameLevel.values().length ];
+    private final int [] counts = new int[ GameLevel.values().length ];
+
+    /**
+     * Map a corpus file.
+     * @throws IOException if the file cannot be read or is not a valid corpus.
+     */
+    public PuzzleCorpus( File path ) throws IOException {
+        file = new RandomAccessFile( path, "r" );
+        try {
+            FileChannel channel = file.getChannel();
+            long length = channel.size();
+            if ( length > Integer.MAX_VALUE ) throw new IOException( "Corpus too large: " + length + " bytes" );
+            if ( length < HEADER_SIZE ) throw new IOException( "Not a puzzle corpus: " + path );
+            buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, length );
+            readHeader( length );
+        } catch ( IOException exception ) {
+            file.close();
+            throw exception;
+        }
+    }
+
+    private void readHeader( long length ) throws IOException {
+        if ( buffer.getInt( 0 ) != MAGIC ) throw new IOException( "Not a puzzle corpus" );
+        if ( buffer.get( 4 ) != VERSION ) throw new IOException( "Unknown corpus version " + buffer.get( 4 ) );
+        if ( buffer.get( 5 ) != RECORD_SIZE || buffer.get( 6 ) != offsets.length ) {
+            throw new IOException( "Unsupported corpus layout" );
+        }
+        for ( int level = 0; level < offsets.length; level++ ) {
+            int entry = 8 + level * INDEX_ENTRY_SIZE;
+            long offset = buffer.getLong( entry );
+            int count = buffer.getInt( entry + 8 );
+            if ( offset < HEADER_SIZE || count < 0 || offset + (long) count * RECORD_SIZE > length ) {
+                throw new IOException( "Corrupted index for level " + GameLevel.values()[level] );
+            }
+            offsets[level] = (int) offset;
+            counts[level] = count;
+        }
+    }
+
+    /**
+     * Return the number of puzzles of a level.
+     */
+    public int size( GameLevel level ) {
+        return counts[ level.ordinal() ];
+    }
+
+    /**
+     * Read the givens of a puzzle into an array, without any allocation.
+     * @param level     The level of the puzzle.
+     * @param n         The index of the puzzle in its level.
+     * @param givens    The array of 81 values to fill, 0 for an empty cell.
+     * @return          The givens array.
+     */
+    public int [] getGivens( GameLevel level, int n, int [] givens ) {
+        int count = counts[ level.ordinal() ];
+        if ( n < 0 || n >= count ) throw new IndexOutOfBoundsException( "Puzzle " + n + " of " + count );
+        int record = offsets[ level.ordinal() ] + n * RECORD_SIZE;
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i += 2 ) {
+            // Absolute reads: the position of the shared buffer is never changed
+            int pair = buffer.get( record + ( i >> 1 ) );
+            givens[i] = pair & 0xF;
+            if ( i + 1 < GameBoard.CELL_COUNT ) givens[ i + 1 ] = pair >> 4 & 0xF;
+        }
+        return givens;
+    }
+
+    /**
+     * Build the board of a puzzle. The solution is computed by the solver.
+     * @throws IllegalArgumentException if the stored puzzle has no solution.
+     */
+    public GameBoard getGameBoard( GameLevel level, int n ) {
+        return GameBoard.fromGivens( level, getGivens( level, n, new int[ GameBoard.CELL_COUNT ] ) );
+    }
+
+    /**
+     * Pack the givens of a puzzle into a record.
+     */
+    static void encode( int [] givens, ByteBuffer record ) {
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i += 2 ) {
+            int high = i + 1 < GameBoard.CELL_COUNT ? givens[ i + 1 ] : 0;
+            record.put( (byte) ( givens[i] | high << 4 ) );
+        }
+    }
+
+    /**
+     * Release the file. The mapping itself is released by the garbage collector.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+}
@@ -0,0 +1,243 @@
+package com.romain.app11sudoku;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Build a PuzzleCorpus file from a stream of puzzles. The records of each level are spooled
+ * into a temporary file, then the header and the levels are concatenated on close: the memory
+ * used does not depend on the number of puzzles.
+ * <p>
+ * The text format has one puzzle per line: 81 characters, a digit for a given and '0' or '.'
+ * for an empty cell, optionally followed by the name of the level. A puzzle without level is
+ * graded by a DifficultyGrader. Blank lines and lines starting with '#' are ignored.
+ * Every puzzle must have one, and only one, solution. Optionally, the puzzles equivalent to a
+ * puzzle already written are dropped.
+ * <p>
+ * The command line tool is PuzzleImporter, in sudoku-tools.
+ */
+public class PuzzleCorpusWriter implements Closeable {
+
+    private final File output;
+    private final File [] spoolFiles = new File[ GameLevel.values().length ];
+    private final OutputStream [] spools = new OutputStream[ GameLevel.values().length ];
+    private final int [] counts = new int[ GameLevel.values().length ];
+    private final ByteBuffer record = ByteBuffer.allocate( PuzzleCorpus.RECORD_SIZE );
+    private final int [] givens = new int[ GameBoard.CELL_COUNT ];
+    private SudokuSolver solver;
+    private PuzzleCache cache;
+    private LongHashSet seen;
+    private PuzzleCanonicalizer canonicalizer;
+    private int duplicateCount;
+    private boolean closed;
+
+    public PuzzleCorpusWriter( File output ) throws IOException {
+        this.output = output;
+        try {
+            for ( int level = 0; level < spools.length; level++ ) {
+                spoolFiles[level] = File.createTempFile( "corpus-" + level + "-", ".tmp", output.getAbsoluteFile().getParentFile() );
+                spools[level] = new BufferedOutputStream( new FileOutputStream( spoolFiles[level] ), 1 << 16 );
+            }
+        } catch ( IOException exception ) {
+            deleteSpools();
+            throw exception;
+        }
+    }
+
+    /**
+     * Drop the puzzles equivalent to a puzzle already added, by the hash of their canonical form.
+     */
+    public void setDistinct( boolean distinct ) {
+        if ( distinct && seen == null ) {
+            seen = new LongHashSet();
+            canonicalizer = new PuzzleCanonicalizer();
+        } else if ( ! distinct ) {
+            seen = null;
+        }
+    }
+
+    /**
+     * Return the number of puzzles dropped because they were equivalent to a previous one.
+     */
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * Add a puzzle to a level.
+     * @param givens    The 81 values of the grid, 0 for an empty cell.
+     * @return          False if the puzzle has been dropped as a duplicate.
+     * @throws IllegalArgumentException if the puzzle has no solution or several.
+     */
+    public boolean add( GameLevel level, int [] givens ) throws IOException {
+        checkValues( givens );
+        checkUniqueSolution( givens );
+        return addChecked( level, givens );
+    }
+
+    /**
+     * Add a puzzle whose solution is already known to be unique, as checked by PuzzleImporter.
+     */
+    boolean addChecked( GameLevel level, int [] givens ) throws IOException {
+        if ( closed ) throw new IllegalStateException( "Writer closed" );
+        checkValues( givens );
+        if ( counts[ level.ordinal() ] == Integer.MAX_VALUE ) throw new IllegalStateException( "Too many puzzles" );
+        if ( seen != null && ! seen.add( canonicalizer.hash( givens ) ) ) {
+            duplicateCount++;
+            return false;
+        }
+        record.clear();
+        PuzzleCorpus.encode( givens, record );
+        spools[ level.ordinal() ].write( record.array(), 0, PuzzleCorpus.RECORD_SIZE );
+        counts[ level.ordinal() ]++;
+        return true;
+    }
+
+    /**
+     * Add a puzzle given in the text format.
+     * @return          False if the puzzle has been dropped as a duplicate.
+     * @throws IllegalArgumentException if the line is not a valid puzzle.
+     */
+    public boolean add( String line ) throws IOException {
+        if ( line.length() < GameBoard.CELL_COUNT ) throw new IllegalArgumentException( "Line too short" );
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) {
+            char c = line.charAt( i );
+            if ( c >= '0' && c <= '9' ) {
+                givens[i] = c - '0';
+            } else if ( c == '.' ) {
+                givens[i] = 0;
+            } else {
+                throw new IllegalArgumentException( "Bad character '" + c + "' at column " + ( i + 1 ) );
+            }
+        }
+
+        // Checked before grading: the grader needs a puzzle with a solution
+        checkUniqueSolution( givens );
+        String levelName = line.substring( GameBoard.CELL_COUNT ).trim();
+        GameLevel level;
+        if ( levelName.isEmpty() ) {
+            // The same puzzle is often found several times, relabelled or transposed
+            if ( cache == null ) cache = new PuzzleCache( 1 << 12 );
+            level = cache.grade( givens );
+        } else {
+            level = GameLevel.valueOf( levelName.toUpperCase( Locale.ROOT ) );
+        }
+        return addChecked( level, givens );
+    }
+
+    private static void checkValues( int [] givens ) {
+        if ( givens.length != GameBoard.CELL_COUNT ) throw new IllegalArgumentException( "Bad grid size " + givens.length );
+        for ( int value : givens ) {
+            if ( value < 0 || value > GameBoard.SIZE ) throw new IllegalArgumentException( "Bad value " + value );
+        }
+    }
+
+    private void checkUniqueSolution( int [] givens ) {
+        if ( solver == null ) solver = new SudokuSolver();
+        int solutions = solver.countSolutions( givens, 2 );
+        if ( solutions == 0 ) throw new IllegalArgumentException( "No solution" );
+        if ( solutions > 1 ) throw new IllegalArgumentException( "Several solutions" );
+    }
+
+    /**
+     * Add all the puzzles of a text stream.
+     * @throws IllegalArgumentException if a line is not a valid puzzle, with its line number.
+     */
+    public void addAll( Reader reader ) throws IOException {
+        BufferedReader lines = new BufferedReader( reader, 1 << 16 );
+        String line;
+        int lineNumber = 0;
+        while ( ( line = lines.readLine() ) != null ) {
+            lineNumber++;
+            line = line.trim();
+            if ( line.isEmpty() || line.charAt( 0 ) == '#' ) continue;
+            try {
+                add( line );
+            } catch ( IllegalArgumentException exception ) {
+                throw new IllegalArgumentException( "Line " + lineNumber + ": " + exception.getMessage(), exception );
+            }
+        }
+    }
+
+    /**
+     * Return the number of puzzles added to a level.
+     */
+    public int size( GameLevel level ) {
+        return counts[ level.ordinal() ];
+    }
+
+    /**
+     * Write the corpus file and delete the temporary files.
+     */
+    @Override
+    public void close() throws IOException {
+        if ( closed ) return;
+        closed = true;
+        try {
+            for ( OutputStream spool : spools ) spool.close();
+
+            OutputStream out = new BufferedOutputStream( new FileOutputStream( output ), 1 << 16 );
+            try {
+                ByteBuffer header = ByteBuffer.allocate( PuzzleCorpus.HEADER_SIZE );
+                header.putInt( PuzzleCorpus.MAGIC );
+                header.put( PuzzleCorpus.VERSION );
+                header.put( (byte) PuzzleCorpus.RECORD_SIZE );
+                header.put( (byte) counts.length );
+                header.put( (byte) 0 );
+                long offset = PuzzleCorpus.HEADER_SIZE;
+                for ( int count : counts ) {
+                    header.putLong( offset );
+                    header.putInt( count );
+                    offset += (long) count * PuzzleCorpus.RECORD_SIZE;
+                }
+                out.write( header.array() );
+
+                byte [] chunk = new byte[ 1 << 16 ];
+                for ( File spoolFile : spoolFiles ) {
+                    InputStream in = new BufferedInputStream( new FileInputStream( spoolFile ) );
+                    try {
+                        int read;
+                        while ( ( read = in.read( chunk ) ) != -1 ) out.write( chunk, 0, read );
+                    } finally {
+                        in.close();
+                    }
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            deleteSpools();
+        }
+    }
+
+    /**
+     * Give up the corpus: delete the temporary files without writing the output.
+     */
+    public void abort() {
+        closed = true;
+        deleteSpools();
+    }
+
+    private void deleteSpools() {
+        for ( int level = 0; level < spools.length; level++ ) {
+            try {
+                if ( spools[level] != null ) spools[level].close();
+            } catch ( IOException ignored ) {
+                // The file is deleted anyway
+            }
+            if ( spoolFiles[level] != null ) spoolFiles[level].delete();
+        }
+    }
+
+}
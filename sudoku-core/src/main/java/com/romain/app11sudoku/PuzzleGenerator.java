@@ -0,0 +1,246 @@
+package com.romain.app11sudoku;
+
+import java.util.Random;
+
+/**
+ * This class produce new grids to solve. A full solution is first built at random, then the
+ * clues are removed one by one, in a random order, as long as the grid keeps a unique solution
+ * and the number of clues targeted for the level is not reached. The 9x9 grids are then
+ * checked by the DifficultyGrader, so that the level of a grid is the one it really has.
+ * For a given seed, the generator always produces the same sequence of grids.
+ * A generator produces the grids of one BoardShape, the classic 9x9 grid by default.
+ * A generator is not thread safe: use one instance per thread.
+ */
+public class PuzzleGenerator {
+
+    /**
+     * The number of grids tried by generate(GameLevel) to match the level of a 9x9 grid.
+     */
+    public static final int MAX_ATTEMPTS = 200;
+
+    private final BoardShape shape;
+    private final int size;
+    private final int blockSize;
+    private final int cellCount;
+
+    private final Random random;
+    private final SudokuSolver solver;
+    private DifficultyGrader grader;
+
+    // Working arrays, reused for each grid
+    private final int [] solution;
+    private final int [] puzzle;
+    private final int [] shuffled;
+    private final int [] order;
+    private final int [] digits;
+    private final int [] rows;
+    private final int [] columns;
+    private final int [] bands;
+
+    /**
+     * The class constructor, for the classic 9x9 grids.
+     * @param seed      The seed of the random generator.
+     */
+    public PuzzleGenerator( long seed ) {
+        this( BoardShape.STANDARD, seed );
+    }
+
+    /**
+     * The class constructor
+     * @param shape     The geometry of the grids.
+     * @param seed      The seed of the random generator.
+     */
+    public PuzzleGenerator( BoardShape shape, long seed ) {
+        this.shape = shape;
+        this.size = shape.getSize();
+        this.blockSize = shape.getBlockSize();
+        this.cellCount = shape.getCellCount();
+        this.random = new Random( seed );
+        this.solver = new SudokuSolver( shape );
+        this.solution = new int[ cellCount ];
+        this.puzzle = new int[ cellCount ];
+        this.shuffled = new int[ cellCount ];
+        this.order = new int[ cellCount ];
+        this.digits = new int[ size + 1 ];
+        this.rows = new int[ size ];
+        this.columns = new int[ size ];
+        this.bands = new int[ blockSize ];
+    }
+
+    /**
+     * Reset the random generator: the next grids are the same as the ones of a new generator
+     * created with this seed.
+     */
+    public void setSeed( long seed ) {
+        random.setSeed( seed );
+    }
+
+    /**
+     * Return the number of clues targeted for a level. For the EVIL level, the clues are
+     * removed until none can be removed anymore.
+     */
+    public static int getTargetClues( GameLevel level ) {
+        switch ( level ) {
+            case VERY_EASY: return 46;
+            case EASY:      return 40;
+            case MEDIUM:    return 33;
+            case HARD:      return 28;
+            default:        return 0;
+        }
+    }
+
+    /**
+     * Return the number of clues targeted for a level, for the grids of a shape: the same
+     * proportion of the cells as for a 9x9 grid.
+     */
+    public static int getTargetClues( BoardShape shape, GameLevel level ) {
+        return getTargetClues( level ) * shape.getCellCount() / GameBoard.CELL_COUNT;
+    }
+
+    /**
+     * Produce a new grid with a unique solution. A 9x9 grid is graded by the
+     * DifficultyGrader and matches the level, as long as one is found in MAX_ATTEMPTS grids
+     * (see generate(GameLevel, int)). The grids of the other shapes only have the number of
+     * clues of the level.
+     * @param level     The level of the grid.
+     * @return          A new grid to solve.
+     */
+    public GameBoard generate( GameLevel level ) {
+        if ( shape == BoardShape.STANDARD ) return generate( level, MAX_ATTEMPTS );
+        generateSolution();
+        removeClues( getTargetClues( shape, level ) );
+        return newBoard( level );
+    }
+
+    /**
+     * Produce a new grid whose difficulty, as measured by the DifficultyGrader, matches the
+     * level. The clues are removed down to the target of the level; while the grid is still
+     * too easy, more clues are removed, except the ones whose removal makes it too hard.
+     * Another grid is tried if the level is missed. The grader only handles 9x9 grids.
+     * @param level         The level of the grid.
+     * @param maxAttempts   The maximum number of grids to generate.
+     * @return              A grid of this level or, if none has been found, the last grid
+     *                      generated, labelled with its real level.
+     * @throws UnsupportedOperationException if the grids are not 9x9 grids.
+     */
+    public GameBoard generate( GameLevel level, int maxAttempts ) {
+        if ( shape != BoardShape.STANDARD ) {
+            throw new UnsupportedOperationException( "No grader for a " + shape + " grid" );
+        }
+        if ( grader == null ) grader = new DifficultyGrader();
+        GameLevel grade = null;
+        for ( int attempt = 0; attempt < maxAttempts && grade != level; attempt++ ) {
+            generateSolution();
+            int next = removeClues( getTargetClues( level ) );
+            grade = grader.grade( puzzle );
+            for ( ; next < cellCount && grade.compareTo( level ) < 0; next++ ) {
+                int cell = order[next];
+                int value = puzzle[cell];
+                puzzle[cell] = 0;
+                if ( solver.countSolutions( puzzle, 2 ) != 1 ) {
+                    puzzle[cell] = value;
+                    continue;
+                }
+                GameLevel harder = grader.grade( puzzle );
+                if ( harder.compareTo( level ) > 0 ) {
+                    puzzle[cell] = value;
+                } else {
+                    grade = harder;
+                }
+            }
+        }
+        return newBoard( grade );
+    }
+
+    /**
+     * Remove the clues of the solution in a random order, while the solution stays unique,
+     * down to a number of clues. The puzzle array receives the grid.
+     * @return  The position in the order array of the next clue to try.
+     */
+    private int removeClues( int target ) {
+        System.arraycopy( solution, 0, puzzle, 0, cellCount );
+        for ( int i = 0; i < cellCount; i++ ) order[i] = i;
+        shuffle( order, cellCount );
+
+        int clues = cellCount;
+        int i = 0;
+        for ( ; i < cellCount && clues > target; i++ ) {
+            int cell = order[i];
+            int value = puzzle[cell];
+            puzzle[cell] = 0;
+            if ( solver.countSolutions( puzzle, 2 ) == 1 ) {
+                clues--;
+            } else {
+                puzzle[cell] = value;
+            }
+        }
+        return i;
+    }
+
+    private GameBoard newBoard( GameLevel level ) {
+        boolean [] initials = new boolean[ cellCount ];
+        for ( int i = 0; i < cellCount; i++ ) initials[i] = puzzle[i] != 0;
+        return new GameBoard( shape, level, solution, initials );
+    }
+
+    /**
+     * Build a random full grid into the solution array. The diagonal blocks are
+     * independent: they are filled at random, then the solver completes the grid (the blocks
+     * are filled again in the rare cases where it cannot, which never happen on a 9x9 grid).
+     * The rows, columns and digits are finally shuffled to spread the randomness over the
+     * whole grid.
+     */
+    private void generateSolution() {
+        do {
+            for ( int i = 0; i < cellCount; i++ ) solution[i] = 0;
+            for ( int block = 0; block < size; block += blockSize + 1 ) {
+                for ( int i = 0; i < size; i++ ) digits[i] = i + 1;
+                shuffle( digits, size );
+                for ( int i = 0; i < size; i++ ) solution[ shape.blockCell( block, i ) ] = digits[i];
+            }
+        } while ( ! solver.solve( solution ) );
+
+        // Digits relabelling, rows and columns permutations (inside their bands and stacks,
+        // and bands and stacks themselves)
+        digits[0] = 0;
+        for ( int i = 1; i <= size; i++ ) digits[i] = i;
+        shuffle( digits, 1, size );
+        shuffleLines( rows );
+        shuffleLines( columns );
+        for ( int y = 0; y < size; y++ ) {
+            for ( int x = 0; x < size; x++ ) {
+                shuffled[ y * size + x ] = digits[ solution[ rows[y] * size + columns[x] ] ];
+            }
+        }
+        System.arraycopy( shuffled, 0, solution, 0, cellCount );
+    }
+
+    /**
+     * Produce a random permutation of the lines which keeps the blocks structure.
+     */
+    private void shuffleLines( int [] lines ) {
+        for ( int band = 0; band < blockSize; band++ ) bands[band] = band;
+        shuffle( bands, blockSize );
+        for ( int band = 0; band < blockSize; band++ ) {
+            for ( int i = 0; i < blockSize; i++ ) {
+                lines[ band * blockSize + i ] = bands[band] * blockSize + i;
+            }
+            shuffle( lines, band * blockSize, blockSize );
+        }
+    }
+
+    private void shuffle( int [] array, int length ) {
+        shuffle( array, 0, length );
+    }
+
+    // Fisher-Yates shuffle of array[from .. from+length-1]
+    private void shuffle( int [] array, int from, int length ) {
+        for ( int i = length - 1; i > 0; i-- ) {
+            int j = random.nextInt( i + 1 );
+            int tmp = array[ from + i ];
+            array[ from + i ] = array[ from + j ];
+            array[ from + j ] = tmp;
+        }
+    }
+
+}
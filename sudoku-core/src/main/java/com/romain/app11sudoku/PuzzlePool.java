@@ -0,0 +1,280 @@
+package com.romain.app11sudoku;
+
+import java.util.EnumMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of ready-made grids, with a bounded queue for each level. When a queue goes under
+ * its low-water mark, a background thread generates new grids until the queue is full again.
+ * Taking a grid from the pool is O(1); if the queue is empty, the grid is generated on the
+ * calling thread. A thread which must not wait, as the UI thread, takes its grid through a
+ * listener instead. The hits and misses are counted to tune the capacity of the pool.
+ */
+public class PuzzlePool {
+
+    public static final int DEFAULT_CAPACITY = 4;
+    public static final int DEFAULT_LOW_WATER_MARK = 2;
+    // How often a request without grid ready checks that the refill of its level is still running
+    private static final long REFILL_WAIT_MILLIS = 500;
+
+    /**
+     * Receive a grid taken without blocking.
+     */
+    public interface Listener {
+        /**
+         * Called with the grid, on a thread of the pool.
+         */
+        void onTaken( GameBoard board );
+    }
+
+    private static PuzzlePool instance;
+
+    private final int capacity;
+    private final int lowWaterMark;
+
+    private final EnumMap<GameLevel, ArrayBlockingQueue<GameBoard>> queues =
+            new EnumMap<>( GameLevel.class );
+    private final EnumMap<GameLevel, AtomicBoolean> refilling = new EnumMap<>( GameLevel.class );
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+
+    // The seed of the background generator; the grids generated on a miss use the next seeds
+    private final long seed;
+    // Only used by the background thread
+    private final PuzzleGenerator generator;
+    private final ExecutorService executor;
+    // The thread of the requests which wait for a grid, started on demand
+    private final ExecutorService requests;
+
+    /**
+     * Return the pool shared by the whole application.
+     */
+    public static synchronized PuzzlePool getInstance() {
+        if ( instance == null ) {
+            instance = new PuzzlePool( DEFAULT_CAPACITY, DEFAULT_LOW_WATER_MARK );
+        }
+        return instance;
+    }
+
+    /**
+     * The class constructor
+     * @param capacity      The maximum number of grids kept for each level.
+     * @param lowWaterMark  The number of grids under which a level is refilled.
+     */
+    public PuzzlePool( int capacity, int lowWaterMark ) {
+        this( capacity, lowWaterMark, System.nanoTime() );
+    }
+
+    /**
+     * The class constructor, with a seed for the generation of the grids: the background
+     * thread generates the grids of new PuzzleGenerator( seed ), and the n-th miss the first
+     * grid of new PuzzleGenerator( seed + n ).
+     * @param capacity      The maximum number of grids kept for each level.
+     * @param lowWaterMark  The number of grids under which a level is refilled.
+     * @param seed          The seed of the generators.
+     */
+    public PuzzlePool( int capacity, int lowWaterMark, long seed ) {
+        if ( capacity < 1 || lowWaterMark < 0 || lowWaterMark > capacity ) {
+            throw new IllegalArgumentException( "Bad pool capacity: " + capacity + "/" + lowWaterMark );
+        }
+        this.capacity = capacity;
+        this.lowWaterMark = lowWaterMark;
+        this.seed = seed;
+        this.generator = new PuzzleGenerator( seed );
+        for ( GameLevel level : GameLevel.values() ) {
+            queues.put( level, new ArrayBlockingQueue<GameBoard>( capacity ) );
+            refilling.put( level, new AtomicBoolean() );
+        }
+        executor = Executors.newSingleThreadExecutor( newThreadFactory( "PuzzlePool", Thread.MIN_PRIORITY ) );
+        requests = Executors.newCachedThreadPool( newThreadFactory( "PuzzlePool-take", Thread.NORM_PRIORITY ) );
+    }
+
+    private static ThreadFactory newThreadFactory( final String name, final int priority ) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread( Runnable runnable ) {
+                Thread thread = new Thread( runnable, name );
+                thread.setDaemon( true );
+                thread.setPriority( priority );
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Take a grid from the pool. If no grid is ready for this level, a grid is generated on
+     * the calling thread. In both cases, the level is refilled in background if needed.
+     * @param level     The level of the grid.
+     * @return          A new grid to solve, which is not shared with anyone else.
+     */
+    public GameBoard take( GameLevel level ) {
+        GameBoard board = queues.get( level ).poll();
+        if ( board != null ) {
+            hits.incrementAndGet();
+        } else {
+            board = generateOnMiss( level );
+        }
+        refillIfNeeded( level );
+        return board;
+    }
+
+    /**
+     * Take a grid from the pool without blocking the calling thread. If no grid is ready for
+     * this level, the request waits for the background thread as long as it is refilling this
+     * level, rather than generating the same kind of grid at the same time; otherwise the grid
+     * is generated on the thread of the request.
+     * @param level     The level of the grid.
+     * @param listener  Receives the grid, on a thread of the pool.
+     */
+    public void take( final GameLevel level, final Listener listener ) {
+        final ArrayBlockingQueue<GameBoard> queue = queues.get( level );
+        requests.execute( new Runnable() {
+            @Override
+            public void run() {
+                refillIfNeeded( level );
+                GameBoard board = queue.poll();
+                try {
+                    // The refill may end without grid for this request: another request took it,
+                    // or the pool has been shut down
+                    while ( board == null && refilling.get( level ).get() ) {
+                        board = queue.poll( REFILL_WAIT_MILLIS, TimeUnit.MILLISECONDS );
+                    }
+                    // A grid offered between the last poll and the end of the refill
+                    if ( board == null ) board = queue.poll();
+                } catch ( InterruptedException exception ) {
+                    Thread.currentThread().interrupt();
+                }
+                if ( board != null ) {
+                    hits.incrementAndGet();
+                    refillIfNeeded( level );
+                } else {
+                    board = generateOnMiss( level );
+                }
+                listener.onTaken( board );
+            }
+        } );
+    }
+
+    /**
+     * Start the generation of the grids for all the levels which are under the low-water mark.
+     */
+    public void prefetch() {
+        for ( GameLevel level : GameLevel.values() ) refillIfNeeded( level );
+    }
+
+    /**
+     * Prefetch the grids of a single level.
+     */
+    public void prefetch( GameLevel level ) {
+        refillIfNeeded( level );
+    }
+
+    /**
+     * Drop the ready-made grids of every level, for instance when the system is low on memory.
+     * They are generated again on the next demand.
+     */
+    public void evictAll() {
+        for ( GameLevel level : GameLevel.values() ) evict( level );
+    }
+
+    /**
+     * Drop the ready-made grids of a level.
+     */
+    public void evict( GameLevel level ) {
+        queues.get( level ).clear();
+    }
+
+    public int size( GameLevel level ) {
+        return queues.get( level ).size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getLowWaterMark() {
+        return lowWaterMark;
+    }
+
+    /**
+     * Return the number of grids taken directly from the pool.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Return the number of grids generated on the calling thread because the pool was empty.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Return the number of grids generated by the background thread.
+     */
+    public long getGenerated() {
+        return generated.get();
+    }
+
+    /**
+     * Stop the background thread. The pool still works but generates every grid on demand.
+     * The grid being generated, if any, is still added to the pool.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Wait for the background thread to end, after shutdown().
+     * @return  false if the timeout has elapsed before.
+     */
+    public boolean awaitTermination( long timeout, TimeUnit unit ) throws InterruptedException {
+        return executor.awaitTermination( timeout, unit );
+    }
+
+    private GameBoard generateOnMiss( GameLevel level ) {
+        return new PuzzleGenerator( seed + misses.incrementAndGet() ).generate( level );
+    }
+
+    private void refillIfNeeded( final GameLevel level ) {
+        final ArrayBlockingQueue<GameBoard> queue = queues.get( level );
+        final AtomicBoolean running = refilling.get( level );
+        if ( queue.size() >= lowWaterMark || executor.isShutdown() ) return;
+        if ( ! running.compareAndSet( false, true ) ) return;
+
+        try {
+            executor.execute( new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while ( queue.remainingCapacity() > 0
+                                && ! Thread.currentThread().isInterrupted() ) {
+                            GameBoard board = generator.generate( level );
+                            generated.incrementAndGet();
+                            queue.offer( board );
+                        }
+                    } finally {
+                        running.set( false );
+                    }
+                    // A take() done after the loop has ended but before the flag was cleared
+                    // has not started a refill: check the level again
+                    if ( ! Thread.currentThread().isInterrupted() ) refillIfNeeded( level );
+                }
+            } );
+        } catch ( RejectedExecutionException exception ) {
+            // The pool has been shut down in the meantime
+            running.set( false );
+        }
+    }
+
+}
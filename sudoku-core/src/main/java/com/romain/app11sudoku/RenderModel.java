@@ -0,0 +1,219 @@
+package com.romain.app11sudoku;
+
+/**
+ * What the view draws for each cell of a board: its background color, its value and its marks,
+ * kept in flat arrays. The colors are worked out when the board or the selection changes, and
+ * only for the cells which can be affected, so a frame only reads the arrays.
+ * <p>
+ * The colors of a cell, by increasing priority: white, a light red in the row, column and block
+ * of the selected cell (grey for an initial cell), blue for the cells which show the value of
+ * the selected cell, and red for a value in conflict. The marks equal to the selected value are
+ * drawn in blue, the other ones in grey. The colors are ARGB values.
+ */
+public class RenderModel {
+
+    public static final int WHITE = 0xFF_FF_FF_FF;
+    public static final int SELECTED_UNITS = 0xFF_FF_F0_F0;
+    public static final int INITIAL = 0xFF_F0_F0_F0;
+    public static final int INITIAL_IN_SELECTED_UNITS = 0xFF_F4_F0_F0;
+    public static final int SAME_VALUE = 0xFF_C7_DA_F8;
+    public static final int CONFLICT = 0xFF_FF_00_00;
+    public static final int MARK = 0xFF_A0_A0_A0;
+    public static final int SELECTED_MARK = 0xFF_40_84_EF;
+
+    private final GameBoard board;
+    private final BoardShape shape;
+    private final int size;
+    private final int cellCount;
+
+    private final int [] backgrounds;
+    private final int [] values;
+    private final int [] marks;
+
+    // The selection the arrays are computed for: the index of the selected cell (-1 if none)
+    // and its value
+    private int selectedCell = -1;
+    private int selectedValue;
+
+    // The rectangle of the cells changed since the last clearDirty(), in cells
+    private int dirtyLeft;
+    private int dirtyTop;
+    private int dirtyRight;
+    private int dirtyBottom;
+
+    /**
+     * The class constructor: all the cells are computed.
+     * @param board     The board to draw.
+     */
+    public RenderModel( GameBoard board ) {
+        this.board = board;
+        this.shape = board.getShape();
+        this.size = shape.getSize();
+        this.cellCount = shape.getCellCount();
+        this.backgrounds = new int[ cellCount ];
+        this.values = new int[ cellCount ];
+        this.marks = new int[ cellCount ];
+        refresh();
+    }
+
+    public GameBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Compute all the cells again, after a change which can touch any cell of the board (the
+     * candidates filled at once, a group of moves undone).
+     */
+    public void refresh() {
+        takeSelection();
+        for ( int index = 0; index < cellCount; index++ ) compute( index );
+        dirtyLeft = 0;
+        dirtyTop = 0;
+        dirtyRight = size - 1;
+        dirtyBottom = size - 1;
+    }
+
+    /**
+     * Compute the cells which can change after a new selection, or after a change of the board
+     * done on the selected cell: the row, column and block of the old and the new selected
+     * cells (highlight, conflicts, marks of the peers) and, if the selected value has changed,
+     * the cells which show the old or the new selected value. The old and new selected cells
+     * are always marked as dirty, as their border changes.
+     */
+    public void update() {
+        int oldCell = selectedCell;
+        int oldSelectedValue = selectedValue;
+        takeSelection();
+        int newCell = selectedCell;
+
+        if ( oldCell != -1 ) updateUnitsOf( oldCell );
+        if ( newCell != -1 && newCell != oldCell ) updateUnitsOf( newCell );
+
+        if ( selectedValue != oldSelectedValue ) {
+            for ( int index = 0; index < cellCount; index++ ) {
+                int value = values[index];
+                if ( value != 0 && ( value == oldSelectedValue || value == selectedValue ) ) {
+                    // The same value highlight
+                    compute( index );
+                    addDirty( index );
+                } else if ( shows( index, oldSelectedValue ) || shows( index, selectedValue ) ) {
+                    // The color of the marks
+                    addDirty( index );
+                }
+            }
+        }
+        if ( oldCell != -1 ) addDirty( oldCell );
+        if ( newCell != -1 ) addDirty( newCell );
+    }
+
+    public int getSelectedValue() {
+        return selectedValue;
+    }
+
+    public int getBackground( int x, int y ) {
+        return backgrounds[ y * size + x ];
+    }
+
+    /**
+     * Return the value shown by a cell, 0 if none: its marks are shown instead.
+     */
+    public int getValue( int x, int y ) {
+        return values[ y * size + x ];
+    }
+
+    public int getMarks( int x, int y ) {
+        return marks[ y * size + x ];
+    }
+
+    /**
+     * Return the color of a mark: blue for the selected value, grey otherwise.
+     */
+    public int getMarkColor( int mark ) {
+        return mark == selectedValue ? SELECTED_MARK : MARK;
+    }
+
+    /**
+     * Check if a cell has changed since the last clearDirty().
+     */
+    public boolean isDirty() {
+        return dirtyRight >= dirtyLeft;
+    }
+
+    public int getDirtyLeft() {
+        return dirtyLeft;
+    }
+
+    public int getDirtyTop() {
+        return dirtyTop;
+    }
+
+    public int getDirtyRight() {
+        return dirtyRight;
+    }
+
+    public int getDirtyBottom() {
+        return dirtyBottom;
+    }
+
+    /**
+     * Forget the changed cells, once they have been invalidated.
+     */
+    public void clearDirty() {
+        dirtyLeft = size;
+        dirtyTop = size;
+        dirtyRight = -1;
+        dirtyBottom = -1;
+    }
+
+    private void takeSelection() {
+        int cellX = board.currentCellX;
+        int cellY = board.currentCellY;
+        selectedCell = cellX == -1 || cellY == -1 ? -1 : shape.indexOf( cellX, cellY );
+        selectedValue = board.getSelectedValue();
+    }
+
+    private void updateUnitsOf( int cell ) {
+        if ( compute( cell ) ) addDirty( cell );
+        for ( int peer : shape.peers[cell] ) {
+            if ( compute( peer ) ) addDirty( peer );
+        }
+    }
+
+    private boolean shows( int index, int value ) {
+        return value != 0 && ( values[index] == value || ( marks[index] & 1 << ( value - 1 ) ) != 0 );
+    }
+
+    /**
+     * Compute the state of a cell from the board and the selection.
+     * @return  true if the state has changed.
+     */
+    private boolean compute( int index ) {
+        int x = index % size;
+        int y = index / size;
+        int value = board.getAssumedValue( x, y );
+        int cellMarks = value == 0 ? board.getMarks( x, y ) : 0;
+
+        int background = WHITE;
+        boolean inSelectedUnits = selectedCell != -1 && shape.sees( index, selectedCell );
+        if ( inSelectedUnits ) background = SELECTED_UNITS;
+        if ( board.isInitial( x, y ) ) background = inSelectedUnits ? INITIAL_IN_SELECTED_UNITS : INITIAL;
+        if ( selectedValue != 0 && value == selectedValue ) background = SAME_VALUE;
+        if ( board.isConflicting( x, y ) ) background = CONFLICT;
+
+        boolean changed = backgrounds[index] != background || values[index] != value || marks[index] != cellMarks;
+        backgrounds[index] = background;
+        values[index] = value;
+        marks[index] = cellMarks;
+        return changed;
+    }
+
+    private void addDirty( int index ) {
+        int x = index % size;
+        int y = index / size;
+        dirtyLeft = Math.min( dirtyLeft, x );
+        dirtyTop = Math.min( dirtyTop, y );
+        dirtyRight = Math.max( dirtyRight, x );
+        dirtyBottom = Math.max( dirtyBottom, y );
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.romain.app11sudoku;
+
+/**
+ * One stage of the logical resolution pipeline: a human solving technique.
+ * Each call to apply() makes at most one deduction (a placement, or the eliminations which
+ * follow from one pattern), so the pipeline can restart from the easiest technique.
+ */
+public abstract class SolvingTechnique {
+
+    private final String name;
+    private final GameLevel level;
+
+    /**
+     * The class constructor
+     * @param name      The name of the technique.
+     * @param level     The level of the grids which require this technique.
+     */
+    protected SolvingTechnique( String name, GameLevel level ) {
+        this.name = name;
+        this.level = level;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public GameLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Look for one deduction and apply it to the grid.
+     * @return  true if the grid has been changed.
+     */
+    public abstract boolean apply( CandidateGrid grid );
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,369 @@
+package com.romain.app11sudoku;
+
+/**
+ * The human solving techniques known by the grader, from the easiest to the hardest.
+ * All of them work on the candidate masks of a CandidateGrid and do not allocate anything.
+ */
+public final class SolvingTechniques {
+
+    private static final int SIZE = GameBoard.SIZE;
+    private static final int CELL_COUNT = GameBoard.CELL_COUNT;
+    private static final int [][] UNITS = GameBoard.UNITS;
+    private static final int [][] PEERS = GameBoard.PEERS;
+    private static final int [] ROW_OF = GameBoard.ROW_OF;
+    private static final int [] COLUMN_OF = GameBoard.COLUMN_OF;
+    private static final int [] BLOCK_OF = GameBoard.BLOCK_OF;
+
+    // The 9-bit masks with exactly n bits set, for each n
+    private static final int [][] COMBINATIONS = new int[ SIZE + 1 ][];
+
+    static {
+        int [] counts = new int[ SIZE + 1 ];
+        for ( int mask = 0; mask <= GameBoard.ALL_DIGITS; mask++ ) counts[ Integer.bitCount( mask ) ]++;
+        for ( int n = 0; n <= SIZE; n++ ) COMBINATIONS[n] = new int[ counts[n] ];
+        int [] filled = new int[ SIZE + 1 ];
+        for ( int mask = 0; mask <= GameBoard.ALL_DIGITS; mask++ ) {
+            int n = Integer.bitCount( mask );
+            COMBINATIONS[n][ filled[n]++ ] = mask;
+        }
+    }
+
+    private SolvingTechniques() {
+    }
+
+    /**
+     * Return a new instance of each technique, from the easiest to the hardest.
+     */
+    public static SolvingTechnique [] standard() {
+        return new SolvingTechnique[] {
+                new NakedSingle(),
+                new HiddenSingle(),
+                new NakedSubset( "Naked pair", 2 ),
+                new HiddenSubset( "Hidden pair", 2 ),
+                new PointingPair(),
+                new BoxLineReduction(),
+                new NakedSubset( "Naked triple", 3 ),
+                new HiddenSubset( "Hidden triple", 3 ),
+                new Fish( "X-wing", 2 ),
+                new Fish( "Swordfish", 3 ),
+                new XYWing()
+        };
+    }
+
+    /**
+     * A cell with a single candidate.
+     */
+    public static class NakedSingle extends SolvingTechnique {
+        public NakedSingle() {
+            super( "Naked single", GameLevel.VERY_EASY );
+        }
+
+        @Override
+        public boolean apply( CandidateGrid grid ) {
+            for ( int cell = 0; cell < CELL_COUNT; cell++ ) {
+                int candidates = grid.candidates[cell];
+                if ( candidates != 0 && ( candidates & ( candidates - 1 ) ) == 0 ) {
+                    grid.place( cell, Integer.numberOfTrailingZeros( candidates ) + 1 );
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A value which can go in only one cell of a row, a column or a block.
+     */
+    public static class HiddenSingle extends SolvingTechnique {
+        public HiddenSingle() {
+            super( "Hidden single", GameLevel.EASY );
+        }
+
+        @Override
+        public boolean apply( CandidateGrid grid ) {
+            for ( int [] unit : UNITS ) {
+                int atLeastOnce = 0;
+                int moreThanOnce = 0;
+                for ( int cell : unit ) {
+                    int candidates = grid.candidates[cell];
+                    moreThanOnce |= atLeastOnce & candidates;
+                    atLeastOnce |= candidates;
+                }
+                int once = atLeastOnce & ~moreThanOnce;
+                if ( once == 0 ) continue;
+
+                int bit = once & -once;
+                for ( int cell : unit ) {
+                    if ( ( grid.candidates[cell] & bit ) != 0 ) {
+                        grid.place( cell, Integer.numberOfTrailingZeros( bit ) + 1 );
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * n cells of a unit whose candidates are n values: these values can be removed from the
+     * other cells of the unit (naked pair, naked triple).
+     */
+    public static class NakedSubset extends SolvingTechnique {
+        private final int size;
+
+        public NakedSubset( String name, int size ) {
+            super( name, GameLevel.MEDIUM );
+            this.size = size;
+        }
+
+        @Override
+        public boolean apply( CandidateGrid grid ) {
+            for ( int [] unit : UNITS ) {
+                for ( int positions : COMBINATIONS[size] ) {
+                    int union = 0;
+                    boolean valid = true;
+                    for ( int i = 0; i < SIZE && valid; i++ ) {
+                        if ( ( positions & ( 1 << i ) ) == 0 ) continue;
+                        int candidates = grid.candidates[ unit[i] ];
+                        valid = candidates != 0;
+                        union |= candidates;
+                    }
+                    if ( ! valid || Integer.bitCount( union ) != size ) continue;
+
+                    boolean changed = false;
+                    for ( int i = 0; i < SIZE; i++ ) {
+                        if ( ( positions & ( 1 << i ) ) == 0 ) changed |= grid.eliminate( unit[i], union );
+                    }
+                    if ( changed ) return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * n values which can only go in the same n cells of a unit: the other candidates of these
+     * cells can be removed (hidden pair, hidden triple).
+     */
+    public static class HiddenSubset extends SolvingTechnique {
+        private final int size;
+        private final int [] positions = new int[ SIZE ];
+
+        public HiddenSubset( String name, int size ) {
+            super( name, GameLevel.MEDIUM );
+            this.size = size;
+        }
+
+        @Override
+        public boolean apply( CandidateGrid grid ) {
+            for ( int [] unit : UNITS ) {
+                // The positions, in the unit, of each value
+                for ( int value = 0; value < SIZE; value++ ) positions[value] = 0;
+                for ( int i = 0; i < SIZE; i++ ) {
+                    int candidates = grid.candidates[ unit[i] ];
+                    while ( candidates != 0 ) {
+                        int value = Integer.numberOfTrailingZeros( candidates );
+                        candidates &= candidates - 1;
+                        positions[value] |= 1 << i;
+                    }
+                }
+
+                for ( int values : COMBINATIONS[size] ) {
+                    int union = 0;
+                    boolean valid = true;
+                    for ( int value = 0; value < SIZE && valid; value++ ) {
+                        if ( ( values & ( 1 << value ) ) == 0 ) continue;
+                        valid = positions[value] != 0;
+                        union |= positions[value];
+                    }
+                    if ( ! valid || Integer.bitCount( union ) != size ) continue;
+
+                    boolean changed = false;
+                    for ( int i = 0; i < SIZE; i++ ) {
+                        if ( ( union & ( 1 << i ) ) != 0 ) changed |= grid.eliminate( unit[i], ~values );
+                    }
+                    if ( changed ) return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The candidates of a value in a block are all in the same row or column: the value can be
+     * removed from the rest of this row or column.
+     */
+    public static class PointingPair extends SolvingTechnique {
+        public PointingPair() {
+            super( "Pointing pair", GameLevel.MEDIUM );
+        }
+
+        @Override
+        public boolean apply( CandidateGrid grid ) {
+            for ( int block = 0; block < SIZE; block++ ) {
+                int [] cells = UNITS[ 2 * SIZE + block ];
+                for ( int bit = 1; bit <= GameBoard.ALL_DIGITS; bit <<= 1 ) {
+                    int row = -1;
+                    int column = -1;
+                    int count = 0;
+                    for ( int cell : cells ) {
+                        if ( ( grid.candidates[cell] & bit ) == 0 ) continue;
+                        row = count == 0 || row == ROW_OF[cell] ? ROW_OF[cell] : -2;
+                        column = count == 0 || column == COLUMN_OF[cell] ? COLUMN_OF[cell] : -2;
+                        count++;
+                    }
+                    if ( count < 2 ) continue;
+                    if ( row >= 0 && eliminateOutside( grid, UNITS[row], block, bit ) ) return true;
+                    if ( column >= 0 && eliminateOutside( grid, UNITS[ SIZE + column ], block, bit ) ) return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean eliminateOutside( CandidateGrid grid, int [] line, int block, int bit ) {
+            boolean changed = false;
+            for ( int cell : line ) {
+                if ( BLOCK_OF[cell] != block ) changed |= grid.eliminate( cell, bit );
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * The candidates of a value in a row or a column are all in the same block: the value can
+     * be removed from the rest of this block.
+     */
+    public static class BoxLineReduction extends SolvingTechnique {
+        public BoxLineReduction() {
+            super( "Box/line reduction", GameLevel.MEDIUM );
+        }
+
+        @Override
+        public boolean apply( CandidateGrid grid ) {
+            for ( int line = 0; line < 2 * SIZE; line++ ) {
+                int [] cells = UNITS[line];
+                for ( int bit = 1; bit <= GameBoard.ALL_DIGITS; bit <<= 1 ) {
+                    int block = -1;
+                    int count = 0;
+                    for ( int cell : cells ) {
+                        if ( ( grid.candidates[cell] & bit ) == 0 ) continue;
+                        block = count == 0 || block == BLOCK_OF[cell] ? BLOCK_OF[cell] : -2;
+                        count++;
+                    }
+                    if ( count < 2 || block < 0 ) continue;
+
+                    boolean changed = false;
+                    for ( int cell : UNITS[ 2 * SIZE + block ] ) {
+                        boolean inLine = line < SIZE ? ROW_OF[cell] == line : COLUMN_OF[cell] == line - SIZE;
+                        if ( ! inLine ) changed |= grid.eliminate( cell, bit );
+                    }
+                    if ( changed ) return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The candidates of a value in n rows are all in the same n columns: the value can be
+     * removed from the rest of these columns (X-wing, swordfish). Same thing with the columns
+     * and the rows swapped.
+     */
+    public static class Fish extends SolvingTechnique {
+        private final int size;
+        private final int [] positions = new int[ SIZE ];
+
+        public Fish( String name, int size ) {
+            super( name, GameLevel.HARD );
+            this.size = size;
+        }
+
+        @Override
+        public boolean apply( CandidateGrid grid ) {
+            for ( int bit = 1; bit <= GameBoard.ALL_DIGITS; bit <<= 1 ) {
+                if ( apply( grid, bit, 0 ) || apply( grid, bit, SIZE ) ) return true;
+            }
+            return false;
+        }
+
+        /**
+         * @param base  0 to use the rows as base lines, SIZE to use the columns.
+         */
+        private boolean apply( CandidateGrid grid, int bit, int base ) {
+            int cover = SIZE - base;
+            for ( int line = 0; line < SIZE; line++ ) {
+                positions[line] = 0;
+                int [] cells = UNITS[ base + line ];
+                for ( int i = 0; i < SIZE; i++ ) {
+                    if ( ( grid.candidates[ cells[i] ] & bit ) != 0 ) positions[line] |= 1 << i;
+                }
+            }
+
+            for ( int lines : COMBINATIONS[size] ) {
+                int union = 0;
+                boolean valid = true;
+                for ( int line = 0; line < SIZE && valid; line++ ) {
+                    if ( ( lines & ( 1 << line ) ) == 0 ) continue;
+                    int count = Integer.bitCount( positions[line] );
+                    valid = count >= 2 && count <= size;
+                    union |= positions[line];
+                }
+                if ( ! valid || Integer.bitCount( union ) != size ) continue;
+
+                boolean changed = false;
+                for ( int i = 0; i < SIZE; i++ ) {
+                    if ( ( union & ( 1 << i ) ) == 0 ) continue;
+                    int [] cells = UNITS[ cover + i ];
+                    for ( int line = 0; line < SIZE; line++ ) {
+                        if ( ( lines & ( 1 << line ) ) == 0 ) changed |= grid.eliminate( cells[line], bit );
+                    }
+                }
+                if ( changed ) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A pivot cell with the candidates {x, y} which sees a cell {x, z} and a cell {y, z}:
+     * z can be removed from every cell which sees both of these pincers.
+     */
+    public static class XYWing extends SolvingTechnique {
+        public XYWing() {
+            super( "XY-wing", GameLevel.HARD );
+        }
+
+        @Override
+        public boolean apply( CandidateGrid grid ) {
+            int [] candidates = grid.candidates;
+            for ( int pivot = 0; pivot < CELL_COUNT; pivot++ ) {
+                int pivotCandidates = candidates[pivot];
+                if ( Integer.bitCount( pivotCandidates ) != 2 ) continue;
+
+                for ( int first : PEERS[pivot] ) {
+                    int firstCandidates = candidates[first];
+                    if ( Integer.bitCount( firstCandidates ) != 2 ) continue;
+                    int shared = firstCandidates & pivotCandidates;
+                    if ( Integer.bitCount( shared ) != 1 ) continue;
+
+                    // The second pincer has the other value of the pivot and the same z
+                    int z = firstCandidates & ~shared;
+                    int secondCandidates = ( pivotCandidates & ~shared ) | z;
+                    for ( int second : PEERS[pivot] ) {
+                        if ( second == first || candidates[second] != secondCandidates ) continue;
+
+                        boolean changed = false;
+                        for ( int cell : PEERS[first] ) {
+                            if ( cell != second && cell != pivot && GameBoard.sees( cell, second ) ) {
+                                changed |= grid.eliminate( cell, z );
+                            }
+                        }
+                        if ( changed ) return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.romain.app11sudoku;
+
+/**
+ * A backtracking solver working on candidate masks. At each step, it fills the empty cell which
+ * has the fewest candidates (minimum remaining values heuristic), or the only cell of a unit
+ * where a value can go (hidden single).
+ * A solver handles the grids of one BoardShape, up to 25x25: a set of values always fits in an
+ * int. All the working arrays are allocated once, so a solver instance can be reused for
+ * thousands of grids without any allocation. A solver is not thread safe: use one instance per
+ * thread.
+ */
+public class SudokuSolver {
+
+    // Results of the hidden single lookup
+    private static final int NONE = -1;
+    private static final int DEAD_END = -2;
+    // A hidden single is packed as (position << VALUE_SHIFT | value - 1)
+    private static final int VALUE_SHIFT = 5;
+
+    private final int size;
+    private final int cellCount;
+    private final int allDigits;
+    private final int [] rowOf;
+    private final int [] columnOf;
+    private final int [] blockOf;
+    private final int [][] units;
+
+    private final int [] values;
+    private final int [] solution;
+    private final int [] rowMasks;
+    private final int [] columnMasks;
+    private final int [] blockMasks;
+
+    // The empty cells: the cells before the current depth are already filled
+    private final int [] empties;
+    private int emptyCount;
+
+    // The candidates of each empty cell, refreshed at each step of the search
+    private final int [] cellCandidates;
+    // The position into the empties array of each empty cell
+    private final int [] positions;
+
+    private int solutionCount;
+    private int limit;
+
+    /**
+     * Create a solver for the classic 9x9 grids.
+     */
+    public SudokuSolver() {
+        this( BoardShape.STANDARD );
+    }
+
+    /**
+     * Create a solver for the grids of a shape.
+     */
+    public SudokuSolver( BoardShape shape ) {
+        size = shape.getSize();
+        cellCount = shape.getCellCount();
+        allDigits = shape.getAllDigits();
+        rowOf = shape.rowOf;
+        columnOf = shape.columnOf;
+        blockOf = shape.blockOf;
+        units = shape.units;
+        values = new int[ cellCount ];
+        solution = new int[ cellCount ];
+        rowMasks = new int[ size ];
+        columnMasks = new int[ size ];
+        blockMasks = new int[ size ];
+        empties = new int[ cellCount ];
+        cellCandidates = new int[ cellCount ];
+        positions = new int[ cellCount ];
+    }
+
+    /**
+     * Solve the grid proposed to the player (the initial cells of the board).
+     * @param board     The board to solve.
+     * @return          The values of the solution, or null if the grid has no solution.
+     */
+    public int [] solve( GameBoard board ) {
+        int [] grid = board.getGivens();
+        return solve( grid ) ? grid : null;
+    }
+
+    /**
+     * Solve a grid in place.
+     * @param grid      The values of the grid, 0 for an empty cell. Filled with the first
+     *                  solution found.
+     * @return          true if a solution has been found.
+     */
+    public boolean solve( int [] grid ) {
+        if ( run( grid, 1 ) == 0 ) return false;
+        System.arraycopy( solution, 0, grid, 0, cellCount );
+        return true;
+    }
+
+    /**
+     * Count the solutions of the grid proposed to the player, stopping as soon as the limit
+     * is reached. Use a limit of 2 to check that a grid has exactly one solution.
+     */
+    public int countSolutions( GameBoard board, int limit ) {
+        return countSolutions( board.getGivens(), limit );
+    }
+
+    /**
+     * Count the solutions of a grid, stopping as soon as the limit is reached.
+     * @param grid      The values of the grid, 0 for an empty cell. It is not modified.
+     * @param limit     The maximum number of solutions to look for.
+     */
+    public int countSolutions( int [] grid, int limit ) {
+        return run( grid, limit );
+    }
+
+    /**
+     * Check that the grid proposed to the player has one, and only one, solution.
+     */
+    public boolean hasUniqueSolution( GameBoard board ) {
+        return countSolutions( board, 2 ) == 1;
+    }
+
+    public boolean hasUniqueSolution( int [] grid ) {
+        return countSolutions( grid, 2 ) == 1;
+    }
+
+    /**
+     * Copy the last solution found into the given array.
+     */
+    public void copySolution( int [] into ) {
+        System.arraycopy( solution, 0, into, 0, cellCount );
+    }
+
+    private int run( int [] grid, int limit ) {
+        this.limit = limit;
+        this.solutionCount = 0;
+        if ( load( grid ) ) search( 0 );
+        return solutionCount;
+    }
+
+    /**
+     * Load the givens into the masks. Return false if two givens are in conflict.
+     */
+    private boolean load( int [] grid ) {
+        for ( int i = 0; i < size; i++ ) {
+            rowMasks[i] = 0;
+            columnMasks[i] = 0;
+            blockMasks[i] = 0;
+        }
+        emptyCount = 0;
+
+        for ( int i = 0; i < cellCount; i++ ) {
+            int value = grid[i];
+            values[i] = value;
+            cellCandidates[i] = 0;
+            if ( value == 0 ) {
+                positions[i] = emptyCount;
+                empties[ emptyCount++ ] = i;
+                continue;
+            }
+            int bit = 1 << ( value - 1 );
+            if ( ( ( rowMasks[ rowOf[i] ] | columnMasks[ columnOf[i] ]
+                    | blockMasks[ blockOf[i] ] ) & bit ) != 0 ) return false;
+            rowMasks[ rowOf[i] ] |= bit;
+            columnMasks[ columnOf[i] ] |= bit;
+            blockMasks[ blockOf[i] ] |= bit;
+        }
+        return true;
+    }
+
+    private void search( int depth ) {
+        if ( depth == emptyCount ) {
+            if ( solutionCount == 0 ) System.arraycopy( values, 0, solution, 0, cellCount );
+            solutionCount++;
+            return;
+        }
+
+        // Minimum remaining values: look for the empty cell with the fewest candidates
+        int best = depth;
+        int bestCandidates = 0;
+        int bestCount = size + 1;
+        for ( int k = depth; k < emptyCount; k++ ) {
+            int cell = empties[k];
+            int candidates = ~( rowMasks[ rowOf[cell] ] | columnMasks[ columnOf[cell] ]
+                    | blockMasks[ blockOf[cell] ] ) & allDigits;
+            cellCandidates[cell] = candidates;
+            int count = Integer.bitCount( candidates );
+            if ( count < bestCount ) {
+                best = k;
+                bestCandidates = candidates;
+                bestCount = count;
+                if ( count <= 1 ) break;
+            }
+        }
+        if ( bestCount == 0 ) return;
+
+        if ( bestCount > 1 ) {
+            // No naked single: look for a value which can go in only one cell of a unit
+            int hidden = findHiddenSingle( depth );
+            if ( hidden == DEAD_END ) return;
+            if ( hidden != NONE ) {
+                best = hidden >>> VALUE_SHIFT;
+                bestCandidates = 1 << ( hidden & ( ( 1 << VALUE_SHIFT ) - 1 ) );
+            }
+        }
+
+        int cell = empties[best];
+        empties[best] = empties[depth];
+        positions[ empties[best] ] = best;
+        empties[depth] = cell;
+        positions[cell] = depth;
+
+        int row = rowOf[cell];
+        int column = columnOf[cell];
+        int block = blockOf[cell];
+        while ( bestCandidates != 0 ) {
+            int bit = bestCandidates & -bestCandidates;
+            bestCandidates ^= bit;
+
+            values[cell] = Integer.numberOfTrailingZeros( bit ) + 1;
+            cellCandidates[cell] = 0;
+            rowMasks[row] |= bit;
+            columnMasks[column] |= bit;
+            blockMasks[block] |= bit;
+
+            search( depth + 1 );
+
+            rowMasks[row] &= ~bit;
+            columnMasks[column] &= ~bit;
+            blockMasks[block] &= ~bit;
+            values[cell] = 0;
+
+            if ( solutionCount >= limit ) return;
+        }
+    }
+
+    /**
+     * Look into each row, column and block for a value which has only one possible cell.
+     * The candidates of the empty cells must be up to date, and must be 0 for the filled cells.
+     * @return  The position of the cell into the empties array and the value index, packed as
+     *          (position << VALUE_SHIFT | value - 1), NONE if there is no such value, or DEAD_END if a
+     *          missing value cannot go anywhere in a unit.
+     */
+    private int findHiddenSingle( int depth ) {
+        for ( int unit = 0; unit < 3 * size; unit++ ) {
+            int atLeastOnce = 0;
+            int moreThanOnce = 0;
+            for ( int i = 0; i < size; i++ ) {
+                int candidates = cellCandidates[ units[unit][i] ];
+                moreThanOnce |= atLeastOnce & candidates;
+                atLeastOnce |= candidates;
+            }
+            int used = unit < size ? rowMasks[unit]
+                    : unit < 2 * size ? columnMasks[ unit - size ] : blockMasks[ unit - 2 * size ];
+            if ( ( ( used | atLeastOnce ) & allDigits ) != allDigits ) return DEAD_END;
+
+            int once = atLeastOnce & ~moreThanOnce;
+            if ( once == 0 ) continue;
+            int valueIndex = Integer.numberOfTrailingZeros( once );
+            for ( int i = 0; i < size; i++ ) {
+                int cell = units[unit][i];
+                if ( ( cellCandidates[cell] & ( 1 << valueIndex ) ) != 0 ) {
+                    return positions[cell] << VALUE_SHIFT | valueIndex;
+                }
+            }
+        }
+        return NONE;
+    }
+
+}
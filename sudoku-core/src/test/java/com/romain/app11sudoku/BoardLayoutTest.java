@@ -0,0 +1,61 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the hit tests of the layout against a plain search in the rectangles of the cells and
+ * of the buttons, for every pixel of a few screens.
+ */
+public class BoardLayoutTest {
+
+    @Test
+    public void hitTests_matchTheRectangles() {
+        int [][] screens = { { 720, 9 }, { 1080, 9 }, { 1440, 9 }, { 1080, 4 }, { 1080, 16 }, { 1441, 25 } };
+        for ( int [] screen : screens ) {
+            int width = screen[0];
+            BoardLayout layout = new BoardLayout( width, screen[1] );
+            float height = layout.getButtonTop( layout.getButtonCount() - 1 ) + layout.getButtonWidth() + 10;
+            for ( float y = -0.5f; y < height; y += 1.5f ) {
+                for ( float x = -0.5f; x < width + 1; x += 1.5f ) {
+                    assertEquals( "Cell at " + x + "," + y, findCell( layout, x, y ), layout.cellAt( x, y ) );
+                    assertEquals( "Button at " + x + "," + y, findButton( layout, x, y ), layout.buttonAt( x, y ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void buttons_areUnderTheGridInTwoRows() {
+        BoardLayout layout = new BoardLayout( 1080, 9 );
+        assertEquals( 12, layout.getButtonCount() );
+        assertEquals( 10, layout.getPencilButton() );
+        assertTrue( layout.getButtonTop( 0 ) > layout.getGridWidth() );
+        assertEquals( layout.getButtonTop( 0 ), layout.getButtonTop( 5 ), 0 );
+        assertTrue( layout.getButtonTop( 6 ) > layout.getButtonTop( 5 ) );
+        assertEquals( layout.getButtonLeft( 0 ), layout.getButtonLeft( 6 ), 0 );
+        assertEquals( 1080, layout.getButtonLeft( 5 ) + layout.getButtonWidth() + layout.getButtonMargin(), 0.01 );
+    }
+
+    private static int findCell( BoardLayout layout, float x, float y ) {
+        float cellWidth = layout.getCellWidth();
+        for ( int cell = 0; cell < layout.getSize() * layout.getSize(); cell++ ) {
+            float left = ( cell % layout.getSize() ) * cellWidth;
+            float top = ( cell / layout.getSize() ) * cellWidth;
+            if ( x >= left && x < left + cellWidth && y >= top && y < top + cellWidth ) return cell;
+        }
+        return -1;
+    }
+
+    private static int findButton( BoardLayout layout, float x, float y ) {
+        float width = layout.getButtonWidth();
+        for ( int button = 0; button < layout.getButtonCount(); button++ ) {
+            float left = layout.getButtonLeft( button );
+            float top = layout.getButtonTop( button );
+            if ( x >= left && x <= left + width && y >= top && y <= top + width ) return button;
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the grids of the other sizes: the tables of the shapes, the generated puzzles and their
+ * solutions, and the conflicts maintained by GameBoard.
+ */
+public class BoardShapeTest {
+
+    @Test
+    public void tables_describeTheUnits() {
+        for ( int blockSize = BoardShape.MIN_BLOCK_SIZE; blockSize <= BoardShape.MAX_BLOCK_SIZE; blockSize++ ) {
+            BoardShape shape = BoardShape.of( blockSize );
+            int size = shape.getSize();
+            assertEquals( blockSize * blockSize, size );
+            assertEquals( size * size, shape.getCellCount() );
+
+            // Each unit holds each cell once, and each cell is in 3 units
+            int [] seen = new int[ shape.getCellCount() ];
+            for ( int [] unit : shape.units ) {
+                assertEquals( size, unit.length );
+                for ( int cell : unit ) seen[cell]++;
+            }
+            for ( int count : seen ) assertEquals( 3, count );
+
+            for ( int cell = 0; cell < shape.getCellCount(); cell++ ) {
+                int peers = 0;
+                for ( int other = 0; other < shape.getCellCount(); other++ ) {
+                    if ( other != cell && shape.sees( cell, other ) ) peers++;
+                }
+                assertEquals( peers, shape.peers[cell].length );
+                for ( int peer : shape.peers[cell] ) assertTrue( shape.sees( cell, peer ) );
+            }
+        }
+        assertSame( BoardShape.STANDARD, BoardShape.of( 3 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void unsupportedBlockSize_isRejected() {
+        BoardShape.of( 6 );
+    }
+
+    @Test
+    public void glyphs_roundTrip() {
+        BoardShape shape = BoardShape.of( 5 );
+        for ( int value = 0; value <= shape.getSize(); value++ ) {
+            assertEquals( value, shape.valueOf( BoardShape.glyphOf( value ) ) );
+        }
+        assertEquals( 'G', BoardShape.glyphOf( 16 ) );
+        assertEquals( 0, shape.valueOf( '.' ) );
+        assertEquals( -1, BoardShape.of( 4 ).valueOf( 'H' ) );
+        assertEquals( -1, BoardShape.STANDARD.valueOf( 'A' ) );
+    }
+
+    @Test
+    public void generatedPuzzles_haveAUniqueSolution() {
+        for ( int blockSize = 2; blockSize <= 4; blockSize++ ) {
+            BoardShape shape = BoardShape.of( blockSize );
+            SudokuSolver solver = new SudokuSolver( shape );
+            for ( int seed = 0; seed < 3; seed++ ) {
+                GameBoard board = new PuzzleGenerator( shape, seed ).generate( GameLevel.MEDIUM );
+                assertSame( shape, board.getShape() );
+                int [] givens = board.getGivens();
+                assertEquals( 1, solver.countSolutions( givens, 2 ) );
+
+                int [] solution = solver.solve( board );
+                for ( int [] unit : shape.units ) {
+                    int used = 0;
+                    for ( int cell : unit ) used |= 1 << ( solution[cell] - 1 );
+                    assertEquals( shape.getAllDigits(), used );
+                }
+                for ( int y = 0; y < shape.getSize(); y++ ) {
+                    for ( int x = 0; x < shape.getSize(); x++ ) {
+                        assertEquals( solution[ shape.indexOf( x, y ) ], board.getRealValue( x, y ) );
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fromPuzzle_readsLetters() {
+        BoardShape shape = BoardShape.of( 4 );
+        GameBoard board = new PuzzleGenerator( shape, 5 ).generate( GameLevel.EASY );
+        StringBuilder puzzle = new StringBuilder();
+        for ( int given : board.getGivens() ) puzzle.append( given == 0 ? '.' : BoardShape.glyphOf( given ) );
+
+        GameBoard read = GameBoard.fromPuzzle( shape, GameLevel.EASY, puzzle.toString() );
+        assertArrayEquals( board.getGivens(), read.getGivens() );
+        for ( int y = 0; y < 16; y++ ) {
+            for ( int x = 0; x < 16; x++ ) {
+                assertEquals( board.getRealValue( x, y ), read.getRealValue( x, y ) );
+            }
+        }
+    }
+
+    @Test
+    public void conflictsAndCandidates_matchBruteForce() {
+        BoardShape shape = BoardShape.of( 4 );
+        int size = shape.getSize();
+        Random random = new Random( 99 );
+        GameBoard board = new PuzzleGenerator( shape, 1 ).generate( GameLevel.EASY );
+        for ( int edit = 0; edit < 1000; edit++ ) {
+            board.currentCellX = random.nextInt( size );
+            board.currentCellY = random.nextInt( size );
+            board.bigNumber = random.nextInt( 5 ) != 0;
+            if ( random.nextInt( 4 ) == 0 ) {
+                board.clearCell();
+            } else {
+                board.pushValue( 1 + random.nextInt( size ) );
+            }
+        }
+
+        boolean anyConflict = false;
+        for ( int cell = 0; cell < shape.getCellCount(); cell++ ) {
+            int x = cell % size;
+            int y = cell / size;
+            int value = board.getAssumedValue( x, y );
+            boolean conflict = false;
+            int used = 0;
+            for ( int peer : shape.peers[cell] ) {
+                int peerValue = board.getAssumedValue( peer % size, peer / size );
+                if ( peerValue != 0 ) used |= 1 << ( peerValue - 1 );
+                if ( value != 0 && peerValue == value ) conflict = true;
+            }
+            if ( value != 0 ) used |= 1 << ( value - 1 );
+            anyConflict |= conflict;
+            assertEquals( "Conflict at " + x + "," + y, conflict, board.isConflicting( x, y ) );
+            assertEquals( shape.getAllDigits() & ~used, board.getCandidates( x, y ) );
+        }
+        assertEquals( anyConflict, board.hasConflicts() );
+    }
+
+    @Test( expected = UnsupportedOperationException.class )
+    public void hints_needAClassicGrid() {
+        new PuzzleGenerator( BoardShape.of( 2 ), 3 ).generate( GameLevel.EASY ).nextHint();
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the grades and the statistics of the DifficultyGrader, and that the generated 9x9
+ * grids have the level they are labelled with.
+ */
+public class DifficultyGraderTest {
+
+    @Test
+    public void generatedGrids_haveTheirLevel() {
+        DifficultyGrader grader = new DifficultyGrader();
+        for ( GameLevel level : GameLevel.values() ) {
+            PuzzleGenerator generator = new PuzzleGenerator( 17 );
+            for ( int game = 0; game < 5; game++ ) {
+                GameBoard board = generator.generate( level );
+                assertEquals( level, board.level );
+                assertEquals( level, grader.grade( board ) );
+            }
+        }
+    }
+
+    @Test
+    public void singlesOnly_fireOncePerEmptyCell() {
+        DifficultyGrader grader = new DifficultyGrader();
+        GameBoard board = new PuzzleGenerator( 3 ).generate( GameLevel.EASY );
+        int empties = 0;
+        for ( int value : board.getGivens() ) if ( value == 0 ) empties++;
+
+        assertEquals( GameLevel.EASY, grader.grade( board ) );
+        assertEquals( 1, grader.getGradedCount() );
+        assertEquals( empties, grader.getFireCount( 0 ) + grader.getFireCount( 1 ) );
+        assertTrue( grader.getFireCount( 1 ) > 0 );
+        assertEquals( "Hidden single", grader.getHardestTechnique().getName() );
+        assertTrue( grader.getGrid().isSolved() );
+        for ( int cell = 0; cell < GameBoard.CELL_COUNT; cell++ ) {
+            assertEquals( board.getRealValue( cell % 9, cell / 9 ), grader.getGrid().getValue( cell ) );
+        }
+
+        // The techniques after the hidden single have never been needed, so never tried
+        SolvingTechnique [] techniques = grader.getTechniques();
+        assertTrue( grader.getNanos( 0 ) > 0 );
+        assertTrue( grader.getNanos( 1 ) > 0 );
+        for ( int i = 2; i < techniques.length; i++ ) {
+            assertEquals( techniques[i].getName(), 0, grader.getFireCount( i ) );
+            assertEquals( techniques[i].getName(), 0, grader.getNanos( i ) );
+        }
+    }
+
+    @Test
+    public void nakedSinglesOnly_areVeryEasy() {
+        DifficultyGrader grader = new DifficultyGrader( new SolvingTechnique[] { new SolvingTechniques.NakedSingle() } );
+        GameBoard board = new PuzzleGenerator( 5 ).generate( GameLevel.VERY_EASY );
+        int empties = 0;
+        for ( int value : board.getGivens() ) if ( value == 0 ) empties++;
+
+        assertEquals( GameLevel.VERY_EASY, grader.grade( board ) );
+        assertEquals( empties, grader.getFireCount( 0 ) );
+
+        // Without the other techniques, a harder grid cannot be solved
+        assertEquals( GameLevel.EVIL, grader.grade( new PuzzleGenerator( 5 ).generate( GameLevel.MEDIUM ) ) );
+        assertNull( grader.getHardestTechnique() );
+        assertEquals( 2, grader.getGradedCount() );
+    }
+
+    @Test
+    public void hardGrids_needAHardTechnique() {
+        DifficultyGrader grader = new DifficultyGrader();
+        int [] givens = new PuzzleGenerator( 8 ).generate( GameLevel.HARD ).getGivens();
+        assertEquals( GameLevel.HARD, grader.grade( givens ) );
+        assertEquals( GameLevel.HARD, grader.getHardestTechnique().getLevel() );
+
+        SolvingTechnique [] techniques = grader.getTechniques();
+        long hardFires = 0;
+        for ( int i = 0; i < techniques.length; i++ ) {
+            if ( techniques[i].getLevel() == GameLevel.HARD ) hardFires += grader.getFireCount( i );
+        }
+        assertTrue( hardFires > 0 );
+    }
+
+    @Test
+    public void unsolvableGrids_areEvil() {
+        DifficultyGrader grader = new DifficultyGrader();
+        assertEquals( GameLevel.EVIL, grader.grade( new PuzzleGenerator( 2 ).generate( GameLevel.EVIL ) ) );
+        assertNull( grader.getHardestTechnique() );
+        assertFalse( grader.getGrid().isSolved() );
+
+        // A solved grid needs nothing
+        GameBoard board = new PuzzleGenerator( 2 ).generate( GameLevel.EASY );
+        int [] solution = new int[ GameBoard.CELL_COUNT ];
+        for ( int cell = 0; cell < GameBoard.CELL_COUNT; cell++ ) solution[cell] = board.getRealValue( cell % 9, cell / 9 );
+        assertEquals( GameLevel.VERY_EASY, grader.grade( solution ) );
+    }
+
+    @Test
+    public void conflictingGivens_areRejected() {
+        DifficultyGrader grader = new DifficultyGrader();
+        int [] conflicting = new int[ GameBoard.CELL_COUNT ];
+        conflicting[0] = 3;
+        conflicting[80] = 3;
+        conflicting[8] = 3;
+        try {
+            grader.grade( conflicting );
+            fail( "Conflicting givens graded" );
+        } catch ( IllegalArgumentException expected ) {
+            assertNull( grader.getHardestTechnique() );
+            assertEquals( 0, grader.getGradedCount() );
+        }
+    }
+
+    @Test
+    public void statistics_areResetAndReported() {
+        DifficultyGrader grader = new DifficultyGrader();
+        grader.grade( new PuzzleGenerator( 1 ).generate( GameLevel.MEDIUM ) );
+        grader.grade( new PuzzleGenerator( 1 ).generate( GameLevel.EVIL ) );
+        assertEquals( 2, grader.getGradedCount() );
+        String statistics = grader.getStatistics();
+        assertTrue( statistics, statistics.startsWith( "2 grids graded" ) );
+        for ( SolvingTechnique technique : grader.getTechniques() ) {
+            assertTrue( technique.getName(), statistics.contains( technique.getName() ) );
+        }
+
+        grader.resetStatistics();
+        assertEquals( 0, grader.getGradedCount() );
+        for ( int i = 0; i < grader.getTechniques().length; i++ ) {
+            assertEquals( 0, grader.getFireCount( i ) );
+            assertEquals( 0, grader.getNanos( i ) );
+        }
+    }
+
+}
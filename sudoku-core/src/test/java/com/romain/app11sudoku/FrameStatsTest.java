@@ -0,0 +1,68 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the statistics recorded for the frames: the buckets of the histogram, the percentiles
+ * over the ring buffer, and the latency of the inputs.
+ */
+public class FrameStatsTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void buckets_arePowersOfTwoMicroseconds() {
+        assertEquals( 0, FrameStats.bucketOf( 999 ) );
+        assertEquals( 1, FrameStats.bucketOf( 1000 ) );
+        assertEquals( 2, FrameStats.bucketOf( 3999 ) );
+        assertEquals( 3, FrameStats.bucketOf( 4000 ) );
+        assertEquals( 14, FrameStats.bucketOf( 16 * MS ) );
+        assertEquals( FrameStats.BUCKET_COUNT - 1, FrameStats.bucketOf( Long.MAX_VALUE ) );
+        assertEquals( 0, FrameStats.bucketOf( -5 ) );
+    }
+
+    @Test
+    public void percentiles_useTheLastSamples() {
+        FrameStats stats = new FrameStats( 10 );
+        assertEquals( 0, stats.getDrawPercentile( 50 ) );
+        // 100 ms frames, then 10 frames of 1 to 10 ms which replace them in the ring buffer
+        for ( int i = 0; i < 5; i++ ) stats.recordDraw( 0, 100 * MS, 81 );
+        for ( int i = 1; i <= 10; i++ ) stats.recordDraw( 0, i * MS, 9 );
+
+        assertEquals( 15, stats.getDrawCount() );
+        assertEquals( 5 * MS, stats.getDrawPercentile( 50 ) );
+        assertEquals( 9 * MS, stats.getDrawPercentile( 90 ) );
+        assertEquals( 10 * MS, stats.getDrawPercentile( 100 ) );
+        assertEquals( 1 * MS, stats.getDrawPercentile( 0 ) );
+        // The histogram keeps all the frames
+        assertEquals( 5, stats.getDrawHistogram( FrameStats.bucketOf( 100 * MS ) ) );
+    }
+
+    @Test
+    public void latency_isMeasuredFromTheFirstInputToTheEndOfTheNextFrame() {
+        FrameStats stats = new FrameStats();
+        stats.recordDraw( 0, 1 * MS, 81 );
+        assertEquals( 0, stats.getLatencyCount() );
+
+        stats.recordInput( 10 * MS );
+        stats.recordInput( 12 * MS );
+        stats.recordInvalidation();
+        stats.recordDraw( 20 * MS, 25 * MS, 21 );
+        stats.recordDraw( 30 * MS, 31 * MS, 1 );
+
+        assertEquals( 1, stats.getLatencyCount() );
+        assertEquals( 15 * MS, stats.getLatencyPercentile( 50 ) );
+        assertEquals( 1, stats.getInvalidationCount() );
+
+        String snapshot = stats.snapshot();
+        assertTrue( snapshot, snapshot.startsWith( "Frames: 3, invalidations: 1, cells per frame: 34.3 (max 81)" ) );
+        assertTrue( snapshot, snapshot.contains( "Tap to frame: 1 samples, p50 15.00 ms" ) );
+
+        stats.reset();
+        assertEquals( 0, stats.getDrawCount() );
+        assertEquals( 0, stats.getLatencyPercentile( 50 ) );
+    }
+
+}
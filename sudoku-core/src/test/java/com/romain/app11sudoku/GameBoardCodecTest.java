@@ -0,0 +1,115 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round-trip and fuzz tests of the binary save format.
+ */
+public class GameBoardCodecTest {
+
+    @Test
+    public void roundTrip_keepsEveryField() {
+        Random random = new Random( 2020 );
+        for ( int game = 0; game < 50; game++ ) {
+            GameLevel level = GameLevel.values()[ game % GameLevel.values().length ];
+            GameBoard board = randomGame( level, game, random );
+
+            byte [] bytes = GameBoardCodec.toBytes( board );
+            assertEquals( GameBoardCodec.ENCODED_SIZE, bytes.length );
+            assertSameBoard( board, GameBoardCodec.fromBytes( bytes ) );
+        }
+    }
+
+    @Test
+    public void roundTrip_atBufferPosition() {
+        GameBoard first = randomGame( GameLevel.EASY, 1, new Random( 1 ) );
+        GameBoard second = randomGame( GameLevel.EVIL, 2, new Random( 2 ) );
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect( 3 + 2 * GameBoardCodec.ENCODED_SIZE );
+        buffer.put( new byte[] { 1, 2, 3 } );
+        GameBoardCodec.write( first, buffer );
+        GameBoardCodec.write( second, buffer );
+        assertEquals( 0, buffer.remaining() );
+
+        buffer.position( 3 );
+        assertSameBoard( first, GameBoardCodec.read( buffer ) );
+        assertSameBoard( second, GameBoardCodec.read( buffer ) );
+    }
+
+    @Test
+    public void fuzz_corruptedDataIsRejectedOrValid() {
+        Random random = new Random( 99 );
+        byte [] valid = GameBoardCodec.toBytes( randomGame( GameLevel.MEDIUM, 3, random ) );
+        for ( int i = 0; i < 20000; i++ ) {
+            byte [] bytes = valid.clone();
+            int flips = 1 + random.nextInt( 4 );
+            for ( int f = 0; f < flips; f++ ) {
+                bytes[ random.nextInt( bytes.length ) ] ^= 1 << random.nextInt( 8 );
+            }
+            decodeOrReject( bytes );
+        }
+        for ( int i = 0; i < 2000; i++ ) {
+            byte [] bytes = new byte[ random.nextInt( 2 * GameBoardCodec.ENCODED_SIZE ) ];
+            random.nextBytes( bytes );
+            decodeOrReject( bytes );
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void truncatedData_isRejected() {
+        byte [] bytes = GameBoardCodec.toBytes( randomGame( GameLevel.HARD, 4, new Random( 4 ) ) );
+        GameBoardCodec.read( ByteBuffer.wrap( bytes, 0, bytes.length - 1 ) );
+    }
+
+    private static void decodeOrReject( byte [] bytes ) {
+        GameBoard board;
+        try {
+            board = GameBoardCodec.fromBytes( bytes );
+        } catch ( IllegalArgumentException exception ) {
+            return;
+        }
+        // Whatever has been decoded must be encoded back to the same bytes
+        byte [] encoded = GameBoardCodec.toBytes( board );
+        GameBoardCodec.fromBytes( encoded );
+        assertSameBoard( board, GameBoardCodec.fromBytes( encoded ) );
+    }
+
+    private static GameBoard randomGame( GameLevel level, long seed, Random random ) {
+        GameBoard board = new PuzzleGenerator( seed ).generate( level );
+        for ( int edit = 0; edit < 100; edit++ ) {
+            board.currentCellX = random.nextInt( 9 );
+            board.currentCellY = random.nextInt( 9 );
+            board.bigNumber = random.nextBoolean();
+            board.autoEliminate = random.nextBoolean();
+            board.pushValue( 1 + random.nextInt( 9 ) );
+        }
+        if ( random.nextBoolean() ) {
+            board.currentCellX = -1;
+            board.currentCellY = -1;
+        }
+        return board;
+    }
+
+    private static void assertSameBoard( GameBoard expected, GameBoard actual ) {
+        assertEquals( expected.level, actual.level );
+        assertEquals( expected.bigNumber, actual.bigNumber );
+        assertEquals( expected.autoEliminate, actual.autoEliminate );
+        assertEquals( expected.currentCellX, actual.currentCellX );
+        assertEquals( expected.currentCellY, actual.currentCellY );
+        for ( int y = 0; y < 9; y++ ) {
+            for ( int x = 0; x < 9; x++ ) {
+                assertEquals( expected.getAssumedValue( x, y ), actual.getAssumedValue( x, y ) );
+                assertEquals( expected.getRealValue( x, y ), actual.getRealValue( x, y ) );
+                assertEquals( expected.isInitial( x, y ), actual.isInitial( x, y ) );
+                assertEquals( expected.getMarks( x, y ), actual.getMarks( x, y ) );
+                assertEquals( expected.isConflicting( x, y ), actual.isConflicting( x, y ) );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the conflicts and candidates maintained by GameBoard against a brute-force
+ * recomputation, over random sequences of edits.
+ */
+public class GameBoardConflictTest {
+
+    @Test
+    public void incrementalConflicts_matchBruteForce() {
+        Random random = new Random( 1234 );
+        for ( int game = 0; game < 20; game++ ) {
+            GameBoard board = new PuzzleGenerator( game ).generate( GameLevel.EASY );
+            for ( int edit = 0; edit < 500; edit++ ) {
+                randomEdit( board, random );
+                checkAgainstBruteForce( board );
+            }
+        }
+    }
+
+    @Test
+    public void copy_keepsConflicts() {
+        Random random = new Random( 42 );
+        GameBoard board = new PuzzleGenerator( 7 ).generate( GameLevel.MEDIUM );
+        for ( int edit = 0; edit < 200; edit++ ) randomEdit( board, random );
+
+        GameBoard copy = board.copy();
+        checkAgainstBruteForce( copy );
+        for ( int edit = 0; edit < 200; edit++ ) {
+            randomEdit( copy, random );
+            checkAgainstBruteForce( copy );
+        }
+    }
+
+    private static void randomEdit( GameBoard board, Random random ) {
+        board.currentCellX = random.nextInt( 9 );
+        board.currentCellY = random.nextInt( 9 );
+        board.bigNumber = random.nextInt( 5 ) != 0;
+        if ( random.nextInt( 4 ) == 0 ) {
+            board.clearCell();
+        } else {
+            board.pushValue( 1 + random.nextInt( 9 ) );
+        }
+    }
+
+    private static void checkAgainstBruteForce( GameBoard board ) {
+        boolean anyConflict = false;
+        for ( int y = 0; y < 9; y++ ) {
+            for ( int x = 0; x < 9; x++ ) {
+                boolean expected = bruteForceConflict( board, x, y );
+                anyConflict |= expected;
+                assertEquals( "Conflict at " + x + "," + y, expected, board.isConflicting( x, y ) );
+
+                int candidates = 0;
+                for ( int value = 1; value <= 9; value++ ) {
+                    boolean used = bruteForceUsed( board, x, y, value, true );
+                    if ( ! used ) candidates |= 1 << ( value - 1 );
+                    assertEquals( bruteForceUsed( board, x, y, value, false ),
+                            board.isUsedByPeers( x, y, value ) );
+                }
+                assertEquals( candidates, board.getCandidates( x, y ) );
+            }
+        }
+        assertEquals( anyConflict, board.hasConflicts() );
+    }
+
+    private static boolean bruteForceConflict( GameBoard board, int x, int y ) {
+        int value = board.getAssumedValue( x, y );
+        return value != 0 && bruteForceUsed( board, x, y, value, false );
+    }
+
+    // Check if the value is in the row, the column or the block of (x, y)
+    private static boolean bruteForceUsed( GameBoard board, int x, int y, int value,
+                                           boolean includingSelf ) {
+        for ( int ty = 0; ty < 9; ty++ ) {
+            for ( int tx = 0; tx < 9; tx++ ) {
+                if ( tx == x && ty == y && ! includingSelf ) continue;
+                boolean peer = tx == x || ty == y || ( tx / 3 == x / 3 && ty / 3 == y / 3 );
+                if ( peer && board.getAssumedValue( tx, ty ) == value ) return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the bulk changes of the marks: the fill of all the candidates and the automatic
+ * elimination of a placed value, and their undo and redo as a single move.
+ */
+public class GameBoardMarksTest {
+
+    @Test
+    public void fillCandidates_marksExactlyTheCandidates() {
+        GameBoard board = new PuzzleGenerator( 3 ).generate( GameLevel.HARD );
+        // A wrong mark, removed by the fill
+        int cell = firstEmptyCell( board );
+        int x = GameBoard.COLUMN_OF[cell];
+        int y = GameBoard.ROW_OF[cell];
+        board.currentCellX = x;
+        board.currentCellY = y;
+        board.bigNumber = false;
+        board.pushValue( firstUsedValue( board, cell ) );
+
+        assertTrue( board.fillCandidates() );
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) {
+            int cellX = GameBoard.COLUMN_OF[i];
+            int cellY = GameBoard.ROW_OF[i];
+            int expected = board.getAssumedValue( cellX, cellY ) == 0 ? board.getCandidates( cellX, cellY ) : 0;
+            assertEquals( "Cell " + i, expected, board.getMarks( cellX, cellY ) );
+        }
+        assertFalse( board.fillCandidates() );
+    }
+
+    @Test
+    public void fillCandidates_isUndoneAsOneMove() {
+        GameBoard board = new PuzzleGenerator( 8 ).generate( GameLevel.MEDIUM );
+        board.currentCellX = GameBoard.COLUMN_OF[ firstEmptyCell( board ) ];
+        board.currentCellY = GameBoard.ROW_OF[ firstEmptyCell( board ) ];
+        board.bigNumber = false;
+        board.pushValue( 5 );
+        GameBoard before = board.copy();
+
+        board.fillCandidates();
+        GameBoard filled = board.copy();
+        assertTrue( board.undo() );
+        assertSameCells( before, board );
+        assertTrue( board.undo() );
+        assertFalse( board.undo() );
+
+        assertTrue( board.redo() );
+        assertSameCells( before, board );
+        assertTrue( board.redo() );
+        assertSameCells( filled, board );
+        assertFalse( board.redo() );
+    }
+
+    @Test
+    public void autoEliminate_removesThePlacedValueFromPeers() {
+        GameBoard board = new PuzzleGenerator( 21 ).generate( GameLevel.EASY );
+        board.fillCandidates();
+        board.autoEliminate = true;
+        GameBoard before = board.copy();
+
+        int cell = firstEmptyCell( board );
+        int x = GameBoard.COLUMN_OF[cell];
+        int y = GameBoard.ROW_OF[cell];
+        int value = board.getRealValue( x, y );
+        board.currentCellX = x;
+        board.currentCellY = y;
+        board.bigNumber = true;
+        board.pushValue( value );
+
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) {
+            int cellX = GameBoard.COLUMN_OF[i];
+            int cellY = GameBoard.ROW_OF[i];
+            int expected = before.getMarks( cellX, cellY );
+            if ( i != cell && GameBoard.sees( i, cell ) ) expected &= ~( 1 << ( value - 1 ) );
+            assertEquals( "Cell " + i, expected, board.getMarks( cellX, cellY ) );
+            // Once filled, the marks still follow the candidates
+            if ( board.getAssumedValue( cellX, cellY ) == 0 ) {
+                assertEquals( board.getCandidates( cellX, cellY ), board.getMarks( cellX, cellY ) );
+            }
+        }
+
+        // The placement and the eliminations are undone together
+        assertTrue( board.undo() );
+        assertSameCells( before, board );
+        assertEquals( x, board.currentCellX );
+        assertEquals( y, board.currentCellY );
+    }
+
+    @Test
+    public void groupedMoves_areReplayed() {
+        GameBoard board = new PuzzleGenerator( 13 ).generate( GameLevel.HARD );
+        board.autoEliminate = true;
+        board.fillCandidates();
+        board.bigNumber = true;
+        for ( int step = 0; step < 10; step++ ) {
+            int cell = firstEmptyCell( board );
+            board.currentCellX = GameBoard.COLUMN_OF[cell];
+            board.currentCellY = GameBoard.ROW_OF[cell];
+            board.pushValue( board.getRealValue( board.currentCellX, board.currentCellY ) );
+        }
+        board.undo();
+        board.undo();
+
+        GameBoard replayed = board.getInitialBoard();
+        replayed.replay( board.getJournal() );
+        assertSameCells( board, replayed );
+        assertTrue( replayed.undo() );
+        assertTrue( board.undo() );
+        assertSameCells( board, replayed );
+    }
+
+    @Test
+    public void fillCells_changesTheCellsAsOneMove() {
+        GameBoard board = new PuzzleGenerator( 34 ).generate( GameLevel.MEDIUM );
+        // A whole row, initial cells included, first as marks then as values
+        int [] row = new int[ GameBoard.SIZE + 1 ];
+        for ( int x = 0; x < GameBoard.SIZE; x++ ) row[x] = board.indexOf( x, 4 );
+        row[ GameBoard.SIZE ] = 1234;
+        GameBoard before = board.copy();
+
+        board.bigNumber = false;
+        assertTrue( board.fillCells( row, GameBoard.SIZE, 7 ) );
+        assertFalse( board.fillCells( row, GameBoard.SIZE, 7 ) );
+        board.bigNumber = true;
+        assertTrue( board.fillCells( row, GameBoard.SIZE, 7 ) );
+        assertEquals( 8, board.currentCellX );
+        assertEquals( 4, board.currentCellY );
+
+        for ( int x = 0; x < GameBoard.SIZE; x++ ) {
+            if ( before.isInitial( x, 4 ) ) {
+                assertEquals( before.getAssumedValue( x, 4 ), board.getAssumedValue( x, 4 ) );
+            } else {
+                assertEquals( 7, board.getAssumedValue( x, 4 ) );
+                assertTrue( board.hasMark( x, 4, 7 ) );
+            }
+        }
+
+        assertTrue( board.undo() );
+        assertTrue( board.undo() );
+        assertSameCells( before, board );
+        assertFalse( board.undo() );
+    }
+
+    private static int firstEmptyCell( GameBoard board ) {
+        for ( int cell = 0; cell < GameBoard.CELL_COUNT; cell++ ) {
+            if ( board.getAssumedValue( GameBoard.COLUMN_OF[cell], GameBoard.ROW_OF[cell] ) == 0 ) return cell;
+        }
+        throw new AssertionError( "No empty cell" );
+    }
+
+    private static int firstUsedValue( GameBoard board, int cell ) {
+        for ( int peer : GameBoard.PEERS[cell] ) {
+            int value = board.getAssumedValue( GameBoard.COLUMN_OF[peer], GameBoard.ROW_OF[peer] );
+            if ( value != 0 ) return value;
+        }
+        throw new AssertionError( "No value around " + cell );
+    }
+
+    private static void assertSameCells( GameBoard expected, GameBoard actual ) {
+        for ( int y = 0; y < 9; y++ ) {
+            for ( int x = 0; x < 9; x++ ) {
+                assertEquals( expected.getAssumedValue( x, y ), actual.getAssumedValue( x, y ) );
+                assertEquals( expected.getMarks( x, y ), actual.getMarks( x, y ) );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the value masks and counts kept by GameBoard for each row, column and block against a
+ * recomputation from the cells, after edits, undo and redo, and on copies.
+ */
+public class GameBoardMasksTest {
+
+    @Test
+    public void masks_followTheEdits() {
+        for ( int blockSize = 2; blockSize <= 4; blockSize++ ) {
+            BoardShape shape = BoardShape.of( blockSize );
+            Random random = new Random( blockSize );
+            GameBoard board = new PuzzleGenerator( shape, blockSize ).generate( GameLevel.EASY );
+            checkMasks( board );
+            for ( int edit = 0; edit < 400; edit++ ) {
+                randomEdit( board, random );
+                checkMasks( board );
+            }
+        }
+    }
+
+    @Test
+    public void copy_hasItsOwnMasks() {
+        Random random = new Random( 5 );
+        GameBoard board = new PuzzleGenerator( 5 ).generate( GameLevel.MEDIUM );
+        for ( int edit = 0; edit < 100; edit++ ) randomEdit( board, random );
+
+        GameBoard copy = board.copy();
+        checkMasks( copy );
+        int [] before = candidates( board );
+        for ( int edit = 0; edit < 100; edit++ ) {
+            randomEdit( copy, random );
+            checkMasks( copy );
+        }
+        // The edits of the copy have not changed the masks of the board
+        assertArrayEquals( before, candidates( board ) );
+        checkMasks( board );
+    }
+
+    @Test
+    public void initialBoard_hasTheMasksOfTheGivens() {
+        GameBoard board = new PuzzleGenerator( 9 ).generate( GameLevel.HARD );
+        Random random = new Random( 9 );
+        for ( int edit = 0; edit < 50; edit++ ) randomEdit( board, random );
+        GameBoard initial = board.getInitialBoard();
+        checkMasks( initial );
+        for ( int y = 0; y < 9; y++ ) {
+            for ( int x = 0; x < 9; x++ ) {
+                int expected = initial.isInitial( x, y ) ? initial.getRealValue( x, y ) : 0;
+                assertEquals( expected, initial.getAssumedValue( x, y ) );
+            }
+        }
+    }
+
+    private static void randomEdit( GameBoard board, Random random ) {
+        int size = board.getSize();
+        board.currentCellX = random.nextInt( size );
+        board.currentCellY = random.nextInt( size );
+        board.bigNumber = random.nextInt( 4 ) != 0;
+        switch ( random.nextInt( 8 ) ) {
+            case 0:
+                board.clearCell();
+                break;
+            case 1:
+                board.undo();
+                break;
+            case 2:
+                board.redo();
+                break;
+            default:
+                board.pushValue( 1 + random.nextInt( size ) );
+                break;
+        }
+    }
+
+    private static int [] candidates( GameBoard board ) {
+        int size = board.getSize();
+        int [] candidates = new int[ size * size ];
+        for ( int y = 0; y < size; y++ ) {
+            for ( int x = 0; x < size; x++ ) candidates[ y * size + x ] = board.getCandidates( x, y );
+        }
+        return candidates;
+    }
+
+    // Count the values of each unit from the cells, and compare with what the board says
+    private static void checkMasks( GameBoard board ) {
+        BoardShape shape = board.getShape();
+        int size = shape.getSize();
+        int [][] counts = new int[ 3 * size ][ size + 1 ];
+        for ( int y = 0; y < size; y++ ) {
+            for ( int x = 0; x < size; x++ ) {
+                int value = board.getAssumedValue( x, y );
+                int index = shape.indexOf( x, y );
+                counts[ y ][ value ]++;
+                counts[ size + x ][ value ]++;
+                counts[ 2 * size + shape.blockOf[index] ][ value ]++;
+            }
+        }
+
+        for ( int y = 0; y < size; y++ ) {
+            for ( int x = 0; x < size; x++ ) {
+                int block = 2 * size + shape.blockOf[ shape.indexOf( x, y ) ];
+                int self = board.getAssumedValue( x, y );
+                int candidates = 0;
+                for ( int value = 1; value <= size; value++ ) {
+                    int [] units = { y, size + x, block };
+                    boolean used = false;
+                    boolean usedByPeers = false;
+                    for ( int unit : units ) {
+                        used |= counts[unit][value] > 0;
+                        usedByPeers |= counts[unit][value] > ( self == value ? 1 : 0 );
+                    }
+                    if ( ! used ) candidates |= 1 << ( value - 1 );
+                    assertEquals( "Value " + value + " at " + x + "," + y, usedByPeers, board.isUsedByPeers( x, y, value ) );
+                }
+                assertEquals( "Candidates at " + x + "," + y, candidates, board.getCandidates( x, y ) );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the hints of GameBoard: they are right, they solve the grid when followed, and they
+ * are cached until the board changes.
+ */
+public class HintTest {
+
+    @Test
+    public void followingHints_solvesTheGrid() {
+        for ( GameLevel level : GameLevel.values() ) {
+            for ( int seed = 0; seed < 5; seed++ ) {
+                GameBoard board = new PuzzleGenerator( seed ).generate( level );
+                Hint hint;
+                int steps = 0;
+                while ( ( hint = board.nextHint() ) != null ) {
+                    assertEquals( hint.toString(), Hint.Type.PLACEMENT, hint.getType() );
+                    assertEquals( hint.toString(), board.getRealValue( hint.getX(), hint.getY() ), hint.getValue() );
+                    assertEquals( 0, board.getAssumedValue( hint.getX(), hint.getY() ) );
+                    play( board, hint.getX(), hint.getY(), hint.getValue() );
+                    assertTrue( ++steps <= GameBoard.CELL_COUNT );
+                }
+                assertSolved( board );
+            }
+        }
+    }
+
+    @Test
+    public void wrongValue_givesMistake() {
+        GameBoard board = new PuzzleGenerator( 3 ).generate( GameLevel.MEDIUM );
+        int cell = firstEmptyCell( board );
+        int x = GameBoard.COLUMN_OF[cell];
+        int y = GameBoard.ROW_OF[cell];
+        int wrong = board.getRealValue( x, y ) % 9 + 1;
+        play( board, x, y, wrong );
+
+        Hint hint = board.nextHint();
+        assertEquals( Hint.Type.MISTAKE, hint.getType() );
+        assertEquals( x, hint.getX() );
+        assertEquals( y, hint.getY() );
+        assertEquals( wrong, hint.getValue() );
+
+        board.undo();
+        assertEquals( Hint.Type.PLACEMENT, board.nextHint().getType() );
+    }
+
+    @Test
+    public void hint_isCachedUntilTheBoardChanges() {
+        GameBoard board = new PuzzleGenerator( 5 ).generate( GameLevel.EASY );
+        Hint hint = board.nextHint();
+        assertSame( hint, board.nextHint() );
+
+        // Selecting a cell is not a change
+        board.currentCellX = 4;
+        board.currentCellY = 4;
+        assertSame( hint, board.nextHint() );
+
+        play( board, hint.getX(), hint.getY(), hint.getValue() );
+        assertNotSame( hint, board.nextHint() );
+    }
+
+    @Test
+    public void eliminations_removeOnlyMarksOfThePlayer() {
+        GameBoard board = new PuzzleGenerator( 11 ).generate( GameLevel.HARD );
+        // Mark every candidate of every empty cell
+        board.bigNumber = false;
+        for ( int cell = 0; cell < GameBoard.CELL_COUNT; cell++ ) {
+            int x = GameBoard.COLUMN_OF[cell];
+            int y = GameBoard.ROW_OF[cell];
+            if ( board.getAssumedValue( x, y ) != 0 ) continue;
+            board.currentCellX = x;
+            board.currentCellY = y;
+            for ( int value = 1; value <= 9; value++ ) {
+                if ( ( board.getCandidates( x, y ) & 1 << ( value - 1 ) ) != 0 ) board.pushValue( value );
+            }
+        }
+
+        for ( int step = 0; step < 200; step++ ) {
+            Hint hint = board.nextHint();
+            if ( hint == null ) break;
+            assertNotEquals( hint.toString(), Hint.Type.MISTAKE, hint.getType() );
+            if ( hint.getType() == Hint.Type.PLACEMENT ) {
+                assertEquals( board.getRealValue( hint.getX(), hint.getY() ), hint.getValue() );
+                play( board, hint.getX(), hint.getY(), hint.getValue() );
+                continue;
+            }
+            board.bigNumber = false;
+            for ( int i = 0; i < hint.getCellCount(); i++ ) {
+                int cell = hint.getCell( i );
+                int x = GameBoard.COLUMN_OF[cell];
+                int y = GameBoard.ROW_OF[cell];
+                int eliminated = hint.getEliminatedCandidates( i );
+                assertTrue( hint.toString(), eliminated != 0 );
+                assertEquals( hint.toString(), eliminated, board.getMarks( x, y ) & eliminated );
+                assertEquals( hint.toString(), 0, eliminated & 1 << ( board.getRealValue( x, y ) - 1 ) );
+                board.currentCellX = x;
+                board.currentCellY = y;
+                for ( int value = 1; value <= 9; value++ ) {
+                    if ( ( eliminated & 1 << ( value - 1 ) ) != 0 ) board.pushValue( value );
+                }
+            }
+        }
+        assertSolved( board );
+    }
+
+    private static void play( GameBoard board, int x, int y, int value ) {
+        board.bigNumber = true;
+        board.currentCellX = x;
+        board.currentCellY = y;
+        board.pushValue( value );
+    }
+
+    private static int firstEmptyCell( GameBoard board ) {
+        for ( int cell = 0; cell < GameBoard.CELL_COUNT; cell++ ) {
+            if ( board.getAssumedValue( GameBoard.COLUMN_OF[cell], GameBoard.ROW_OF[cell] ) == 0 ) return cell;
+        }
+        throw new AssertionError( "No empty cell" );
+    }
+
+    private static void assertSolved( GameBoard board ) {
+        for ( int y = 0; y < 9; y++ ) {
+            for ( int x = 0; x < 9; x++ ) {
+                assertEquals( board.getRealValue( x, y ), board.getAssumedValue( x, y ) );
+            }
+        }
+        assertFalse( board.hasConflicts() );
+    }
+
+}
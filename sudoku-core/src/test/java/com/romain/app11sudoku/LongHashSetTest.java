@@ -0,0 +1,38 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compare LongHashSet to a HashSet over random operations.
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void randomOperations_matchHashSet() {
+        Random random = new Random( 64 );
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for ( int i = 0; i < 100000; i++ ) {
+            // A small range, so that the values are often added twice, including 0
+            long value = random.nextInt( 3 ) == 0 ? random.nextLong() : random.nextInt( 50000 ) - 100;
+            if ( random.nextBoolean() ) {
+                assertEquals( expected.add( value ), set.add( value ) );
+            } else {
+                assertEquals( expected.contains( value ), set.contains( value ) );
+            }
+            assertEquals( expected.size(), set.size() );
+        }
+
+        set.clear();
+        assertEquals( 0, set.size() );
+        assertFalse( set.contains( 0 ) );
+        assertTrue( set.add( 0 ) );
+    }
+
+}
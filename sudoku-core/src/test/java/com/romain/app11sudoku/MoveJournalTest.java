@@ -0,0 +1,170 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the ring buffer of the journal, undo and redo of single and grouped moves, and the
+ * replay of a game from its journal.
+ */
+public class MoveJournalTest {
+
+    @Test
+    public void moves_arePacked() {
+        long move = MoveJournal.encode( 624, 25, 17, ( 1 << 25 ) - 1 );
+        assertEquals( 624, MoveJournal.cellOf( move ) );
+        assertEquals( 25, MoveJournal.oldValueOf( move ) );
+        assertEquals( 17, MoveJournal.newValueOf( move ) );
+        assertEquals( ( 1 << 25 ) - 1, MoveJournal.markDeltaOf( move ) );
+        assertFalse( MoveJournal.isGrouped( move ) );
+
+        long grouped = MoveJournal.grouped( move );
+        assertTrue( MoveJournal.isGrouped( grouped ) );
+        assertEquals( 624, MoveJournal.cellOf( grouped ) );
+        assertEquals( ( 1 << 25 ) - 1, MoveJournal.markDeltaOf( grouped ) );
+    }
+
+    @Test
+    public void buffer_growsUpToTheMaxCapacity() {
+        MoveJournal journal = new MoveJournal( 1000 );
+        for ( int i = 0; i < 1000; i++ ) journal.record( move( i ) );
+        assertEquals( 1000, journal.size() );
+        assertEquals( 1000, journal.getPosition() );
+        assertTrue( journal.isComplete() );
+        for ( int i = 0; i < 1000; i++ ) assertEquals( move( i ), journal.get( i ) );
+    }
+
+    @Test
+    public void ring_dropsTheOldestMoves() {
+        MoveJournal journal = new MoveJournal( 100 );
+        for ( int i = 0; i < 250; i++ ) journal.record( move( i ) );
+        assertEquals( 100, journal.size() );
+        assertEquals( 100, journal.getPosition() );
+        assertFalse( journal.isComplete() );
+        for ( int i = 0; i < 100; i++ ) assertEquals( move( 150 + i ), journal.get( i ) );
+
+        // Only the kept moves can be undone
+        for ( int i = 249; i >= 150; i-- ) assertEquals( move( i ), journal.undo() );
+        assertFalse( journal.canUndo() );
+        assertEquals( move( 150 ), journal.redo() );
+
+        // The copy keeps the whole state
+        MoveJournal copy = new MoveJournal( journal );
+        assertEquals( 1, copy.getPosition() );
+        assertEquals( 100, copy.size() );
+        assertFalse( copy.isComplete() );
+        assertEquals( move( 151 ), copy.redo() );
+
+        journal.clear();
+        assertTrue( journal.isComplete() );
+        assertEquals( 0, journal.size() );
+    }
+
+    @Test
+    public void record_discardsTheRedoTail() {
+        MoveJournal journal = new MoveJournal();
+        for ( int i = 0; i < 10; i++ ) journal.record( move( i ) );
+        journal.undo();
+        journal.undo();
+        journal.undo();
+        assertTrue( journal.canRedo() );
+        assertEquals( 10, journal.size() );
+
+        journal.record( move( 42 ) );
+        assertFalse( journal.canRedo() );
+        assertEquals( 8, journal.size() );
+        assertEquals( move( 6 ), journal.get( 6 ) );
+        assertEquals( move( 42 ), journal.get( 7 ) );
+        assertEquals( move( 42 ), journal.undo() );
+        assertEquals( move( 6 ), journal.undo() );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void undo_withoutMove() {
+        new MoveJournal().undo();
+    }
+
+    @Test
+    public void groupedMoves_areUndoneAndRedoneAsOne() {
+        GameBoard board = new PuzzleGenerator( 6 ).generate( GameLevel.MEDIUM );
+        select( board, firstEmpty( board, 0 ) );
+        board.pushValue( 3 );
+        GameBoard before = board.copy();
+
+        assertTrue( board.fillCandidates() );
+        int position = board.getJournal().getPosition();
+        assertTrue( position > 2 );
+        GameBoard filled = board.copy();
+
+        assertTrue( board.undo() );
+        assertEquals( 1, board.getJournal().getPosition() );
+        assertSameCells( before, board );
+
+        assertTrue( board.redo() );
+        assertEquals( position, board.getJournal().getPosition() );
+        assertSameCells( filled, board );
+
+        // The move before the group is still undone alone
+        board.undo();
+        board.undo();
+        assertEquals( 0, board.getJournal().getPosition() );
+        assertSameCells( board.getInitialBoard(), board );
+        assertFalse( board.undo() );
+    }
+
+    @Test
+    public void replay_recreatesTheGame() {
+        GameBoard board = new PuzzleGenerator( 12 ).generate( GameLevel.EASY );
+        int cell = -1;
+        for ( int value = 1; value <= 5; value++ ) {
+            cell = firstEmpty( board, cell + 1 );
+            select( board, cell );
+            board.bigNumber = value % 2 == 0;
+            board.pushValue( value );
+        }
+        board.fillCandidates();
+        board.undo();
+        board.undo();
+
+        GameBoard replayed = board.getInitialBoard();
+        replayed.replay( board.getJournal() );
+        assertSameCells( board, replayed );
+        assertEquals( board.getJournal().getPosition(), replayed.getJournal().getPosition() );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void replay_refusesATruncatedJournal() {
+        GameBoard board = new PuzzleGenerator( 12 ).generate( GameLevel.EASY );
+        int cell = firstEmpty( board, 0 );
+        MoveJournal journal = new MoveJournal( 4 );
+        for ( int value = 1; value <= 5; value++ ) journal.record( MoveJournal.encode( cell, value - 1, value, 0 ) );
+        assertFalse( journal.isComplete() );
+        board.replay( journal );
+    }
+
+    private static long move( int i ) {
+        return MoveJournal.encode( i % 81, i % 10, ( i + 1 ) % 10, i );
+    }
+
+    private static int firstEmpty( GameBoard board, int from ) {
+        int cell = from;
+        while ( board.isInitial( cell % 9, cell / 9 ) ) cell++;
+        return cell;
+    }
+
+    private static void select( GameBoard board, int cell ) {
+        board.currentCellX = cell % 9;
+        board.currentCellY = cell / 9;
+    }
+
+    private static void assertSameCells( GameBoard expected, GameBoard actual ) {
+        for ( int y = 0; y < 9; y++ ) {
+            for ( int x = 0; x < 9; x++ ) {
+                assertEquals( "Cell " + x + "," + y, expected.getAssumedValue( x, y ), actual.getAssumedValue( x, y ) );
+                assertEquals( "Cell " + x + "," + y, expected.getMarks( x, y ), actual.getMarks( x, y ) );
+            }
+        }
+    }
+
+}
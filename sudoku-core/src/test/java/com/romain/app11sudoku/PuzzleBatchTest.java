@@ -0,0 +1,80 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check that the results of a batch only depend on its seed, whatever the number of threads.
+ */
+public class PuzzleBatchTest {
+
+    @Test
+    public void generate_sameSeedSameGridsOnAnyThreadCount() {
+        List<GameBoard> reference = PuzzleBatch.generate( GameLevel.MEDIUM, 30, 42, 1 ).items;
+        assertEquals( 30, reference.size() );
+        for ( int threads : new int[] { 2, 3, 4 } ) {
+            PuzzleBatch.Result<GameBoard> result = PuzzleBatch.generate( GameLevel.MEDIUM, 30, 42, threads );
+            assertEquals( threads, result.threads );
+            assertEquals( 30, result.items.size() );
+            for ( int i = 0; i < reference.size(); i++ ) {
+                GameBoard expected = reference.get( i );
+                GameBoard actual = result.items.get( i );
+                assertArrayEquals( "Grid " + i + " on " + threads + " threads", expected.getGivens(), actual.getGivens() );
+                assertArrayEquals( solution( expected ), solution( actual ) );
+                assertEquals( expected.level, actual.level );
+            }
+        }
+
+        // Another seed gives other grids
+        List<GameBoard> other = PuzzleBatch.generate( GameLevel.MEDIUM, 30, 43, 2 ).items;
+        assertFalse( Arrays.equals( reference.get( 0 ).getGivens(), other.get( 0 ).getGivens() ) );
+    }
+
+    @Test
+    public void solveAll_keepsTheOrder() {
+        List<GameBoard> boards = PuzzleBatch.generate( GameLevel.HARD, 12, 8, 2 ).items;
+        for ( int threads : new int[] { 1, 4 } ) {
+            List<int[]> solutions = PuzzleBatch.solveAll( boards, threads ).items;
+            for ( int i = 0; i < boards.size(); i++ ) assertArrayEquals( solution( boards.get( i ) ), solutions.get( i ) );
+        }
+    }
+
+    @Test
+    public void distinct_sameResultOnAnyThreadCount() {
+        List<GameBoard> boards = PuzzleBatch.generate( GameLevel.EASY, 10, 3, 2 ).items;
+        // Copies after their originals: only the originals are kept
+        List<GameBoard> withCopies = new ArrayList<>( boards );
+        withCopies.add( boards.get( 4 ).copy() );
+        withCopies.add( 2, boards.get( 1 ).copy() );
+        for ( int threads : new int[] { 1, 3 } ) {
+            List<GameBoard> distinct = PuzzleBatch.distinct( withCopies, threads ).items;
+            assertEquals( boards.size(), distinct.size() );
+            for ( int i = 0; i < boards.size(); i++ ) assertSame( boards.get( i ), distinct.get( i ) );
+        }
+    }
+
+    @Test
+    public void toString_doesNotDependOnTheLocale() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault( Locale.FRANCE );
+        try {
+            PuzzleBatch.Result<Integer> result = new PuzzleBatch.Result<>( Arrays.asList( 1, 2, 3 ), 1_500_000, 2 );
+            assertEquals( "3 puzzles in 1.5 ms on 2 threads (2000 puzzles/s)", result.toString() );
+        } finally {
+            Locale.setDefault( locale );
+        }
+    }
+
+    private static int [] solution( GameBoard board ) {
+        int [] values = new int[ GameBoard.CELL_COUNT ];
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) values[i] = board.getRealValue( i % 9, i / 9 );
+        return values;
+    }
+
+}
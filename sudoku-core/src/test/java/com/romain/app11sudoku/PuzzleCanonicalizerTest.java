@@ -0,0 +1,152 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check that the canonical form is shared by the equivalent grids only, and the cache built
+ * on it.
+ */
+public class PuzzleCanonicalizerTest {
+
+    @Test
+    public void equivalentGrids_haveTheSameCanonicalForm() {
+        Random random = new Random( 13 );
+        PuzzleCanonicalizer canonicalizer = new PuzzleCanonicalizer();
+        PuzzleGenerator generator = new PuzzleGenerator( 13 );
+        for ( int game = 0; game < 20; game++ ) {
+            int [] givens = generator.generate( GameLevel.values()[ game % 5 ] ).getGivens();
+            int [] canonical = canonicalizer.canonicalize( givens, new int[ 81 ] );
+            long hash = PuzzleCanonicalizer.hashOf( canonical );
+            for ( int k = 0; k < 5; k++ ) {
+                int [] transformed = randomTransform( givens, random );
+                assertArrayEquals( canonical, canonicalizer.canonicalize( transformed, new int[ 81 ] ) );
+                assertEquals( hash, canonicalizer.hash( transformed ) );
+                // The transformation found moves the grid to the canonical space and back
+                assertArrayEquals( canonical, canonicalizer.toCanonical( transformed, new int[ 81 ] ) );
+                assertArrayEquals( transformed, canonicalizer.fromCanonical( canonical, new int[ 81 ] ) );
+            }
+        }
+    }
+
+    @Test
+    public void differentGrids_haveDifferentHashes() {
+        PuzzleCanonicalizer canonicalizer = new PuzzleCanonicalizer();
+        PuzzleGenerator generator = new PuzzleGenerator( 31 );
+        Set<Long> hashes = new HashSet<>();
+        for ( int game = 0; game < 50; game++ ) {
+            assertTrue( hashes.add( canonicalizer.hash( generator.generate( GameLevel.EASY ).getGivens() ) ) );
+        }
+    }
+
+    @Test
+    public void distinct_dropsEquivalentBoards() {
+        Random random = new Random( 5 );
+        List<GameBoard> boards = new ArrayList<>( PuzzleBatch.generate( GameLevel.MEDIUM, 10, 5, 2 ).items );
+        for ( int i = 0; i < 10; i++ ) {
+            int [] givens = randomTransform( boards.get( i ).getGivens(), random );
+            boards.add( GameBoard.fromGivens( GameLevel.MEDIUM, givens ) );
+        }
+        List<GameBoard> distinct = PuzzleBatch.distinct( boards, 3 ).items;
+        assertEquals( boards.subList( 0, 10 ), distinct );
+    }
+
+    @Test
+    public void cache_solvesEquivalentGridsOnce() {
+        Random random = new Random( 8 );
+        PuzzleCache cache = new PuzzleCache( 2 );
+        GameBoard board = new PuzzleGenerator( 8 ).generate( GameLevel.HARD );
+        int [] givens = board.getGivens();
+        int [] solution = cache.solve( givens );
+        assertTrue( new SudokuSolver().hasUniqueSolution( givens ) );
+        int [] expected = givens.clone();
+        new SudokuSolver().solve( expected );
+        assertArrayEquals( expected, solution );
+
+        for ( int k = 0; k < 5; k++ ) {
+            int [] transformed = randomTransform( givens, random );
+            int [] transformedSolution = transformed.clone();
+            new SudokuSolver().solve( transformedSolution );
+            assertArrayEquals( transformedSolution, cache.solve( transformed ) );
+            assertEquals( cache.grade( givens ), cache.grade( transformed ) );
+        }
+        assertEquals( 1, cache.getMisses() );
+        assertEquals( 15, cache.getHits() );
+
+        // The least recently used grid is dropped
+        cache.solve( new PuzzleGenerator( 9 ).generate( GameLevel.EASY ).getGivens() );
+        cache.solve( new PuzzleGenerator( 10 ).generate( GameLevel.EASY ).getGivens() );
+        assertEquals( 2, cache.size() );
+        cache.solve( givens );
+        assertEquals( 4, cache.getMisses() );
+    }
+
+    @Test
+    public void cache_returnsNullWithoutSolution() {
+        int [] givens = new int[ 81 ];
+        givens[0] = 1;
+        givens[1] = 1;
+        assertNull( new PuzzleCache( 4 ).solve( givens ) );
+    }
+
+    @Test
+    public void sparseGrid_isRejected() {
+        // The first cells of a solution
+        GameBoard board = new PuzzleGenerator( 4 ).generate( GameLevel.EASY );
+        int [] givens = new int[ 81 ];
+        for ( int cell = 0; cell < PuzzleCanonicalizer.MIN_GIVENS - 1; cell++ ) givens[cell] = board.getRealValue( cell % 9, cell / 9 );
+        try {
+            new PuzzleCanonicalizer().hash( givens );
+            fail( "Sparse grid canonicalized" );
+        } catch ( IllegalArgumentException expected ) {
+            // The search would take up to half a second
+        }
+
+        // The cache solves it directly, without keeping it
+        PuzzleCache cache = new PuzzleCache( 4 );
+        int [] solution = cache.solve( givens );
+        assertNotNull( solution );
+        assertEquals( 1, new SudokuSolver().countSolutions( solution, 2 ) );
+        assertEquals( 0, cache.size() );
+    }
+
+    // Apply a random symmetry of Sudoku to a grid
+    static int [] randomTransform( int [] grid, Random random ) {
+        List<Integer> digits = new ArrayList<>( Arrays.asList( 1, 2, 3, 4, 5, 6, 7, 8, 9 ) );
+        Collections.shuffle( digits, random );
+        int [] rows = randomLinePermutation( random );
+        int [] columns = randomLinePermutation( random );
+        boolean transpose = random.nextBoolean();
+
+        int [] transformed = new int[ 81 ];
+        for ( int y = 0; y < 9; y++ ) {
+            for ( int x = 0; x < 9; x++ ) {
+                int value = grid[ rows[y] * 9 + columns[x] ];
+                transformed[ transpose ? x * 9 + y : y * 9 + x ] = value == 0 ? 0 : digits.get( value - 1 );
+            }
+        }
+        return transformed;
+    }
+
+    private static int [] randomLinePermutation( Random random ) {
+        List<Integer> blocks = new ArrayList<>( Arrays.asList( 0, 1, 2 ) );
+        Collections.shuffle( blocks, random );
+        int [] lines = new int[ 9 ];
+        for ( int i = 0; i < 3; i++ ) {
+            List<Integer> inner = new ArrayList<>( Arrays.asList( 0, 1, 2 ) );
+            Collections.shuffle( inner, random );
+            for ( int j = 0; j < 3; j++ ) lines[ i * 3 + j ] = blocks.get( i ) * 3 + inner.get( j );
+        }
+        return lines;
+    }
+
+}
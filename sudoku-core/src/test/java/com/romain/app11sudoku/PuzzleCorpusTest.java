@@ -0,0 +1,152 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Write a corpus and read it back through the memory-mapped reader.
+ */
+public class PuzzleCorpusTest {
+
+    @Test
+    public void corpus_returnsEveryPuzzleOfEachLevel() throws IOException {
+        File file = File.createTempFile( "corpus", ".bin" );
+        file.deleteOnExit();
+
+        GameLevel [] levels = GameLevel.values();
+        List<List<int []>> expected = new ArrayList<>();
+        PuzzleCorpusWriter writer = new PuzzleCorpusWriter( file );
+        PuzzleGenerator generator = new PuzzleGenerator( 12 );
+        for ( int level = 0; level < levels.length; level++ ) {
+            List<int []> puzzles = new ArrayList<>();
+            // Interleave the levels: the writer must regroup them
+            for ( int n = 0; n < 3 + level; n++ ) {
+                int [] givens = generator.generate( levels[ ( level + n ) % levels.length ] ).getGivens();
+                puzzles.add( givens );
+                writer.add( levels[level], givens );
+            }
+            expected.add( puzzles );
+        }
+        writer.close();
+        assertEquals( PuzzleCorpus.HEADER_SIZE + 25L * PuzzleCorpus.RECORD_SIZE, file.length() );
+
+        PuzzleCorpus corpus = new PuzzleCorpus( file );
+        try {
+            int [] givens = new int[ 81 ];
+            for ( int level = 0; level < levels.length; level++ ) {
+                assertEquals( expected.get( level ).size(), corpus.size( levels[level] ) );
+                for ( int n = 0; n < corpus.size( levels[level] ); n++ ) {
+                    assertArrayEquals( expected.get( level ).get( n ), corpus.getGivens( levels[level], n, givens ) );
+                }
+            }
+            GameBoard board = corpus.getGameBoard( GameLevel.HARD, 1 );
+            assertEquals( GameLevel.HARD, board.level );
+            assertArrayEquals( expected.get( GameLevel.HARD.ordinal() ).get( 1 ), board.getGivens() );
+        } finally {
+            corpus.close();
+        }
+    }
+
+    @Test
+    public void textInput_isParsedAndGraded() throws IOException {
+        File file = File.createTempFile( "corpus", ".bin" );
+        file.deleteOnExit();
+
+        String puzzle = "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+        PuzzleCorpusWriter writer = new PuzzleCorpusWriter( file );
+        writer.addAll( new StringReader( "# A comment\n\n" + puzzle + " evil\n" + puzzle.replace( '.', '0' ) + "\n" ) );
+        writer.close();
+
+        PuzzleCorpus corpus = new PuzzleCorpus( file );
+        try {
+            assertEquals( 1, corpus.size( GameLevel.EVIL ) );
+            GameLevel graded = new DifficultyGrader().grade( corpus.getGivens( GameLevel.EVIL, 0, new int[ 81 ] ) );
+            assertEquals( graded == GameLevel.EVIL ? 2 : 1, corpus.size( GameLevel.EVIL ) );
+            int [] givens = corpus.getGivens( graded, corpus.size( graded ) - 1, new int[ 81 ] );
+            assertEquals( 5, givens[0] );
+            assertEquals( 0, givens[2] );
+            assertEquals( 9, givens[80] );
+        } finally {
+            corpus.close();
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void badLine_isRejected() throws IOException {
+        File file = File.createTempFile( "corpus", ".bin" );
+        file.deleteOnExit();
+        PuzzleCorpusWriter writer = new PuzzleCorpusWriter( file );
+        try {
+            char [] line = new char[ 81 ];
+            Arrays.fill( line, 'x' );
+            writer.addAll( new StringReader( new String( line ) ) );
+        } finally {
+            writer.abort();
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void puzzleWithSeveralSolutions_isRejected() throws IOException {
+        File file = File.createTempFile( "corpus", ".bin" );
+        file.deleteOnExit();
+        PuzzleCorpusWriter writer = new PuzzleCorpusWriter( file );
+        try {
+            // A single row of givens
+            char [] line = new char[ 81 ];
+            Arrays.fill( line, '.' );
+            "53..7....".getChars( 0, 9, line, 0 );
+            writer.addAll( new StringReader( new String( line ) ) );
+        } finally {
+            writer.abort();
+        }
+    }
+
+    @Test
+    public void puzzleWithoutSolution_isRejected() throws IOException {
+        File file = File.createTempFile( "corpus", ".bin" );
+        file.deleteOnExit();
+        PuzzleCorpusWriter writer = new PuzzleCorpusWriter( file );
+        try {
+            int [] givens = new PuzzleGenerator( 5 ).generate( GameLevel.EASY ).getGivens();
+            // An empty cell takes the value of a given of its row
+            int given = 0;
+            while ( givens[ given ] == 0 ) given++;
+            int empty = given - given % 9;
+            while ( givens[ empty ] != 0 ) empty++;
+            givens[ empty ] = givens[ given ];
+            writer.add( GameLevel.EASY, givens );
+            fail( "Conflicting givens accepted" );
+        } catch ( IllegalArgumentException expected ) {
+            assertEquals( 0, writer.size( GameLevel.EASY ) );
+        } finally {
+            writer.abort();
+        }
+    }
+
+    @Test( expected = IOException.class )
+    public void corruptedIndex_isRejected() throws IOException {
+        File file = File.createTempFile( "corpus", ".bin" );
+        file.deleteOnExit();
+        PuzzleCorpusWriter writer = new PuzzleCorpusWriter( file );
+        writer.add( GameLevel.EASY, new PuzzleGenerator( 3 ).generate( GameLevel.EASY ).getGivens() );
+        writer.close();
+
+        RandomAccessFile raw = new RandomAccessFile( file, "rw" );
+        try {
+            raw.setLength( file.length() - 1 );
+        } finally {
+            raw.close();
+        }
+        new PuzzleCorpus( file ).close();
+    }
+
+}
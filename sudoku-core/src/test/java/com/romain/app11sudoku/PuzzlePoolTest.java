@@ -0,0 +1,189 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the hits and misses of a small pool, when its background thread refills a level, and
+ * that it stops once shut down. The pools are seeded, so their grids are known.
+ */
+public class PuzzlePoolTest {
+
+    private static final GameLevel LEVEL = GameLevel.VERY_EASY;
+
+    @Test
+    public void miss_generatesOnTheCallingThread() throws InterruptedException {
+        PuzzlePool pool = new PuzzlePool( 3, 1, 100 );
+        try {
+            GameBoard board = pool.take( LEVEL );
+            assertEquals( 0, pool.getHits() );
+            assertEquals( 1, pool.getMisses() );
+            assertSameGrid( new PuzzleGenerator( 101 ).generate( LEVEL ), board );
+
+            // The miss has started the refill of the level, and only of this level
+            waitForSize( pool, LEVEL, 3 );
+            assertEquals( 3, pool.getGenerated() );
+            assertEquals( 0, pool.size( GameLevel.EASY ) );
+
+            // The background grids come from the seed of the pool, in order
+            PuzzleGenerator generator = new PuzzleGenerator( 100 );
+            assertSameGrid( generator.generate( LEVEL ), pool.take( LEVEL ) );
+            assertSameGrid( generator.generate( LEVEL ), pool.take( LEVEL ) );
+            assertEquals( 2, pool.getHits() );
+            assertEquals( 1, pool.getMisses() );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void refill_startsUnderTheLowWaterMark() throws InterruptedException {
+        PuzzlePool pool = new PuzzlePool( 4, 2, 7 );
+        try {
+            pool.prefetch( LEVEL );
+            waitForSize( pool, LEVEL, 4 );
+            assertEquals( 4, pool.getGenerated() );
+
+            // 2 grids left: still at the low-water mark, nothing is generated
+            pool.take( LEVEL );
+            pool.take( LEVEL );
+            assertEquals( 2, pool.size( LEVEL ) );
+
+            // 1 grid left: the level is filled again, up to its capacity
+            pool.take( LEVEL );
+            waitForSize( pool, LEVEL, 4 );
+            assertEquals( 4 + 3, pool.getGenerated() );
+            assertEquals( 3, pool.getHits() );
+            assertEquals( 0, pool.getMisses() );
+
+            // A full level is not refilled
+            pool.prefetch( LEVEL );
+            Thread.sleep( 50 );
+            assertEquals( 4, pool.size( LEVEL ) );
+            assertEquals( 4 + 3, pool.getGenerated() );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void refill_isNeverLost() throws InterruptedException {
+        // Each take triggers a refill, often while the previous one is ending
+        PuzzlePool pool = new PuzzlePool( 2, 2, 11 );
+        try {
+            pool.prefetch( LEVEL );
+            for ( int round = 0; round < 50; round++ ) {
+                waitForSize( pool, LEVEL, 2 );
+                pool.take( LEVEL );
+                pool.take( LEVEL );
+            }
+            waitForSize( pool, LEVEL, 2 );
+            assertEquals( 0, pool.getMisses() );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void takeWithListener_waitsForTheRefill() throws InterruptedException {
+        PuzzlePool pool = new PuzzlePool( 3, 1, 21 );
+        try {
+            // Nothing ready: the grid is the first one of the refill that the request starts
+            assertSameGrid( new PuzzleGenerator( 21 ).generate( LEVEL ), takeWithListener( pool, LEVEL ) );
+            assertEquals( 1, pool.getHits() );
+            assertEquals( 0, pool.getMisses() );
+
+            // Without background thread, the grid is generated by the request
+            pool.shutdown();
+            assertTrue( pool.awaitTermination( 10, TimeUnit.SECONDS ) );
+            assertSameGrid( new PuzzleGenerator( 22 ).generate( GameLevel.EASY ), takeWithListener( pool, GameLevel.EASY ) );
+            assertEquals( 1, pool.getMisses() );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void evict_emptiesTheQueues() throws InterruptedException {
+        PuzzlePool pool = new PuzzlePool( 2, 1, 3 );
+        try {
+            pool.prefetch( GameLevel.VERY_EASY );
+            pool.prefetch( GameLevel.EASY );
+            waitForSize( pool, GameLevel.VERY_EASY, 2 );
+            waitForSize( pool, GameLevel.EASY, 2 );
+
+            pool.evict( GameLevel.EASY );
+            assertEquals( 0, pool.size( GameLevel.EASY ) );
+            assertEquals( 2, pool.size( GameLevel.VERY_EASY ) );
+
+            pool.evictAll();
+            for ( GameLevel level : GameLevel.values() ) assertEquals( 0, pool.size( level ) );
+
+            // The next demand is a miss
+            pool.take( GameLevel.VERY_EASY );
+            assertEquals( 1, pool.getMisses() );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdown_stopsTheRefill() throws InterruptedException {
+        // Stopped during a refill: the background thread ends, and nothing is generated after
+        PuzzlePool pool = new PuzzlePool( 4, 4, 5 );
+        pool.prefetch();
+        pool.shutdown();
+        assertTrue( pool.awaitTermination( 10, TimeUnit.SECONDS ) );
+        long generated = pool.getGenerated();
+        pool.take( LEVEL );
+        pool.prefetch();
+        Thread.sleep( 50 );
+        assertEquals( generated, pool.getGenerated() );
+
+        // Stopped before any refill: every grid is generated on demand
+        pool = new PuzzlePool( 4, 4, 5 );
+        pool.shutdown();
+        assertNotNull( pool.take( LEVEL ) );
+        assertNotNull( pool.take( LEVEL ) );
+        pool.prefetch();
+        assertTrue( pool.awaitTermination( 10, TimeUnit.SECONDS ) );
+        assertEquals( 2, pool.getMisses() );
+        assertEquals( 0, pool.getGenerated() );
+        for ( GameLevel level : GameLevel.values() ) assertEquals( 0, pool.size( level ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void lowWaterMark_overTheCapacity() {
+        new PuzzlePool( 2, 3 );
+    }
+
+    private static void waitForSize( PuzzlePool pool, GameLevel level, int size ) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 30 );
+        while ( pool.size( level ) < size ) {
+            assertTrue( "Level " + level + " not refilled", System.nanoTime() < deadline );
+            Thread.sleep( 5 );
+        }
+    }
+
+    private static GameBoard takeWithListener( PuzzlePool pool, GameLevel level ) throws InterruptedException {
+        final ArrayBlockingQueue<GameBoard> taken = new ArrayBlockingQueue<>( 1 );
+        pool.take( level, new PuzzlePool.Listener() {
+            @Override
+            public void onTaken( GameBoard board ) {
+                taken.offer( board );
+            }
+        } );
+        GameBoard board = taken.poll( 30, TimeUnit.SECONDS );
+        assertNotNull( board );
+        return board;
+    }
+
+    private static void assertSameGrid( GameBoard expected, GameBoard actual ) {
+        assertArrayEquals( expected.getGivens(), actual.getGivens() );
+    }
+
+}
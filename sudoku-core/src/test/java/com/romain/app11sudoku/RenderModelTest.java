@@ -0,0 +1,133 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the render model against the coloring rules applied to the whole board, after random
+ * selections and edits, and check that its dirty rectangle holds every cell which has changed.
+ */
+public class RenderModelTest {
+
+    @Test
+    public void incrementalUpdates_matchTheRules() {
+        for ( int blockSize = 2; blockSize <= 3; blockSize++ ) {
+            BoardShape shape = BoardShape.of( blockSize );
+            int size = shape.getSize();
+            Random random = new Random( 7 + blockSize );
+            GameBoard board = new PuzzleGenerator( shape, blockSize ).generate( GameLevel.MEDIUM );
+            board.autoEliminate = true;
+            RenderModel model = new RenderModel( board );
+            assertMatchesRules( board, model );
+
+            for ( int step = 0; step < 2000; step++ ) {
+                int [][] before = snapshot( model, size );
+                model.clearDirty();
+                int position = board.getJournal().getPosition();
+
+                switch ( random.nextInt( 6 ) ) {
+                    case 0:
+                    case 1:
+                        board.currentCellX = random.nextInt( size );
+                        board.currentCellY = random.nextInt( size );
+                        break;
+                    case 2:
+                        board.bigNumber = random.nextInt( 3 ) != 0;
+                        board.pushValue( 1 + random.nextInt( size ) );
+                        break;
+                    case 3:
+                        board.clearCell();
+                        break;
+                    case 4:
+                        board.undo();
+                        break;
+                    default:
+                        board.redo();
+                        break;
+                }
+
+                // As the view does: the changes of several cells at once redraw everything
+                if ( Math.abs( board.getJournal().getPosition() - position ) > 1 ) {
+                    model.refresh();
+                } else {
+                    model.update();
+                }
+                assertMatchesRules( board, model );
+                assertDirtyHoldsChanges( before, snapshot( model, size ), model, size );
+            }
+        }
+    }
+
+    @Test
+    public void marksOfTheSelectedValue_areBlue() {
+        GameBoard board = new PuzzleGenerator( 4 ).generate( GameLevel.HARD );
+        board.fillCandidates();
+        RenderModel model = new RenderModel( board );
+        int cell = 0;
+        while ( board.getAssumedValue( cell % 9, cell / 9 ) == 0 ) cell++;
+        board.currentCellX = cell % 9;
+        board.currentCellY = cell / 9;
+        model.clearDirty();
+        model.update();
+
+        int value = board.getAssumedValue( cell % 9, cell / 9 );
+        assertEquals( value, model.getSelectedValue() );
+        assertEquals( RenderModel.SELECTED_MARK, model.getMarkColor( value ) );
+        assertEquals( RenderModel.MARK, model.getMarkColor( value % 9 + 1 ) );
+        assertTrue( model.isDirty() );
+    }
+
+    private static void assertMatchesRules( GameBoard board, RenderModel model ) {
+        int size = board.getSize();
+        int selectedValue = board.getSelectedValue();
+        assertEquals( selectedValue, model.getSelectedValue() );
+        for ( int y = 0; y < size; y++ ) {
+            for ( int x = 0; x < size; x++ ) {
+                int value = board.getAssumedValue( x, y );
+                int background = RenderModel.WHITE;
+                if ( board.isInSelectedUnits( x, y ) ) background = RenderModel.SELECTED_UNITS;
+                if ( board.isInitial( x, y ) ) {
+                    background = background == RenderModel.SELECTED_UNITS
+                            ? RenderModel.INITIAL_IN_SELECTED_UNITS : RenderModel.INITIAL;
+                }
+                if ( selectedValue > 0 && value == selectedValue ) background = RenderModel.SAME_VALUE;
+                if ( board.isConflicting( x, y ) ) background = RenderModel.CONFLICT;
+
+                String where = "Cell " + x + "," + y;
+                assertEquals( where, background, model.getBackground( x, y ) );
+                assertEquals( where, value, model.getValue( x, y ) );
+                assertEquals( where, value == 0 ? board.getMarks( x, y ) : 0, model.getMarks( x, y ) );
+            }
+        }
+    }
+
+    // The state of each cell as drawn: background, value, and the marks with their colors
+    private static int [][] snapshot( RenderModel model, int size ) {
+        int [][] cells = new int[ size * size ][];
+        for ( int y = 0; y < size; y++ ) {
+            for ( int x = 0; x < size; x++ ) {
+                int marks = model.getMarks( x, y );
+                int selected = model.getSelectedValue();
+                int blueMark = selected != 0 && ( marks & 1 << ( selected - 1 ) ) != 0 ? selected : 0;
+                cells[ y * size + x ] = new int[] { model.getBackground( x, y ), model.getValue( x, y ), marks, blueMark };
+            }
+        }
+        return cells;
+    }
+
+    private static void assertDirtyHoldsChanges( int [][] before, int [][] after, RenderModel model, int size ) {
+        for ( int cell = 0; cell < size * size; cell++ ) {
+            if ( Arrays.equals( before[cell], after[cell] ) ) continue;
+            int x = cell % size;
+            int y = cell / size;
+            assertTrue( "Changed cell " + x + "," + y + " not dirty",
+                    model.isDirty() && x >= model.getDirtyLeft() && x <= model.getDirtyRight()
+                            && y >= model.getDirtyTop() && y <= model.getDirtyBottom() );
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.romain.app11sudoku;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check each stage of the grading pipeline on a grid whose candidates hold exactly one
+ * pattern of the technique, the other cells keeping all their candidates.
+ */
+public class SolvingTechniquesTest {
+
+    private static final int ALL = GameBoard.ALL_DIGITS;
+
+    private CandidateGrid grid;
+
+    @Before
+    public void setUp() {
+        grid = new CandidateGrid();
+        int [] masks = new int[ GameBoard.CELL_COUNT ];
+        for ( int i = 0; i < masks.length; i++ ) masks[i] = ALL;
+        grid.load( new int[ GameBoard.CELL_COUNT ], masks );
+    }
+
+    @Test
+    public void openGrid_noDeduction() {
+        for ( SolvingTechnique technique : SolvingTechniques.standard() ) {
+            assertFalse( technique.getName(), technique.apply( grid ) );
+        }
+    }
+
+    @Test
+    public void nakedSingle_placesTheLastCandidate() {
+        grid.candidates[40] = bit( 5 );
+        assertTrue( new SolvingTechniques.NakedSingle().apply( grid ) );
+        assertEquals( 5, grid.getValue( 40 ) );
+        assertEquals( 80, grid.getUnsolvedCount() );
+        for ( int peer : GameBoard.PEERS[40] ) assertEquals( ALL & ~bit( 5 ), grid.getCandidates( peer ) );
+        assertEquals( ALL, grid.getCandidates( 0 ) );
+    }
+
+    @Test
+    public void hiddenSingle_placesTheOnlyPosition() {
+        // 7 can only go in r1c4
+        for ( int cell = 0; cell < 9; cell++ ) {
+            if ( cell != 3 ) grid.candidates[cell] &= ~bit( 7 );
+        }
+        assertTrue( new SolvingTechniques.HiddenSingle().apply( grid ) );
+        assertEquals( 7, grid.getValue( 3 ) );
+        assertEquals( 0, grid.getCandidates( 3 ) );
+        assertEquals( ALL & ~bit( 7 ), grid.getCandidates( 3 + 9 ) );
+    }
+
+    @Test
+    public void nakedSubsets_clearTheRestOfTheUnit() {
+        grid.candidates[0] = bit( 1 ) | bit( 2 );
+        grid.candidates[1] = bit( 1 ) | bit( 2 );
+        assertTrue( new SolvingTechniques.NakedSubset( "Naked pair", 2 ).apply( grid ) );
+        assertEquals( bit( 1 ) | bit( 2 ), grid.getCandidates( 0 ) );
+        for ( int cell = 2; cell < 9; cell++ ) assertEquals( ALL & ~( bit( 1 ) | bit( 2 ) ), grid.getCandidates( cell ) );
+
+        // A triple in the column 9, none of its cells holding the 3 values
+        setUp();
+        grid.candidates[8] = bit( 4 ) | bit( 5 );
+        grid.candidates[17] = bit( 5 ) | bit( 6 );
+        grid.candidates[80] = bit( 4 ) | bit( 6 );
+        SolvingTechnique triple = new SolvingTechniques.NakedSubset( "Naked triple", 3 );
+        assertFalse( new SolvingTechniques.NakedSubset( "Naked pair", 2 ).apply( grid ) );
+        assertTrue( triple.apply( grid ) );
+        for ( int row = 2; row < 8; row++ ) {
+            assertEquals( ALL & ~( bit( 4 ) | bit( 5 ) | bit( 6 ) ), grid.getCandidates( row * 9 + 8 ) );
+        }
+        assertEquals( bit( 5 ) | bit( 6 ), grid.getCandidates( 17 ) );
+    }
+
+    @Test
+    public void hiddenPair_clearsItsCells() {
+        // 1 and 2 can only go in r1c1 and r1c2
+        for ( int cell = 2; cell < 9; cell++ ) grid.candidates[cell] &= ~( bit( 1 ) | bit( 2 ) );
+        assertTrue( new SolvingTechniques.HiddenSubset( "Hidden pair", 2 ).apply( grid ) );
+        assertEquals( bit( 1 ) | bit( 2 ), grid.getCandidates( 0 ) );
+        assertEquals( bit( 1 ) | bit( 2 ), grid.getCandidates( 1 ) );
+        assertEquals( ALL, grid.getCandidates( 9 ) );
+    }
+
+    @Test
+    public void pointingPair_clearsTheRestOfTheRow() {
+        // In the first block, 4 can only go in the first row
+        for ( int cell : new int[] { 9, 10, 11, 18, 19, 20 } ) grid.candidates[cell] &= ~bit( 4 );
+        assertTrue( new SolvingTechniques.PointingPair().apply( grid ) );
+        for ( int cell = 3; cell < 9; cell++ ) assertEquals( ALL & ~bit( 4 ), grid.getCandidates( cell ) );
+        assertEquals( ALL, grid.getCandidates( 0 ) );
+        assertEquals( ALL, grid.getCandidates( 12 ) );
+    }
+
+    @Test
+    public void boxLineReduction_clearsTheRestOfTheBlock() {
+        // In the first row, 4 can only go in the first block
+        for ( int cell = 3; cell < 9; cell++ ) grid.candidates[cell] &= ~bit( 4 );
+        assertTrue( new SolvingTechniques.BoxLineReduction().apply( grid ) );
+        for ( int cell : new int[] { 9, 10, 11, 18, 19, 20 } ) assertEquals( ALL & ~bit( 4 ), grid.getCandidates( cell ) );
+        assertEquals( ALL, grid.getCandidates( 2 ) );
+        assertEquals( ALL, grid.getCandidates( 12 ) );
+    }
+
+    @Test
+    public void xWing_clearsTheColumns() {
+        // In the rows 2 and 6, 5 can only go in the columns 3 and 8
+        for ( int row : new int[] { 1, 5 } ) {
+            for ( int column = 0; column < 9; column++ ) {
+                if ( column != 2 && column != 7 ) grid.candidates[ row * 9 + column ] &= ~bit( 5 );
+            }
+        }
+        assertFalse( new SolvingTechniques.Fish( "Swordfish", 3 ).apply( copy() ) );
+        assertTrue( new SolvingTechniques.Fish( "X-wing", 2 ).apply( grid ) );
+        for ( int row = 0; row < 9; row++ ) {
+            int expected = row == 1 || row == 5 ? ALL : ALL & ~bit( 5 );
+            assertEquals( expected, grid.getCandidates( row * 9 + 2 ) );
+            assertEquals( expected, grid.getCandidates( row * 9 + 7 ) );
+        }
+        assertEquals( ALL, grid.getCandidates( 0 ) );
+    }
+
+    @Test
+    public void swordfish_clearsTheColumns() {
+        // In the rows 1, 5 and 9, 6 can only go in the columns 2, 5 and 8
+        int [][] positions = { { 0, 1, 4 }, { 4, 4, 7 }, { 8, 1, 7 } };
+        for ( int [] line : positions ) {
+            for ( int column = 0; column < 9; column++ ) {
+                if ( column != line[1] && column != line[2] ) grid.candidates[ line[0] * 9 + column ] &= ~bit( 6 );
+            }
+        }
+        assertFalse( new SolvingTechniques.Fish( "X-wing", 2 ).apply( copy() ) );
+        assertTrue( new SolvingTechniques.Fish( "Swordfish", 3 ).apply( grid ) );
+        for ( int row = 0; row < 9; row++ ) {
+            boolean base = row == 0 || row == 4 || row == 8;
+            for ( int column : new int[] { 1, 4, 7 } ) {
+                if ( ! base ) assertEquals( ALL & ~bit( 6 ), grid.getCandidates( row * 9 + column ) );
+            }
+        }
+        assertEquals( ALL & ~bit( 6 ), grid.getCandidates( 0 ) );
+        assertEquals( ALL, grid.getCandidates( 1 ) );
+    }
+
+    @Test
+    public void xyWing_clearsTheCellsSeeingBothPincers() {
+        // Pivot r1c1 {1,2}, pincers r1c5 {1,3} and r5c1 {2,3}: r5c5 cannot be 3
+        grid.candidates[0] = bit( 1 ) | bit( 2 );
+        grid.candidates[4] = bit( 1 ) | bit( 3 );
+        grid.candidates[36] = bit( 2 ) | bit( 3 );
+        assertTrue( new SolvingTechniques.XYWing().apply( grid ) );
+        assertEquals( ALL & ~bit( 3 ), grid.getCandidates( 40 ) );
+        for ( int cell = 0; cell < GameBoard.CELL_COUNT; cell++ ) {
+            if ( cell == 0 || cell == 4 || cell == 36 || cell == 40 ) continue;
+            assertEquals( "Cell " + cell, ALL, grid.getCandidates( cell ) );
+        }
+        assertFalse( new SolvingTechniques.XYWing().apply( grid ) );
+    }
+
+    @Test
+    public void pipeline_isOrderedByLevel() {
+        SolvingTechnique [] techniques = SolvingTechniques.standard();
+        assertEquals( GameLevel.VERY_EASY, techniques[0].getLevel() );
+        for ( int i = 1; i < techniques.length; i++ ) {
+            assertTrue( techniques[i].getName(), techniques[i].getLevel().compareTo( techniques[ i - 1 ].getLevel() ) >= 0 );
+        }
+        assertEquals( GameLevel.HARD, techniques[ techniques.length - 1 ].getLevel() );
+    }
+
+    private CandidateGrid copy() {
+        CandidateGrid copy = new CandidateGrid();
+        copy.load( grid.values, grid.candidates );
+        return copy;
+    }
+
+    private static int bit( int value ) {
+        return 1 << ( value - 1 );
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the solver on known grids: a classic puzzle, grids with several solutions or none,
+ * and 17 clues puzzles which are hard for a backtracking search.
+ */
+public class SudokuSolverTest {
+
+    private static final String PUZZLE =
+            "530070000600195000098000060800060003400803001700020006060000280000419005000080079";
+    private static final String SOLUTION =
+            "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    // Puzzles with 17 clues, the smallest number for a unique solution
+    private static final String [] SEVENTEEN_CLUES = {
+            "000000000000003085001020000000507000004000100090000000500000073002010000000040009",
+            "000000010400000000020000000000050407008000300001090000300400200050100000000806000",
+            "000000012000035000000600070700000300000400800100000000000120000080000040050000600",
+    };
+
+    @Test
+    public void knownPuzzle_isSolved() {
+        SudokuSolver solver = new SudokuSolver();
+        int [] grid = parse( PUZZLE );
+        assertEquals( 1, solver.countSolutions( grid, 2 ) );
+        assertArrayEquals( parse( PUZZLE ), grid );
+        assertTrue( solver.hasUniqueSolution( grid ) );
+
+        int [] copy = new int[ GameBoard.CELL_COUNT ];
+        solver.copySolution( copy );
+        assertArrayEquals( parse( SOLUTION ), copy );
+
+        assertTrue( solver.solve( grid ) );
+        assertArrayEquals( parse( SOLUTION ), grid );
+
+        GameBoard board = GameBoard.fromPuzzle( GameLevel.EASY, PUZZLE );
+        assertArrayEquals( parse( SOLUTION ), solver.solve( board ) );
+        assertEquals( 1, solver.countSolutions( board, 2 ) );
+    }
+
+    @Test
+    public void countSolutions_stopsAtTheLimit() {
+        SudokuSolver solver = new SudokuSolver();
+        int [] empty = new int[ GameBoard.CELL_COUNT ];
+        assertEquals( 1, solver.countSolutions( empty, 1 ) );
+        assertEquals( 2, solver.countSolutions( empty, 2 ) );
+        assertEquals( 50, solver.countSolutions( empty, 50 ) );
+        assertFalse( solver.hasUniqueSolution( empty ) );
+
+        // The 6 and 7 of r1c4, r1c5, r4c4 and r4c5 can be swapped: exactly two solutions
+        int [] grid = parse( SOLUTION );
+        for ( int cell : new int[] { 3, 4, 30, 31 } ) grid[cell] = 0;
+        assertEquals( 2, solver.countSolutions( grid, 10 ) );
+        assertEquals( 2, solver.countSolutions( grid, 2 ) );
+        assertEquals( 1, solver.countSolutions( grid, 1 ) );
+
+        // A full grid is its own solution
+        assertEquals( 1, solver.countSolutions( parse( SOLUTION ), 10 ) );
+    }
+
+    @Test
+    public void conflictingGivens_haveNoSolution() {
+        SudokuSolver solver = new SudokuSolver();
+        int [] grid = parse( PUZZLE );
+        grid[2] = 5;                // A second 5 in the first row
+        assertEquals( 0, solver.countSolutions( grid, 2 ) );
+        assertFalse( solver.solve( grid ) );
+
+        // No conflict between the givens, but r1c9 cannot hold any value
+        int [] stuck = new int[ GameBoard.CELL_COUNT ];
+        for ( int i = 0; i < 8; i++ ) stuck[i] = i + 1;
+        stuck[ 9 * 4 + 8 ] = 9;
+        assertEquals( 0, solver.countSolutions( stuck, 2 ) );
+    }
+
+    @Test
+    public void seventeenClues_haveAUniqueSolution() {
+        SudokuSolver solver = new SudokuSolver();
+        for ( String puzzle : SEVENTEEN_CLUES ) {
+            int [] givens = parse( puzzle );
+            assertEquals( puzzle, 1, solver.countSolutions( givens, 2 ) );
+
+            int [] grid = givens.clone();
+            assertTrue( puzzle, solver.solve( grid ) );
+            for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) {
+                if ( givens[i] != 0 ) assertEquals( puzzle, givens[i], grid[i] );
+            }
+            for ( int [] unit : GameBoard.UNITS ) {
+                int seen = 0;
+                for ( int cell : unit ) seen |= 1 << ( grid[cell] - 1 );
+                assertEquals( puzzle, GameBoard.ALL_DIGITS, seen );
+            }
+
+            // Without one of its clues, a 17 clues puzzle is never unique
+            int first = 0;
+            while ( givens[first] == 0 ) first++;
+            givens[first] = 0;
+            assertEquals( puzzle, 2, solver.countSolutions( givens, 2 ) );
+        }
+    }
+
+    private static int [] parse( String puzzle ) {
+        int [] grid = new int[ GameBoard.CELL_COUNT ];
+        for ( int i = 0; i < GameBoard.CELL_COUNT; i++ ) grid[i] = puzzle.charAt( i ) - '0';
+        return grid;
+    }
+
+}
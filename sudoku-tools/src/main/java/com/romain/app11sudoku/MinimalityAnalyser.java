@@ -0,0 +1,472 @@
+package com.romain.app11sudoku;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Check whether puzzles are minimal (removing any given makes the solution ambiguous), find
+ * their redundant givens, and the symmetries of their pattern of givens.
+ * <p>
+ * A puzzle of n givens needs n + 1 uniqueness checks: the puzzle itself, then the puzzle
+ * without each given. These checks run on a ForkJoinPool: the puzzles of a corpus and the
+ * givens of a puzzle are split into tasks, and the idle threads steal the pending ones, which
+ * balances the very uneven costs of the checks. Each thread of the pool reuses its own solver
+ * and grid, so a check does not allocate anything.
+ * <p>
+ * Usage: {@code MinimalityAnalyser [--threads N] <input.txt | ->}
+ * <br>
+ * The input holds one 81-character puzzle per line, as read by PuzzleImporter. A line is
+ * printed for each puzzle, the progress goes to the standard error.
+ */
+public class MinimalityAnalyser implements AutoCloseable {
+
+    private static final int CELL_COUNT = GameBoard.CELL_COUNT;
+    private static final int SIZE = GameBoard.SIZE;
+    // The number of givens checked by a task which is not split anymore
+    private static final int GIVENS_PER_TASK = 4;
+    // The number of puzzles read and analysed at once by main()
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * The number of solutions of a puzzle: only a puzzle with a unique solution can be minimal.
+     */
+    public enum Status {
+        UNIQUE, NO_SOLUTION, MULTIPLE_SOLUTIONS
+    }
+
+    /**
+     * The symmetries which map a pattern of givens onto itself.
+     */
+    public enum Symmetry {
+        /** Rotation by a half turn. */
+        CENTRAL,
+        /** Rotation by a quarter turn. */
+        QUARTER_TURN,
+        /** Reflection across the main diagonal. */
+        DIAGONAL,
+        /** Reflection across the anti-diagonal. */
+        ANTI_DIAGONAL,
+        /** Reflection across the middle row. */
+        HORIZONTAL,
+        /** Reflection across the middle column. */
+        VERTICAL;
+
+        /**
+         * Return the image of a cell by this symmetry.
+         */
+        public int map( int cell ) {
+            int x = cell % SIZE;
+            int y = cell / SIZE;
+            int last = SIZE - 1;
+            switch ( this ) {
+                case CENTRAL:       return ( last - y ) * SIZE + ( last - x );
+                case QUARTER_TURN:  return x * SIZE + ( last - y );
+                case DIAGONAL:      return x * SIZE + y;
+                case ANTI_DIAGONAL: return ( last - x ) * SIZE + ( last - y );
+                case HORIZONTAL:    return ( last - y ) * SIZE + x;
+                default:            return y * SIZE + ( last - x );
+            }
+        }
+    }
+
+    /**
+     * Called each time the analysis of a puzzle ends, from the threads of the pool.
+     */
+    public interface Progress {
+        void onProgress( int done, int total );
+    }
+
+    /**
+     * The analysis of a puzzle.
+     */
+    public static class Analysis {
+        private final int [] givens;
+        private final Status status;
+        private final boolean [] redundant;
+        private final EnumSet<Symmetry> symmetries;
+
+        Analysis( int [] givens, Status status, boolean [] redundant, EnumSet<Symmetry> symmetries ) {
+            this.givens = givens;
+            this.status = status;
+            this.redundant = redundant;
+            this.symmetries = symmetries;
+        }
+
+        public int [] getGivens() {
+            return givens.clone();
+        }
+
+        public int getClueCount() {
+            int count = 0;
+            for ( int value : givens ) {
+                if ( value != 0 ) count++;
+            }
+            return count;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Check if the puzzle has a unique solution which no given can be removed from.
+         */
+        public boolean isMinimal() {
+            return status == Status.UNIQUE && getRedundantGivens().length == 0;
+        }
+
+        /**
+         * Return the cells of the givens which can be removed, one at a time, while keeping a
+         * unique solution. Empty if the puzzle has no unique solution.
+         */
+        public int [] getRedundantGivens() {
+            int count = 0;
+            for ( boolean cell : redundant ) {
+                if ( cell ) count++;
+            }
+            int [] cells = new int[ count ];
+            count = 0;
+            for ( int cell = 0; cell < CELL_COUNT; cell++ ) {
+                if ( redundant[cell] ) cells[ count++ ] = cell;
+            }
+            return cells;
+        }
+
+        public EnumSet<Symmetry> getSymmetries() {
+            return EnumSet.copyOf( symmetries );
+        }
+
+        /**
+         * Return a line: the puzzle, its number of givens, its status or minimality with the
+         * redundant cells (as r1c1 coordinates), and its symmetries.
+         */
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder( 160 );
+            for ( int value : givens ) builder.append( (char) ( '0' + value ) );
+            builder.append( ' ' ).append( getClueCount() ).append( ' ' );
+            if ( status != Status.UNIQUE ) {
+                builder.append( status );
+            } else if ( isMinimal() ) {
+                builder.append( "MINIMAL" );
+            } else {
+                builder.append( "REDUNDANT" );
+                for ( int cell : getRedundantGivens() ) {
+                    builder.append( " r" ).append( cell / SIZE + 1 ).append( 'c' ).append( cell % SIZE + 1 );
+                }
+            }
+            builder.append( symmetries.isEmpty() ? " ASYMMETRIC" : " " + symmetries );
+            return builder.toString();
+        }
+    }
+
+    /**
+     * The scratch state of a thread of the pool.
+     */
+    private static class Scratch {
+        final SudokuSolver solver = new SudokuSolver();
+        final int [] grid = new int[ CELL_COUNT ];
+    }
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Scratch> scratches = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    /**
+     * Create an analyser using all the cores.
+     */
+    public MinimalityAnalyser() {
+        this( Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * The class constructor
+     * @param threads   The number of threads of the pool.
+     */
+    public MinimalityAnalyser( int threads ) {
+        if ( threads < 1 ) throw new IllegalArgumentException( "Bad thread count: " + threads );
+        pool = new ForkJoinPool( threads );
+    }
+
+    /**
+     * Analyse a puzzle, its givens being checked in parallel.
+     * @param givens    The values of the givens, 0 for an empty cell.
+     */
+    public Analysis analyse( int [] givens ) {
+        if ( givens.length != CELL_COUNT ) throw new IllegalArgumentException( "Bad puzzle length: " + givens.length );
+        PuzzleTask task = new PuzzleTask( givens.clone() );
+        pool.invoke( task );
+        return task.analysis;
+    }
+
+    /**
+     * Analyse the puzzles of a corpus.
+     * @param puzzles   The givens of each puzzle, 0 for an empty cell.
+     * @param progress  Told of each puzzle analysed, or null.
+     * @return          The analyses, in the order of the puzzles.
+     */
+    public List<Analysis> analyseAll( List<int[]> puzzles, Progress progress ) {
+        for ( int [] givens : puzzles ) {
+            if ( givens.length != CELL_COUNT ) throw new IllegalArgumentException( "Bad puzzle length: " + givens.length );
+        }
+        Analysis [] analyses = new Analysis[ puzzles.size() ];
+        pool.invoke( new CorpusTask( puzzles, analyses, 0, analyses.length, progress, new AtomicInteger() ) );
+        return Collections.unmodifiableList( Arrays.asList( analyses ) );
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Return the symmetries of the pattern of givens of a puzzle: the ones which map each
+     * given to a given, whatever their values.
+     */
+    public static EnumSet<Symmetry> findSymmetries( int [] givens ) {
+        EnumSet<Symmetry> symmetries = EnumSet.noneOf( Symmetry.class );
+        for ( Symmetry symmetry : Symmetry.values() ) {
+            boolean symmetric = true;
+            for ( int cell = 0; cell < CELL_COUNT && symmetric; cell++ ) {
+                symmetric = ( givens[cell] == 0 ) == ( givens[ symmetry.map( cell ) ] == 0 );
+            }
+            if ( symmetric ) symmetries.add( symmetry );
+        }
+        return symmetries;
+    }
+
+    /**
+     * Analyse a range of the puzzles of a corpus, split in two halves as long as it holds
+     * more than one puzzle.
+     */
+    private class CorpusTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<int[]> puzzles;
+        private final Analysis [] analyses;
+        private final int from;
+        private final int to;
+        private final Progress progress;
+        private final AtomicInteger done;
+
+        CorpusTask( List<int[]> puzzles, Analysis [] analyses, int from, int to, Progress progress,
+                    AtomicInteger done ) {
+            this.puzzles = puzzles;
+            this.analyses = analyses;
+            this.from = from;
+            this.to = to;
+            this.progress = progress;
+            this.done = done;
+        }
+
+        @Override
+        protected void compute() {
+            if ( to - from > 1 ) {
+                int middle = ( from + to ) >>> 1;
+                invokeAll( new CorpusTask( puzzles, analyses, from, middle, progress, done ),
+                        new CorpusTask( puzzles, analyses, middle, to, progress, done ) );
+                return;
+            }
+            if ( to == from ) return;
+            PuzzleTask task = new PuzzleTask( puzzles.get( from ).clone() );
+            task.compute();
+            analyses[from] = task.analysis;
+            int count = done.incrementAndGet();
+            if ( progress != null ) progress.onProgress( count, analyses.length );
+        }
+    }
+
+    /**
+     * Analyse a puzzle: check that it has a unique solution, then check its givens in
+     * parallel.
+     */
+    private class PuzzleTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int [] givens;
+        Analysis analysis;
+
+        PuzzleTask( int [] givens ) {
+            this.givens = givens;
+        }
+
+        @Override
+        protected void compute() {
+            Scratch scratch = scratches.get();
+            int solutions = scratch.solver.countSolutions( givens, 2 );
+            Status status = solutions == 1 ? Status.UNIQUE
+                    : solutions == 0 ? Status.NO_SOLUTION : Status.MULTIPLE_SOLUTIONS;
+
+            boolean [] redundant = new boolean[ CELL_COUNT ];
+            if ( status == Status.UNIQUE ) {
+                int [] clues = new int[ CELL_COUNT ];
+                int clueCount = 0;
+                for ( int cell = 0; cell < CELL_COUNT; cell++ ) {
+                    if ( givens[cell] != 0 ) clues[ clueCount++ ] = cell;
+                }
+                new GivensTask( givens, clues, 0, clueCount, redundant ).compute();
+            }
+            analysis = new Analysis( givens, status, redundant, findSymmetries( givens ) );
+        }
+    }
+
+    /**
+     * Check a range of the givens of a puzzle with a unique solution: a given is redundant if
+     * the puzzle keeps a unique solution without it. The range is split in two halves down to
+     * GIVENS_PER_TASK givens.
+     */
+    private class GivensTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int [] givens;
+        private final int [] clues;
+        private final int from;
+        private final int to;
+        private final boolean [] redundant;
+
+        GivensTask( int [] givens, int [] clues, int from, int to, boolean [] redundant ) {
+            this.givens = givens;
+            this.clues = clues;
+            this.from = from;
+            this.to = to;
+            this.redundant = redundant;
+        }
+
+        @Override
+        protected void compute() {
+            if ( to - from > GIVENS_PER_TASK ) {
+                int middle = ( from + to ) >>> 1;
+                invokeAll( new GivensTask( givens, clues, from, middle, redundant ),
+                        new GivensTask( givens, clues, middle, to, redundant ) );
+                return;
+            }
+            Scratch scratch = scratches.get();
+            int [] grid = scratch.grid;
+            System.arraycopy( givens, 0, grid, 0, CELL_COUNT );
+            for ( int i = from; i < to; i++ ) {
+                int cell = clues[i];
+                grid[cell] = 0;
+                redundant[cell] = scratch.solver.countSolutions( grid, 2 ) == 1;
+                grid[cell] = givens[cell];
+            }
+        }
+    }
+
+    /**
+     * Parse a line of a dump: 81 characters, a digit for a given, '0' or '.' for an empty cell,
+     * anything after a blank being ignored.
+     * @return  The givens, or null if the line is malformed.
+     */
+    static int [] parse( String line ) {
+        int end = line.length();
+        for ( int i = 0; i < line.length(); i++ ) {
+            if ( line.charAt( i ) == ' ' || line.charAt( i ) == '\t' ) {
+                end = i;
+                break;
+            }
+        }
+        if ( end != CELL_COUNT ) return null;
+        int [] givens = new int[ CELL_COUNT ];
+        for ( int i = 0; i < CELL_COUNT; i++ ) {
+            char c = line.charAt( i );
+            if ( c >= '1' && c <= '9' ) {
+                givens[i] = c - '0';
+            } else if ( c != '0' && c != '.' ) {
+                return null;
+            }
+        }
+        return givens;
+    }
+
+    public static void main( String [] args ) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int i = 0;
+        try {
+            for ( ; i < args.length - 1; i++ ) {
+                if ( args[i].equals( "--threads" ) ) {
+                    threads = Integer.parseInt( args[ ++i ] );
+                } else {
+                    throw new IllegalArgumentException( args[i] );
+                }
+            }
+        } catch ( IllegalArgumentException exception ) {
+            i = -1;
+        }
+        if ( i != args.length - 1 ) {
+            System.err.println( "Usage: MinimalityAnalyser [--threads N] <input.txt | ->" );
+            System.exit( 2 );
+        }
+
+        String input = args[ args.length - 1 ];
+        InputStream in = input.equals( "-" ) ? System.in : new FileInputStream( input );
+        PrintStream out = new PrintStream( System.out, false, "US-ASCII" );
+        final long start = System.nanoTime();
+        long analysed = 0;
+        long minimal = 0;
+        long malformed = 0;
+        try ( MinimalityAnalyser analyser = new MinimalityAnalyser( threads );
+              BufferedReader reader = new BufferedReader( new InputStreamReader( in, Charset.forName( "US-ASCII" ) ), 1 << 16 ) ) {
+            List<int[]> chunk = new ArrayList<>( CHUNK_SIZE );
+            String line;
+            boolean end = false;
+            while ( ! end ) {
+                line = reader.readLine();
+                end = line == null;
+                if ( ! end ) {
+                    line = line.trim();
+                    if ( line.isEmpty() || line.startsWith( "#" ) ) continue;
+                    int [] givens = parse( line );
+                    if ( givens == null ) {
+                        malformed++;
+                        continue;
+                    }
+                    chunk.add( givens );
+                    if ( chunk.size() < CHUNK_SIZE ) continue;
+                }
+
+                final long before = analysed;
+                for ( Analysis analysis : analyser.analyseAll( chunk, new Progress() {
+                    private long lastReport = System.nanoTime();
+
+                    @Override
+                    public synchronized void onProgress( int done, int total ) {
+                        long now = System.nanoTime();
+                        if ( now - lastReport < 1000000000L ) return;
+                        lastReport = now;
+                        long count = before + done;
+                        System.err.printf( Locale.ROOT, "%d puzzles analysed (%.0f puzzles/s)%n",
+                                count, count * 1e9 / ( now - start ) );
+                    }
+                } ) ) {
+                    out.println( analysis );
+                    analysed++;
+                    if ( analysis.isMinimal() ) minimal++;
+                }
+                chunk.clear();
+            }
+        }
+        out.flush();
+        long elapsed = System.nanoTime() - start;
+        System.err.printf( Locale.ROOT, "%d puzzles analysed in %.1f ms on %d threads (%.0f puzzles/s), %d minimal, %d malformed lines%n",
+                analysed, elapsed / 1e6, threads, elapsed == 0 ? 0 : analysed * 1e9 / elapsed, minimal, malformed );
+    }
+
+}
@@ -0,0 +1,469 @@
+package com.romain.app11sudoku;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Import a text dump of puzzles, one 81-character puzzle per line (a digit for a given, '0'
+ * or '.' for an empty cell, anything after a blank being ignored): check that each puzzle has
+ * a unique solution, grade it, and write the accepted puzzles with their level.
+ * <p>
+ * The work is a pipeline: the reading thread parses the bytes into batches of puzzles without
+ * building any String, the worker threads check and grade the batches, and the writing thread
+ * writes them back in the order of the input. The batches come from a fixed pool: when the
+ * workers or the writer fall behind, the reader waits for a free batch. The memory used does
+ * not depend on the size of the input (except for the hashes kept with --distinct).
+ * <p>
+ * Usage: {@code PuzzleImporter [--threads N] [--distinct] <input.txt | -> <output.txt | output.corpus>}
+ * <br>
+ * A text output holds one puzzle per line followed by its level, the format read by
+ * PuzzleCorpusWriter; an output whose name ends with ".corpus" is written as a PuzzleCorpus.
+ */
+public class PuzzleImporter {
+
+    /**
+     * The reasons why a line is rejected.
+     */
+    public enum Rejection {
+        MALFORMED, CONFLICTING_GIVENS, NO_SOLUTION, MULTIPLE_SOLUTIONS, DUPLICATE
+    }
+
+    private static final int CELL_COUNT = GameBoard.CELL_COUNT;
+    private static final int BATCH_SIZE = 256;
+    private static final int BATCHES_PER_THREAD = 4;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    // The status of a puzzle of a batch: a level ordinal, or a rejection
+    private static final byte ACCEPTED_FIRST = 0;
+    private static final byte REJECTED_FIRST = (byte) GameLevel.values().length;
+
+    // The level names followed by a new line, written without building any String
+    private static final byte [][] LEVEL_NAMES = new byte[ GameLevel.values().length ][];
+    static {
+        for ( GameLevel level : GameLevel.values() ) {
+            LEVEL_NAMES[ level.ordinal() ] = ( level.name() + "\n" ).getBytes( Charset.forName( "US-ASCII" ) );
+        }
+    }
+
+    /**
+     * A batch of puzzles going through the pipeline, reused once written.
+     */
+    private static class Batch {
+        long sequence;
+        int count;
+        final byte [] cells = new byte[ BATCH_SIZE * CELL_COUNT ];
+        final byte [] statuses = new byte[ BATCH_SIZE ];
+        final long [] hashes = new long[ BATCH_SIZE ];
+    }
+
+    // Sent through the queues to stop the workers, then the writer
+    private static final Batch END = new Batch();
+
+    /**
+     * The counts of an import.
+     */
+    public static class Report {
+        public long lines;
+        public long accepted;
+        public final long [] rejections = new long[ Rejection.values().length ];
+        public final long [] levels = new long[ GameLevel.values().length ];
+        public long elapsedNanos;
+        public int threads;
+
+        public double getPuzzlesPerSecond() {
+            return elapsedNanos == 0 ? 0 : lines * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append( String.format( Locale.ROOT, "%d puzzles read in %.1f ms on %d threads (%.0f puzzles/s)%n",
+                    lines, elapsedNanos / 1e6, threads, getPuzzlesPerSecond() ) );
+            builder.append( String.format( Locale.ROOT, "%d accepted%n", accepted ) );
+            for ( GameLevel level : GameLevel.values() ) {
+                builder.append( String.format( Locale.ROOT, "  %-20s %10d%n", level, levels[ level.ordinal() ] ) );
+            }
+            builder.append( String.format( Locale.ROOT, "%d rejected%n", lines - accepted ) );
+            for ( Rejection rejection : Rejection.values() ) {
+                builder.append( String.format( Locale.ROOT, "  %-20s %10d%n", rejection, rejections[ rejection.ordinal() ] ) );
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * The output of the accepted puzzles.
+     */
+    private interface Sink {
+        void write( byte [] cells, int offset, GameLevel level ) throws IOException;
+        void close() throws IOException;
+    }
+
+    private final int threads;
+    private final boolean distinct;
+
+    private final BlockingQueue<Batch> free;
+    private final BlockingQueue<Batch> parsed;
+    private final BlockingQueue<Batch> checked;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    // The state of the reading thread
+    private Thread reader;
+    private Batch filling;
+    private long sequence;
+
+    /**
+     * The class constructor
+     * @param threads   The number of worker threads.
+     * @param distinct  True to reject the puzzles equivalent to a puzzle already accepted.
+     */
+    public PuzzleImporter( int threads, boolean distinct ) {
+        if ( threads < 1 ) throw new IllegalArgumentException( "Bad thread count: " + threads );
+        this.threads = threads;
+        this.distinct = distinct;
+        int batchCount = threads * BATCHES_PER_THREAD;
+        free = new ArrayBlockingQueue<>( batchCount );
+        for ( int i = 0; i < batchCount; i++ ) free.add( new Batch() );
+        parsed = new ArrayBlockingQueue<>( batchCount + threads );
+        checked = new ArrayBlockingQueue<>( batchCount + threads );
+    }
+
+    /**
+     * Import the puzzles of a stream into a text stream.
+     */
+    public Report run( InputStream in, final OutputStream out ) throws IOException {
+        final byte [] line = new byte[ CELL_COUNT + 1 ];
+        return run( in, new Sink() {
+            @Override
+            public void write( byte [] cells, int offset, GameLevel level ) throws IOException {
+                for ( int i = 0; i < CELL_COUNT; i++ ) line[i] = (byte) ( '0' + cells[ offset + i ] );
+                line[ CELL_COUNT ] = ' ';
+                out.write( line );
+                out.write( LEVEL_NAMES[ level.ordinal() ] );
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        } );
+    }
+
+    /**
+     * Import the puzzles of a stream into a corpus.
+     */
+    public Report run( InputStream in, final PuzzleCorpusWriter writer ) throws IOException {
+        final int [] givens = new int[ CELL_COUNT ];
+        return run( in, new Sink() {
+            @Override
+            public void write( byte [] cells, int offset, GameLevel level ) throws IOException {
+                for ( int i = 0; i < CELL_COUNT; i++ ) givens[i] = cells[ offset + i ];
+                // Already checked by the workers
+                writer.addChecked( level, givens );
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        } );
+    }
+
+    private Report run( InputStream in, final Sink sink ) throws IOException {
+        final Report report = new Report();
+        report.threads = threads;
+        long start = System.nanoTime();
+        reader = Thread.currentThread();
+
+        Thread [] pipeline = new Thread[ threads + 1 ];
+        for ( int i = 0; i < threads; i++ ) {
+            pipeline[i] = new Thread( new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            }, "import-worker-" + i );
+        }
+        pipeline[ threads ] = new Thread( new Runnable() {
+            @Override
+            public void run() {
+                write( sink, report );
+            }
+        }, "import-writer" );
+        Thread.UncaughtExceptionHandler handler = new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException( Thread thread, Throwable exception ) {
+                fail( exception );
+            }
+        };
+        for ( Thread thread : pipeline ) {
+            thread.setDaemon( true );
+            thread.setUncaughtExceptionHandler( handler );
+            thread.start();
+        }
+
+        boolean done = false;
+        try {
+            read( in );
+            for ( int i = 0; i < threads; i++ ) parsed.put( END );
+            pipeline[ threads ].join();
+            done = true;
+        } catch ( InterruptedException exception ) {
+            // Interrupted by a failing thread of the pipeline
+            if ( failure.get() == null ) Thread.currentThread().interrupt();
+        } finally {
+            if ( ! done ) {
+                for ( Thread thread : pipeline ) thread.interrupt();
+            }
+        }
+
+        Throwable cause = failure.get();
+        if ( cause instanceof IOException ) throw (IOException) cause;
+        if ( cause != null ) throw new IllegalStateException( "Import failed", cause );
+        if ( ! done ) throw new IOException( "Import interrupted" );
+
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // Stop the reading thread, which stops the others
+    private void fail( Throwable exception ) {
+        failure.compareAndSet( null, exception );
+        reader.interrupt();
+    }
+
+    /**
+     * Parse the bytes of the input into batches. A malformed line is kept as a rejected puzzle,
+     * so that the writer counts it.
+     */
+    private void read( InputStream in ) throws IOException, InterruptedException {
+        byte [] buffer = new byte[ READ_BUFFER_SIZE ];
+        filling = free.take();
+        sequence = 0;
+        int column = 0;             // The column in the current line
+        boolean malformed = false;
+        boolean ignored = false;    // True for a comment, and for the end of a line after a blank
+
+        int read;
+        while ( ( read = in.read( buffer ) ) != -1 ) {
+            for ( int i = 0; i < read; i++ ) {
+                byte c = buffer[i];
+                if ( c == '\n' ) {
+                    if ( column > 0 ) endLine( column, malformed );
+                    column = 0;
+                    malformed = false;
+                    ignored = false;
+                } else if ( ignored || c == '\r' ) {
+                    continue;
+                } else if ( column == 0 && c == '#' ) {
+                    ignored = true;
+                } else if ( column >= CELL_COUNT ) {
+                    if ( c == ' ' || c == '\t' ) {
+                        ignored = true;
+                    } else {
+                        malformed = true;
+                    }
+                } else {
+                    int value = 0;
+                    if ( c >= '1' && c <= '9' ) {
+                        value = c - '0';
+                    } else if ( c != '0' && c != '.' ) {
+                        malformed = true;
+                    }
+                    filling.cells[ filling.count * CELL_COUNT + column ] = (byte) value;
+                    column++;
+                }
+            }
+        }
+        if ( column > 0 ) endLine( column, malformed );
+
+        if ( filling.count > 0 ) {
+            filling.sequence = sequence++;
+            parsed.put( filling );
+        } else {
+            free.put( filling );
+        }
+        filling = null;
+    }
+
+    /**
+     * Close the current line of the batch being filled, and hand the batch to the workers
+     * once full.
+     */
+    private void endLine( int column, boolean malformed ) throws InterruptedException {
+        filling.statuses[ filling.count ] = malformed || column < CELL_COUNT
+                ? (byte) ( REJECTED_FIRST + Rejection.MALFORMED.ordinal() ) : ACCEPTED_FIRST;
+        filling.count++;
+        if ( filling.count < BATCH_SIZE ) return;
+
+        filling.sequence = sequence++;
+        parsed.put( filling );
+        // Wait here when the workers or the writer are behind
+        filling = free.take();
+    }
+
+    /**
+     * The loop of a worker thread: check and grade the puzzles of the parsed batches.
+     */
+    private void work() {
+        SudokuSolver solver = new SudokuSolver();
+        DifficultyGrader grader = new DifficultyGrader();
+        PuzzleCanonicalizer canonicalizer = distinct ? new PuzzleCanonicalizer() : null;
+        int [] givens = new int[ CELL_COUNT ];
+        try {
+            while ( true ) {
+                Batch batch = parsed.take();
+                if ( batch == END ) {
+                    checked.put( END );
+                    return;
+                }
+                for ( int p = 0; p < batch.count; p++ ) {
+                    if ( batch.statuses[p] != ACCEPTED_FIRST ) continue;
+                    for ( int i = 0; i < CELL_COUNT; i++ ) givens[i] = batch.cells[ p * CELL_COUNT + i ];
+                    batch.statuses[p] = check( givens, solver, grader );
+                    if ( canonicalizer != null && batch.statuses[p] < REJECTED_FIRST ) {
+                        batch.hashes[p] = canonicalizer.hash( givens );
+                    }
+                }
+                checked.put( batch );
+            }
+        } catch ( InterruptedException exception ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Check a puzzle and grade it.
+     * @return  The status of the puzzle: the ordinal of its level, or a rejection.
+     */
+    static byte check( int [] givens, SudokuSolver solver, DifficultyGrader grader ) {
+        if ( hasConflictingGivens( givens ) ) {
+            return (byte) ( REJECTED_FIRST + Rejection.CONFLICTING_GIVENS.ordinal() );
+        }
+        int solutions = solver.countSolutions( givens, 2 );
+        if ( solutions == 0 ) return (byte) ( REJECTED_FIRST + Rejection.NO_SOLUTION.ordinal() );
+        if ( solutions > 1 ) return (byte) ( REJECTED_FIRST + Rejection.MULTIPLE_SOLUTIONS.ordinal() );
+        return (byte) grader.grade( givens ).ordinal();
+    }
+
+    private static boolean hasConflictingGivens( int [] givens ) {
+        for ( int [] unit : GameBoard.UNITS ) {
+            int used = 0;
+            for ( int cell : unit ) {
+                if ( givens[cell] == 0 ) continue;
+                int bit = 1 << givens[cell];
+                if ( ( used & bit ) != 0 ) return true;
+                used |= bit;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The loop of the writing thread: write the checked batches in the order of the input.
+     */
+    private void write( Sink sink, Report report ) {
+        // The batches in flight have consecutive sequences: they never share a slot
+        Batch [] pending = new Batch[ threads * BATCHES_PER_THREAD ];
+        LongHashSet seen = distinct ? new LongHashSet() : null;
+        long next = 0;
+        int ended = 0;
+        try {
+            while ( ended < threads ) {
+                Batch batch = checked.take();
+                if ( batch == END ) {
+                    ended++;
+                    continue;
+                }
+                pending[ (int) ( batch.sequence % pending.length ) ] = batch;
+                int slot;
+                while ( ( batch = pending[ slot = (int) ( next % pending.length ) ] ) != null
+                        && batch.sequence == next ) {
+                    pending[slot] = null;
+                    for ( int p = 0; p < batch.count; p++ ) {
+                        int status = batch.statuses[p];
+                        if ( status < REJECTED_FIRST && seen != null && ! seen.add( batch.hashes[p] ) ) {
+                            status = REJECTED_FIRST + Rejection.DUPLICATE.ordinal();
+                        }
+                        report.lines++;
+                        if ( status < REJECTED_FIRST ) {
+                            report.accepted++;
+                            report.levels[status]++;
+                            sink.write( batch.cells, p * CELL_COUNT, GameLevel.values()[status] );
+                        } else {
+                            report.rejections[ status - REJECTED_FIRST ]++;
+                        }
+                    }
+                    batch.count = 0;
+                    free.put( batch );
+                    next++;
+                }
+            }
+            sink.close();
+        } catch ( InterruptedException exception ) {
+            Thread.currentThread().interrupt();
+        } catch ( IOException exception ) {
+            fail( exception );
+        }
+    }
+
+    public static void main( String [] args ) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean distinct = false;
+        int i = 0;
+        try {
+            for ( ; i < args.length - 2; i++ ) {
+                if ( args[i].equals( "--threads" ) ) {
+                    threads = Integer.parseInt( args[ ++i ] );
+                } else if ( args[i].equals( "--distinct" ) ) {
+                    distinct = true;
+                } else {
+                    throw new IllegalArgumentException( args[i] );
+                }
+            }
+        } catch ( IllegalArgumentException exception ) {
+            i = -1;
+        }
+        if ( i != args.length - 2 ) {
+            System.err.println( "Usage: PuzzleImporter [--threads N] [--distinct] <input.txt | -> <output.txt | output.corpus>" );
+            System.exit( 2 );
+        }
+
+        String input = args[ args.length - 2 ];
+        File output = new File( args[ args.length - 1 ] );
+        InputStream in = input.equals( "-" ) ? System.in : new FileInputStream( input );
+        PuzzleImporter importer = new PuzzleImporter( threads, distinct );
+        Report report;
+        try {
+            if ( output.getName().endsWith( ".corpus" ) ) {
+                PuzzleCorpusWriter writer = new PuzzleCorpusWriter( output );
+                try {
+                    report = importer.run( in, writer );
+                } finally {
+                    writer.abort();
+                }
+            } else {
+                OutputStream out = new BufferedOutputStream( new FileOutputStream( output ), 1 << 16 );
+                try {
+                    report = importer.run( in, out );
+                } finally {
+                    out.close();
+                }
+            }
+        } finally {
+            in.close();
+        }
+        System.out.print( report );
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the analyses against plain sequential checks, on generated puzzles made minimal or
+ * given extra clues.
+ */
+public class MinimalityAnalyserTest {
+
+    @Test
+    public void evilPuzzles_areMinimal() {
+        try ( MinimalityAnalyser analyser = new MinimalityAnalyser( 3 ) ) {
+            for ( int seed = 0; seed < 4; seed++ ) {
+                int [] givens = new PuzzleGenerator( seed ).generate( GameLevel.EVIL ).getGivens();
+                MinimalityAnalyser.Analysis analysis = analyser.analyse( givens );
+                assertEquals( MinimalityAnalyser.Status.UNIQUE, analysis.getStatus() );
+                assertTrue( analysis.isMinimal() );
+                assertEquals( 0, analysis.getRedundantGivens().length );
+            }
+        }
+    }
+
+    @Test
+    public void extraClues_areRedundant() {
+        GameBoard board = new PuzzleGenerator( 9 ).generate( GameLevel.EVIL );
+        int [] givens = board.getGivens();
+        // Two more givens from the solution
+        int added = 0;
+        for ( int cell = 0; cell < GameBoard.CELL_COUNT && added < 2; cell += 7 ) {
+            if ( givens[cell] != 0 ) continue;
+            givens[cell] = board.getRealValue( cell % 9, cell / 9 );
+            added++;
+        }
+
+        try ( MinimalityAnalyser analyser = new MinimalityAnalyser( 4 ) ) {
+            MinimalityAnalyser.Analysis analysis = analyser.analyse( givens );
+            assertEquals( MinimalityAnalyser.Status.UNIQUE, analysis.getStatus() );
+            assertFalse( analysis.isMinimal() );
+            assertArrayEquals( redundantGivens( givens ), analysis.getRedundantGivens() );
+            assertTrue( analysis.toString(), analysis.toString().contains( " REDUNDANT r" ) );
+        }
+    }
+
+    @Test
+    public void ambiguousPuzzles_haveNoRedundantGiven() {
+        int [] givens = new PuzzleGenerator( 2 ).generate( GameLevel.MEDIUM ).getGivens();
+        for ( int cell = 0; cell < GameBoard.CELL_COUNT; cell++ ) {
+            if ( givens[cell] != 0 ) {
+                givens[cell] = 0;
+                if ( new SudokuSolver().countSolutions( givens, 2 ) > 1 ) break;
+            }
+        }
+        int [] conflicting = new int[ GameBoard.CELL_COUNT ];
+        conflicting[0] = 5;
+        conflicting[1] = 5;
+
+        try ( MinimalityAnalyser analyser = new MinimalityAnalyser( 2 ) ) {
+            MinimalityAnalyser.Analysis analysis = analyser.analyse( givens );
+            assertEquals( MinimalityAnalyser.Status.MULTIPLE_SOLUTIONS, analysis.getStatus() );
+            assertFalse( analysis.isMinimal() );
+            assertEquals( 0, analysis.getRedundantGivens().length );
+            assertEquals( MinimalityAnalyser.Status.NO_SOLUTION, analyser.analyse( conflicting ).getStatus() );
+        }
+    }
+
+    @Test
+    public void symmetries_ofThePattern() {
+        int [] givens = new int[ GameBoard.CELL_COUNT ];
+        assertEquals( EnumSet.allOf( MinimalityAnalyser.Symmetry.class ), MinimalityAnalyser.findSymmetries( givens ) );
+
+        givens[ 4 * 9 + 4 ] = 1;
+        assertEquals( EnumSet.allOf( MinimalityAnalyser.Symmetry.class ), MinimalityAnalyser.findSymmetries( givens ) );
+
+        givens[0] = 2;
+        assertEquals( EnumSet.of( MinimalityAnalyser.Symmetry.DIAGONAL ), MinimalityAnalyser.findSymmetries( givens ) );
+
+        givens[80] = 3;
+        assertEquals( EnumSet.of( MinimalityAnalyser.Symmetry.CENTRAL, MinimalityAnalyser.Symmetry.DIAGONAL,
+                MinimalityAnalyser.Symmetry.ANTI_DIAGONAL ), MinimalityAnalyser.findSymmetries( givens ) );
+
+        givens[8] = 4;
+        givens[72] = 5;
+        assertEquals( EnumSet.allOf( MinimalityAnalyser.Symmetry.class ), MinimalityAnalyser.findSymmetries( givens ) );
+
+        givens[1] = 6;
+        assertEquals( EnumSet.noneOf( MinimalityAnalyser.Symmetry.class ), MinimalityAnalyser.findSymmetries( givens ) );
+
+        // Each symmetry is a permutation of the cells
+        for ( MinimalityAnalyser.Symmetry symmetry : MinimalityAnalyser.Symmetry.values() ) {
+            boolean [] images = new boolean[ GameBoard.CELL_COUNT ];
+            for ( int cell = 0; cell < GameBoard.CELL_COUNT; cell++ ) images[ symmetry.map( cell ) ] = true;
+            for ( boolean image : images ) assertTrue( symmetry.toString(), image );
+        }
+    }
+
+    @Test
+    public void corpus_keepsOrderAndReportsProgress() {
+        List<int[]> puzzles = new ArrayList<>();
+        for ( GameBoard board : PuzzleBatch.generate( GameLevel.HARD, 40, 5, 2 ).items ) puzzles.add( board.getGivens() );
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger last = new AtomicInteger();
+
+        try ( MinimalityAnalyser analyser = new MinimalityAnalyser( 4 ) ) {
+            List<MinimalityAnalyser.Analysis> analyses = analyser.analyseAll( puzzles, new MinimalityAnalyser.Progress() {
+                @Override
+                public void onProgress( int done, int total ) {
+                    calls.incrementAndGet();
+                    assertEquals( 40, total );
+                    last.accumulateAndGet( done, Math::max );
+                }
+            } );
+
+            assertEquals( 40, analyses.size() );
+            assertEquals( 40, calls.get() );
+            assertEquals( 40, last.get() );
+            for ( int i = 0; i < puzzles.size(); i++ ) {
+                assertArrayEquals( puzzles.get( i ), analyses.get( i ).getGivens() );
+                assertArrayEquals( redundantGivens( puzzles.get( i ) ), analyses.get( i ).getRedundantGivens() );
+            }
+        }
+    }
+
+    @Test
+    public void parse_readsTheDumpLines() {
+        String puzzle = "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+        int [] givens = MinimalityAnalyser.parse( puzzle + " comment" );
+        assertNotNull( givens );
+        assertEquals( 4, givens[0] );
+        assertEquals( 0, givens[1] );
+        assertNull( MinimalityAnalyser.parse( puzzle.substring( 1 ) ) );
+        assertNull( MinimalityAnalyser.parse( puzzle.replace( '4', 'x' ) ) );
+    }
+
+    // The reference: each given removed in turn, on the calling thread
+    private static int [] redundantGivens( int [] givens ) {
+        SudokuSolver solver = new SudokuSolver();
+        int [] grid = givens.clone();
+        List<Integer> cells = new ArrayList<>();
+        for ( int cell = 0; cell < GameBoard.CELL_COUNT; cell++ ) {
+            if ( grid[cell] == 0 ) continue;
+            grid[cell] = 0;
+            if ( solver.countSolutions( grid, 2 ) == 1 ) cells.add( cell );
+            grid[cell] = givens[cell];
+        }
+        int [] result = new int[ cells.size() ];
+        for ( int i = 0; i < result.length; i++ ) result[i] = cells.get( i );
+        return result;
+    }
+
+}
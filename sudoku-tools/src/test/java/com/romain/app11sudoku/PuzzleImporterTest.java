@@ -0,0 +1,112 @@
+package com.romain.app11sudoku;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Run the import pipeline over small generated dumps.
+ */
+public class PuzzleImporterTest {
+
+    private static final Charset ASCII = Charset.forName( "US-ASCII" );
+
+    @Test
+    public void import_keepsOrderAndCountsRejections() throws IOException {
+        List<GameBoard> boards = PuzzleBatch.generate( GameLevel.MEDIUM, 600, 14, 2 ).items;
+        StringBuilder input = new StringBuilder( "# A dump\r\n\r\n" );
+        for ( GameBoard board : boards ) input.append( toLine( board.getGivens() ) ).append( "\r\n" );
+        input.append( "123\n" );                                    // Too short
+        input.append( toLine( new int[ 81 ] ).replace( '0', 'x' ) ).append( '\n' );
+        int [] conflicting = boards.get( 0 ).getGivens();
+        conflicting[0] = 1;
+        conflicting[1] = 1;
+        input.append( toLine( conflicting ) ).append( '\n' );
+        input.append( toLine( new int[ 81 ] ) ).append( " empty grid\n" );
+        // Without the last new line
+        input.append( toLine( boards.get( 1 ).getGivens() ) );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PuzzleImporter.Report report = new PuzzleImporter( 3, false ).run( stream( input ), out );
+
+        assertEquals( 605, report.lines );
+        assertEquals( 601, report.accepted );
+        assertEquals( 2, report.rejections[ PuzzleImporter.Rejection.MALFORMED.ordinal() ] );
+        assertEquals( 1, report.rejections[ PuzzleImporter.Rejection.CONFLICTING_GIVENS.ordinal() ] );
+        assertEquals( 1, report.rejections[ PuzzleImporter.Rejection.MULTIPLE_SOLUTIONS.ordinal() ] );
+
+        String [] lines = new String( out.toByteArray(), ASCII ).split( "\n" );
+        assertEquals( 601, lines.length );
+        DifficultyGrader grader = new DifficultyGrader();
+        long levelTotal = 0;
+        for ( int i = 0; i < 600; i++ ) {
+            int [] givens = boards.get( i ).getGivens();
+            assertEquals( toLine( givens ) + " " + grader.grade( givens ), lines[i] );
+        }
+        for ( long count : report.levels ) levelTotal += count;
+        assertEquals( report.accepted, levelTotal );
+    }
+
+    @Test
+    public void distinct_rejectsEquivalentPuzzles() throws IOException {
+        List<GameBoard> boards = PuzzleBatch.generate( GameLevel.EASY, 20, 15, 2 ).items;
+        StringBuilder input = new StringBuilder();
+        for ( GameBoard board : boards ) input.append( toLine( board.getGivens() ) ).append( '\n' );
+        for ( GameBoard board : boards ) input.append( toLine( transpose( board.getGivens() ) ) ).append( '\n' );
+
+        File output = File.createTempFile( "import", ".corpus" );
+        output.deleteOnExit();
+        PuzzleCorpusWriter writer = new PuzzleCorpusWriter( output );
+        PuzzleImporter.Report report = new PuzzleImporter( 2, true ).run( stream( input ), writer );
+        assertEquals( 20, report.accepted );
+        assertEquals( 20, report.rejections[ PuzzleImporter.Rejection.DUPLICATE.ordinal() ] );
+
+        PuzzleCorpus corpus = new PuzzleCorpus( output );
+        try {
+            int total = 0;
+            for ( GameLevel level : GameLevel.values() ) total += corpus.size( level );
+            assertEquals( 20, total );
+        } finally {
+            corpus.close();
+        }
+    }
+
+    @Test( expected = IOException.class )
+    public void readFailure_stopsThePipeline() throws IOException {
+        InputStream failing = new InputStream() {
+            private int count;
+
+            @Override
+            public int read() throws IOException {
+                if ( ++count > 100000 ) throw new IOException( "Disk error" );
+                return count % 82 == 0 ? '\n' : '0';
+            }
+        };
+        new PuzzleImporter( 2, false ).run( failing, new ByteArrayOutputStream() );
+    }
+
+    private static InputStream stream( CharSequence text ) {
+        return new ByteArrayInputStream( text.toString().getBytes( ASCII ) );
+    }
+
+    private static String toLine( int [] givens ) {
+        StringBuilder builder = new StringBuilder();
+        for ( int value : givens ) builder.append( (char) ( '0' + value ) );
+        return builder.toString();
+    }
+
+    private static int [] transpose( int [] givens ) {
+        int [] transposed = new int[ 81 ];
+        for ( int i = 0; i < 81; i++ ) transposed[i] = givens[ i % 9 * 9 + i / 9 ];
+        return transposed;
+    }
+
+}